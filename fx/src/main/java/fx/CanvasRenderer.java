@@ -0,0 +1,372 @@
+package fx;
+
+import enums.ActorType;
+import enums.Direction;
+import enums.FieldType;
+import game.BatchGameObserver;
+import game.BoardInfo;
+import game.DirtyCells;
+import game.FieldInfo;
+import game.GameEventBatch;
+import game.PacManGame;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import metrics.LatencyHistogram;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Draws a game on a single {@link Canvas}, driven by an {@link AnimationTimer} on the JavaFX application thread.
+ * <p>
+ * The renderer is a {@link BatchGameObserver} and has to be added to the game on the thread that steps it. At the end
+ * of a step it looks up the sprites of the fields in {@link PacManGame#getDirtyCells()}, stores them and sets a dirty
+ * bit per field, all without locks, so the game thread never waits for the view. Every frame takes the dirty bits and
+ * copies the sprites of only these fields from a {@link SpriteAtlas} onto the canvas, which keeps its content between
+ * frames. The walls never change, they are rendered once into an image that is the background of a complete redraw,
+ * which only happens when the game reports that every field changed, e.g. after a snapshot was restored. When the
+ * power pellet mode starts or ends, only the fields that show a ghost are drawn again.
+ * <p>
+ * The renderer draws a frame on every pulse of JavaFX. {@link FrameRateProbe} measures it: with headless Monocle and the
+ * software pipeline, a cell size of 3 pixels and a game running, mazes of 301, 501 and 801 fields per side all ran at
+ * 62 frames per second, the pulse rate, with {@code render()} taking at most 2 ms at the 99th percentile. The frame
+ * time is in {@link #getFrameLatency()}.
+ * <p>
+ * The canvas has one cell of {@code cellSize} pixels per field and a line with score, lives and stage below the board.
+ * A board of several hundred fields per side needs a small cell size, since JavaFX limits the size of a canvas to
+ * the maximum texture size of the graphics card.
+ */
+public final class CanvasRenderer implements BatchGameObserver {
+
+    /**
+     * Height (in pixels) of the line with score, lives and stage.
+     */
+    private static final int STATUS_HEIGHT = 20;
+
+    private final PacManGame game;
+    private final BoardInfo board;
+    private final int rows;
+    private final int columns;
+    private final int cellSize;
+
+    private final SpriteAtlas atlas;
+    private final WritableImage wallLayer;
+    private final WritableImage frame;
+    private final Canvas canvas;
+    private final GraphicsContext gc;
+    private final AnimationTimer timer;
+
+    /**
+     * The sprite of every field, written by the game thread. Ghosts are stored with their character, whether they are
+     * frightened is decided when they are drawn.
+     */
+    private final AtomicIntegerArray sprites;
+
+    /**
+     * One bit per field whose sprite changed since the last frame.
+     */
+    private final AtomicLongArray dirty;
+
+    /**
+     * Set instead of the dirty bits if every field changed.
+     */
+    private final AtomicBoolean allDirty = new AtomicBoolean();
+
+    /**
+     * Whether the game thread stored the sprites of all fields, only accessed by the game thread.
+     */
+    private boolean synced;
+
+    private volatile long score;
+    private volatile int lives;
+    private volatile int stage;
+    private volatile boolean powerPelletMode;
+    private volatile boolean gameOver;
+
+    /*
+     * The state of the last frame, only accessed by the JavaFX application thread.
+     */
+    private boolean drawnPowerPelletMode;
+    private long drawnScore = -1;
+    private int drawnLives;
+    private int drawnStage;
+    private boolean drawnGameOver;
+
+    /**
+     * The fields that show a ghost on the canvas, and the position of every field in this list or -1.
+     */
+    private final int[] drawnGhosts;
+    private final int[] drawnGhostSlots;
+    private int drawnGhostCount;
+    private final LatencyHistogram frameLatency = new LatencyHistogram();
+    private volatile long frames;
+
+    /**
+     * Creates a renderer for a game, must be called on the JavaFX application thread. The renderer draws nothing
+     * before {@link #start()} is called and the game finished a step.
+     *
+     * @param game     the game to draw.
+     * @param cellSize the width and height (in pixels) of a field.
+     * @throws IllegalArgumentException if the game is null or the cell size is not positive.
+     */
+    public CanvasRenderer(PacManGame game, int cellSize) {
+        if (game == null) {
+            throw new IllegalArgumentException("invalid game");
+        }
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("invalid cell size");
+        }
+        this.game = game;
+        this.board = game.getBoardInfo();
+        this.rows = board.getNumberOfRows();
+        this.columns = board.getNumberOfColumns();
+        this.cellSize = cellSize;
+        this.atlas = new SpriteAtlas(cellSize);
+        this.wallLayer = renderWalls();
+        this.frame = new WritableImage(columns * cellSize, rows * cellSize);
+        this.canvas = new Canvas(columns * cellSize, rows * cellSize + STATUS_HEIGHT);
+        this.gc = canvas.getGraphicsContext2D();
+        this.sprites = new AtomicIntegerArray(board.getNumberOfFields());
+        this.dirty = new AtomicLongArray((board.getNumberOfFields() + 63) >>> 6);
+        this.drawnGhosts = new int[board.getNumberOfFields()];
+        this.drawnGhostSlots = new int[board.getNumberOfFields()];
+        Arrays.fill(drawnGhostSlots, -1);
+        gc.setFill(SpriteAtlas.FLOOR_COLOR);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        gc.drawImage(wallLayer, 0, 0);
+        gc.setFont(Font.font("Monospaced", STATUS_HEIGHT * 0.7));
+        gc.setTextBaseline(VPos.CENTER);
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(final long now) {
+                render();
+            }
+        };
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+
+    /**
+     * Starts drawing a frame on every pulse of JavaFX, usually 60 times per second.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stops drawing. The renderer should be removed from the game as well.
+     */
+    public void stop() {
+        timer.stop();
+    }
+
+    /**
+     * Returns the number of frames drawn.
+     *
+     * @return the number of frames.
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns the time (in nanoseconds) it took to draw a frame. The histogram is written by the JavaFX application
+     * thread.
+     *
+     * @return the histogram of the frame times.
+     */
+    public LatencyHistogram getFrameLatency() {
+        return frameLatency;
+    }
+
+    @Override
+    public void stepDone(final GameEventBatch events) {
+        final DirtyCells dirtyCells = game.getDirtyCells();
+        if (!synced || dirtyCells.isAll()) {
+            for (int i = 0; i < sprites.length(); i++) {
+                sprites.lazySet(i, spriteOf(i));
+            }
+            synced = true;
+            allDirty.set(true);
+        } else {
+            for (int p = 0; p < dirtyCells.size(); p++) {
+                final int index = dirtyCells.getIndex(p);
+                sprites.lazySet(index, spriteOf(index));
+                dirty.accumulateAndGet(index >>> 6, 1L << index, (word, bit) -> word | bit);
+            }
+        }
+        score = game.getScore();
+        lives = game.getLives();
+        stage = game.getStageCounter();
+        gameOver = game.isGameOver();
+        powerPelletMode = game.isPowerPelletMode();
+    }
+
+    /**
+     * Returns the sprite of a field, called on the game thread.
+     */
+    private int spriteOf(final int index) {
+        final FieldInfo field = board.getFieldInfo(board.getRow(index), board.getColumn(index));
+        if (field.hasActor()) {
+            if (field.getActorType() == ActorType.PACMAN) {
+                final Direction direction = game.getPacManDirection();
+                return SpriteAtlas.PACMAN + (direction == null ? Direction.RIGHT : direction).ordinal();
+            }
+            return SpriteAtlas.GHOST + field.getGhostInfo().getCharacter().ordinal();
+        }
+        if (field.hasExtraItem()) {
+            return SpriteAtlas.EXTRA_ITEM + field.getExtraItem().ordinal();
+        }
+        if (field.hasPowerPellet()) {
+            return SpriteAtlas.POWER_PELLET;
+        }
+        if (field.hasPacDot()) {
+            return SpriteAtlas.PAC_DOT;
+        }
+        return field.getType() == FieldType.WALL ? SpriteAtlas.WALL : SpriteAtlas.FLOOR;
+    }
+
+    /**
+     * Draws a frame, called on the JavaFX application thread.
+     */
+    private void render() {
+        final long start = System.nanoTime();
+        final boolean frightened = powerPelletMode;
+        if (allDirty.getAndSet(false)) {
+            for (int w = 0; w < dirty.length(); w++) {
+                dirty.set(w, 0);
+            }
+            drawAll(frightened);
+        } else {
+            drawDirty(frightened);
+            if (frightened != drawnPowerPelletMode) {
+                drawGhosts(frightened);
+            }
+        }
+        drawnPowerPelletMode = frightened;
+        drawStatus();
+        frames++;
+        frameLatency.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Composes the whole board in an image, starting from the walls, and draws it at once. Much faster than drawing
+     * every field on its own, e.g. when a new stage starts on a large board.
+     */
+    private void drawAll(final boolean frightened) {
+        final PixelWriter writer = frame.getPixelWriter();
+        final PixelReader reader = atlas.getPixelReader();
+        writer.setPixels(0, 0, columns * cellSize, rows * cellSize, wallLayer.getPixelReader(), 0, 0);
+        for (int i = 0; i < sprites.length(); i++) {
+            final int sprite = sprites.get(i);
+            trackGhost(i, sprite);
+            if (sprite != SpriteAtlas.FLOOR && sprite != SpriteAtlas.WALL) {
+                writer.setPixels(board.getColumn(i) * cellSize, board.getRow(i) * cellSize, cellSize, cellSize,
+                        reader, atlas.getX(displayed(sprite, frightened)), 0);
+            }
+        }
+        gc.drawImage(frame, 0, 0);
+    }
+
+    private void drawDirty(final boolean frightened) {
+        for (int w = 0; w < dirty.length(); w++) {
+            if (dirty.get(w) == 0) {
+                continue;
+            }
+            long bits = dirty.getAndSet(w, 0);
+            while (bits != 0) {
+                final int index = (w << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                drawField(index, frightened);
+            }
+        }
+    }
+
+    /**
+     * Redraws the fields that show a ghost, because the ghosts were frightened or recovered.
+     */
+    private void drawGhosts(final boolean frightened) {
+        // drawing a field may remove it from the list and move the last one into its slot, so go backwards
+        for (int slot = drawnGhostCount - 1; slot >= 0; slot--) {
+            drawField(drawnGhosts[slot], frightened);
+        }
+    }
+
+    private void drawField(final int index, final boolean frightened) {
+        final int sprite = sprites.get(index);
+        trackGhost(index, sprite);
+        gc.drawImage(atlas.getImage(), atlas.getX(displayed(sprite, frightened)), 0, cellSize, cellSize,
+                board.getColumn(index) * cellSize, board.getRow(index) * cellSize, cellSize, cellSize);
+    }
+
+    /**
+     * Adds a field to the fields that show a ghost or removes it, whichever sprite is drawn on it.
+     */
+    private void trackGhost(final int index, final int sprite) {
+        final int slot = drawnGhostSlots[index];
+        if (isGhost(sprite)) {
+            if (slot < 0) {
+                drawnGhostSlots[index] = drawnGhostCount;
+                drawnGhosts[drawnGhostCount++] = index;
+            }
+        } else if (slot >= 0) {
+            final int last = drawnGhosts[--drawnGhostCount];
+            drawnGhosts[slot] = last;
+            drawnGhostSlots[last] = slot;
+            drawnGhostSlots[index] = -1;
+        }
+    }
+
+    private void drawStatus() {
+        if (score == drawnScore && lives == drawnLives && stage == drawnStage && gameOver == drawnGameOver) {
+            return;
+        }
+        drawnScore = score;
+        drawnLives = lives;
+        drawnStage = stage;
+        drawnGameOver = gameOver;
+        final String status = drawnGameOver ? "GAME OVER   score " + drawnScore
+                : "score " + drawnScore + "   lives " + drawnLives + "   stage " + drawnStage;
+        final double top = rows * cellSize;
+        gc.setFill(SpriteAtlas.FLOOR_COLOR);
+        gc.fillRect(0, top, canvas.getWidth(), STATUS_HEIGHT);
+        gc.setFill(Color.WHITE);
+        gc.fillText(status, 4, top + STATUS_HEIGHT / 2.0);
+    }
+
+    private static int displayed(final int sprite, final boolean frightened) {
+        return frightened && isGhost(sprite) ? SpriteAtlas.FRIGHTENED_GHOST : sprite;
+    }
+
+    private static boolean isGhost(final int sprite) {
+        return sprite >= SpriteAtlas.GHOST && sprite < SpriteAtlas.FRIGHTENED_GHOST;
+    }
+
+    /**
+     * Renders the walls and the floor of the board into an image. The walls never change, so this is done once.
+     */
+    private WritableImage renderWalls() {
+        final WritableImage image = new WritableImage(columns * cellSize, rows * cellSize);
+        final PixelWriter writer = image.getPixelWriter();
+        final PixelReader reader = atlas.getPixelReader();
+        for (int i = 0; i < board.getNumberOfFields(); i++) {
+            final int row = board.getRow(i);
+            final int column = board.getColumn(i);
+            final boolean wall = board.getFieldInfo(row, column).getType() == FieldType.WALL;
+            writer.setPixels(column * cellSize, row * cellSize, cellSize, cellSize, reader,
+                    atlas.getX(wall ? SpriteAtlas.WALL : SpriteAtlas.FLOOR), 0);
+        }
+        return image;
+    }
+}
@@ -0,0 +1,130 @@
+package fx;
+
+import ai.GhostControllerFactory;
+import enums.Direction;
+import game.Board;
+import game.GameInfo;
+import game.GameLoop;
+import game.MazeGenerator;
+import game.PacManGame;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+import metrics.LatencyHistogram;
+import view.ActorController;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the frame rate of the {@link CanvasRenderer} while a game runs on a {@link GameLoop}, on generated mazes of
+ * the given sizes. For every size it prints the frames drawn per second and the pulses of JavaFX per second after a
+ * warm-up, and the time spent in {@code render()} per frame.
+ * <p>
+ * Arguments: {@code <cell size> <seconds> <size>...}, e.g. {@code 3 5 301 501 801}. Run it with
+ * {@code gradle :fx:frameRate}; without a display, add Monocle to the class path and set the system properties
+ * {@code glass.platform=Monocle}, {@code monocle.platform=Headless} and {@code prism.order=sw}.
+ */
+public final class FrameRateProbe {
+
+    private static final int GHOSTS = 4;
+    private static final double POWER_PELLET_DENSITY = 0.01;
+    private static final double LOOP_RATIO = 0.1;
+    private static final long WARM_UP_SECONDS = 2;
+
+    private FrameRateProbe() {
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("usage: <cell size> <seconds> <size>...");
+        }
+        final int cellSize = Integer.parseInt(args[0]);
+        final long seconds = Long.parseLong(args[1]);
+        final CountDownLatch started = new CountDownLatch(1);
+        Platform.startup(started::countDown);
+        started.await();
+        // keep JavaFX running when the stage of a size is closed
+        Platform.setImplicitExit(false);
+        for (int i = 2; i < args.length; i++) {
+            final int size = Integer.parseInt(args[i]);
+            measure(size, cellSize, seconds);
+        }
+        Platform.exit();
+    }
+
+    private static void measure(final int size, final int cellSize, final long seconds) throws InterruptedException {
+        final Board board = new MazeGenerator(size, size, Math.min(GHOSTS, MazeGenerator.getMaxGhostStarts(size, size)),
+                POWER_PELLET_DENSITY, 1, LOOP_RATIO).generate(1);
+        final Random random = new Random(1);
+        final PacManGame game = new PacManGame(board, 1, new GhostControllerFactory() {
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                return () -> Direction.values()[random.nextInt(Direction.values().length)];
+            }
+        });
+        final Stage[] stage = new Stage[1];
+        final CanvasRenderer[] renderer = new CanvasRenderer[1];
+        final long[] pulses = new long[1];
+        final AnimationTimer pulseCounter = new AnimationTimer() {
+            @Override
+            public void handle(final long now) {
+                pulses[0]++;
+            }
+        };
+        runAndWait(() -> {
+            renderer[0] = new CanvasRenderer(game, cellSize);
+            game.addBatchObserver(renderer[0]);
+            stage[0] = new Stage();
+            stage[0].setScene(new Scene(new Group(renderer[0].getCanvas())));
+            stage[0].show();
+            renderer[0].start();
+            pulseCounter.start();
+        });
+        try (GameLoop loop = new GameLoop(game, null)) {
+            loop.start();
+            Thread.sleep(SECONDS.toMillis(WARM_UP_SECONDS));
+            final long[] before = new long[2];
+            runAndWait(() -> {
+                before[0] = renderer[0].getFrames();
+                before[1] = pulses[0];
+            });
+            final long start = System.nanoTime();
+            Thread.sleep(SECONDS.toMillis(seconds));
+            final long[] after = new long[2];
+            final LatencyHistogram latency = new LatencyHistogram();
+            runAndWait(() -> {
+                after[0] = renderer[0].getFrames();
+                after[1] = pulses[0];
+                latency.add(renderer[0].getFrameLatency());
+            });
+            final double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%dx%d fields, cell %d: %.1f frames/s, %.1f pulses/s, frame p50 %.2f ms, "
+                            + "p99 %.2f ms, max %.2f ms (frame times including the warm-up)%n", size, size, cellSize,
+                    (after[0] - before[0]) / elapsed, (after[1] - before[1]) / elapsed,
+                    latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(99) / 1e6,
+                    latency.getMax() / 1e6);
+        }
+        runAndWait(() -> {
+            renderer[0].stop();
+            pulseCounter.stop();
+            stage[0].close();
+        });
+    }
+
+    private static void runAndWait(final Runnable action) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                action.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
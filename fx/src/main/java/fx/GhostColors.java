@@ -0,0 +1,39 @@
+package fx;
+
+import enums.GhostCharacter;
+import javafx.scene.paint.Color;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Maps the characters of the ghosts to their colors. The engine only knows the characters, so it runs without JavaFX.
+ */
+public final class GhostColors {
+
+    private static final Map<GhostCharacter, Color> COLORS = new EnumMap<>(GhostCharacter.class);
+
+    static {
+        COLORS.put(GhostCharacter.OIKAKE, Color.RED);
+        COLORS.put(GhostCharacter.MACHIBUSE, Color.PINK);
+        COLORS.put(GhostCharacter.KIMAGURE, Color.CYAN);
+        COLORS.put(GhostCharacter.OTOBOKE, Color.ORANGE);
+    }
+
+    private GhostColors() {
+    }
+
+    /**
+     * Returns the color of a ghost.
+     *
+     * @param character the character of the ghost.
+     * @return the color of the ghost.
+     * @throws IllegalArgumentException if the character is null.
+     */
+    public static Color getColor(final GhostCharacter character) {
+        if (character == null) {
+            throw new IllegalArgumentException("invalid character");
+        }
+        return COLORS.get(character);
+    }
+}
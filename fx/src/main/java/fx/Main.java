@@ -0,0 +1,17 @@
+package fx;
+
+import javafx.application.Application;
+
+/**
+ * Starts the {@link PacManApp}. The Java launcher refuses a main class that extends {@link Application} if JavaFX is
+ * on the class path instead of the module path, so the application is launched from this class.
+ */
+public final class Main {
+
+    private Main() {
+    }
+
+    public static void main(final String[] args) {
+        Application.launch(PacManApp.class, args);
+    }
+}
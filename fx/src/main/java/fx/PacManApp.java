@@ -0,0 +1,112 @@
+package fx;
+
+import ai.GhostControllerFactory;
+import ai.MctsControllerFactory;
+import enums.Direction;
+import game.Board;
+import game.GameInfo;
+import game.GameLoop;
+import game.MazeGenerator;
+import game.PacManGame;
+import javafx.application.Application;
+import javafx.scene.Group;
+import javafx.scene.Scene;
+import javafx.scene.input.KeyEvent;
+import javafx.stage.Stage;
+import view.ActorController;
+import view.ControllerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Plays a game on a generated maze in a window. Pac-Man follows the arrow keys, or searches his moves himself with
+ * {@code --autopilot}. The game runs on the thread of a {@link GameLoop}, the {@link CanvasRenderer} draws it on the
+ * JavaFX application thread.
+ * <p>
+ * Named parameters: {@code --rows=<n>}, {@code --columns=<n>}, {@code --cell=<pixels>}, {@code --seed=<n>} and
+ * {@code --autopilot}.
+ */
+public class PacManApp extends Application {
+
+    private static final int DEFAULT_ROWS = 31;
+    private static final int DEFAULT_COLUMNS = 29;
+    private static final int DEFAULT_CELL_SIZE = 16;
+    private static final int GHOSTS = 4;
+    private static final double POWER_PELLET_DENSITY = 0.01;
+    private static final double LOOP_RATIO = 0.1;
+
+    /**
+     * Time (in milliseconds) the autopilot may search for a move.
+     */
+    private static final long AUTOPILOT_MOVE_BUDGET = 20;
+
+    private volatile Direction nextDirection = Direction.LEFT;
+    private GameLoop loop;
+    private CanvasRenderer renderer;
+
+    @Override
+    public void start(final Stage stage) {
+        final Map<String, String> named = getParameters().getNamed();
+        final int rows = Integer.parseInt(named.getOrDefault("rows", String.valueOf(DEFAULT_ROWS)));
+        final int columns = Integer.parseInt(named.getOrDefault("columns", String.valueOf(DEFAULT_COLUMNS)));
+        final int cellSize = Integer.parseInt(named.getOrDefault("cell", String.valueOf(DEFAULT_CELL_SIZE)));
+        final long seed = Long.parseLong(named.getOrDefault("seed", "1"));
+        final boolean autopilot = getParameters().getUnnamed().contains("--autopilot");
+
+        final Board board = new MazeGenerator(rows, columns,
+                Math.min(GHOSTS, MazeGenerator.getMaxGhostStarts(rows, columns)), POWER_PELLET_DENSITY, 1, LOOP_RATIO)
+                .generate(seed);
+        final ControllerFactory controllerFactory = autopilot
+                ? new MctsControllerFactory(ForkJoinPool.commonPool(), AUTOPILOT_MOVE_BUDGET)
+                : new GhostControllerFactory() {
+                    @Override
+                    public ActorController getPacManController(final GameInfo gameInfo) {
+                        return () -> nextDirection;
+                    }
+                };
+        final PacManGame game = new PacManGame(board, seed, controllerFactory);
+        renderer = new CanvasRenderer(game, cellSize);
+        game.addBatchObserver(renderer);
+        loop = new GameLoop(game, null);
+
+        final Scene scene = new Scene(new Group(renderer.getCanvas()));
+        scene.addEventHandler(KeyEvent.KEY_PRESSED, this::keyPressed);
+        stage.setTitle("Pac-Man");
+        stage.setScene(scene);
+        stage.setResizable(false);
+        stage.show();
+
+        loop.start();
+        renderer.start();
+    }
+
+    private void keyPressed(final KeyEvent event) {
+        switch (event.getCode()) {
+            case LEFT:
+                nextDirection = Direction.LEFT;
+                break;
+            case UP:
+                nextDirection = Direction.UP;
+                break;
+            case RIGHT:
+                nextDirection = Direction.RIGHT;
+                break;
+            case DOWN:
+                nextDirection = Direction.DOWN;
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (renderer != null) {
+            renderer.stop();
+        }
+        if (loop != null) {
+            loop.close();
+        }
+    }
+}
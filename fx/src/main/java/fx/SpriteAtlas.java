@@ -0,0 +1,168 @@
+package fx;
+
+import enums.Direction;
+import enums.ExtraItem;
+import enums.GhostCharacter;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.ArcType;
+
+/**
+ * All sprites of the board, prerendered once into a single image with one sprite per cell in a row. Every sprite is
+ * opaque and includes the floor, so drawing a field is a single copy from the atlas, without clearing or blending.
+ * <p>
+ * The atlas has to be created on the JavaFX application thread.
+ */
+final class SpriteAtlas {
+
+    static final int FLOOR = 0;
+    static final int WALL = 1;
+    static final int PAC_DOT = 2;
+    static final int POWER_PELLET = 3;
+
+    /**
+     * First of the extra items, in the order of {@link ExtraItem}.
+     */
+    static final int EXTRA_ITEM = 4;
+
+    /**
+     * First of the sprites of Pac-Man, one per {@link Direction} he looks in.
+     */
+    static final int PACMAN = EXTRA_ITEM + ExtraItem.values().length;
+
+    /**
+     * First of the ghosts, in the order of {@link GhostCharacter}.
+     */
+    static final int GHOST = PACMAN + Direction.values().length;
+
+    /**
+     * A ghost that can be eaten, whatever its character.
+     */
+    static final int FRIGHTENED_GHOST = GHOST + GhostCharacter.values().length;
+
+    static final int SPRITES = FRIGHTENED_GHOST + 1;
+
+    static final Color FLOOR_COLOR = Color.BLACK;
+    private static final Color WALL_COLOR = Color.rgb(33, 33, 222);
+    private static final Color DOT_COLOR = Color.rgb(255, 184, 151);
+    private static final Color PACMAN_COLOR = Color.YELLOW;
+    private static final Color FRIGHTENED_COLOR = Color.rgb(33, 33, 255);
+    private static final Color[] EXTRA_ITEM_COLORS = {Color.RED, Color.YELLOW, Color.ORANGE, Color.CRIMSON};
+
+    private final int size;
+    private final WritableImage image;
+
+    /**
+     * Renders the sprites.
+     *
+     * @param size the width and height (in pixels) of a sprite.
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    SpriteAtlas(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("invalid sprite size");
+        }
+        this.size = size;
+        final Canvas canvas = new Canvas(SPRITES * size, size);
+        final GraphicsContext gc = canvas.getGraphicsContext2D();
+        gc.setFill(FLOOR_COLOR);
+        gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        drawWall(gc, WALL * size);
+        drawDot(gc, PAC_DOT * size, 0.25);
+        drawDot(gc, POWER_PELLET * size, 0.6);
+        for (ExtraItem item : ExtraItem.values()) {
+            drawExtraItem(gc, (EXTRA_ITEM + item.ordinal()) * size, EXTRA_ITEM_COLORS[item.ordinal()]);
+        }
+        for (Direction direction : Direction.values()) {
+            drawPacMan(gc, (PACMAN + direction.ordinal()) * size, direction);
+        }
+        for (GhostCharacter character : GhostCharacter.values()) {
+            drawGhost(gc, (GHOST + character.ordinal()) * size, GhostColors.getColor(character));
+        }
+        drawGhost(gc, FRIGHTENED_GHOST * size, FRIGHTENED_COLOR);
+        final SnapshotParameters parameters = new SnapshotParameters();
+        parameters.setFill(FLOOR_COLOR);
+        image = canvas.snapshot(parameters, new WritableImage(SPRITES * size, size));
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    Image getImage() {
+        return image;
+    }
+
+    PixelReader getPixelReader() {
+        return image.getPixelReader();
+    }
+
+    /**
+     * Returns the x-coordinate of a sprite in the atlas, its y-coordinate is always 0.
+     *
+     * @param sprite the sprite.
+     * @return the left border of the sprite.
+     */
+    int getX(final int sprite) {
+        return sprite * size;
+    }
+
+    private void drawWall(final GraphicsContext gc, final double x) {
+        final double inset = size >= 6 ? 1 : 0;
+        gc.setFill(WALL_COLOR);
+        gc.fillRect(x + inset, inset, size - 2 * inset, size - 2 * inset);
+    }
+
+    private void drawDot(final GraphicsContext gc, final double x, final double fraction) {
+        final double diameter = Math.max(1, size * fraction);
+        gc.setFill(DOT_COLOR);
+        gc.fillOval(x + (size - diameter) / 2, (size - diameter) / 2, diameter, diameter);
+    }
+
+    private void drawExtraItem(final GraphicsContext gc, final double x, final Color color) {
+        final double diameter = size * 0.6;
+        gc.setFill(color);
+        gc.fillOval(x + (size - diameter) / 2, size - diameter - size * 0.1, diameter, diameter);
+        gc.setStroke(Color.GREEN);
+        gc.setLineWidth(Math.max(1, size / 10.0));
+        gc.strokeLine(x + size / 2.0, size - diameter - size * 0.1, x + size * 0.7, size * 0.1);
+    }
+
+    private void drawPacMan(final GraphicsContext gc, final double x, final Direction direction) {
+        final double startAngle;
+        switch (direction) {
+            case LEFT:
+                startAngle = 210;
+                break;
+            case UP:
+                startAngle = 120;
+                break;
+            case DOWN:
+                startAngle = 300;
+                break;
+            default:
+                startAngle = 30;
+                break;
+        }
+        gc.setFill(PACMAN_COLOR);
+        gc.fillArc(x + 0.5, 0.5, size - 1, size - 1, startAngle, 300, ArcType.ROUND);
+    }
+
+    private void drawGhost(final GraphicsContext gc, final double x, final Color color) {
+        final double width = size - 1;
+        gc.setFill(color);
+        gc.fillArc(x + 0.5, 0.5, width, width, 0, 180, ArcType.ROUND);
+        gc.fillRect(x + 0.5, 0.5 + width / 2, width, width / 2);
+        if (size >= 8) {
+            gc.setFill(Color.WHITE);
+            final double eye = size / 4.0;
+            gc.fillOval(x + size * 0.2, size * 0.25, eye, eye);
+            gc.fillOval(x + size * 0.55, size * 0.25, eye, eye);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package benchmark;
+
+import ai.GhostControllerFactory;
+import enums.Direction;
+import game.GameInfo;
+import view.ActorController;
+import view.ControllerFactory;
+
+/**
+ * Controllers used by the benchmarks. The ghosts use their regular controllers, Pac-Man moves at random without
+ * allocating, so the benchmarks measure the engine and not the controller.
+ */
+final class BenchmarkControllers {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private BenchmarkControllers() {
+    }
+
+    static ControllerFactory randomPacMan() {
+        return new GhostControllerFactory() {
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                return new RandomPacManController(gameInfo.getSeed());
+            }
+        };
+    }
+
+    private static final class RandomPacManController implements ActorController {
+
+        private long state;
+
+        RandomPacManController(final long seed) {
+            state = seed == 0 ? 1 : seed;
+        }
+
+        @Override
+        public Direction getMove() {
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            return DIRECTIONS[(int) ((state >>> 33) % DIRECTIONS.length)];
+        }
+    }
+}
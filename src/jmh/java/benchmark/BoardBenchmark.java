@@ -0,0 +1,56 @@
+package benchmark;
+
+import game.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing, initializing and copying a board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"SMALL", "CLASSIC", "LARGE"})
+    public Maze maze;
+
+    private String[] description;
+    private Board board;
+
+    @Setup
+    public void setUp() {
+        description = maze.getDescription();
+        board = Board.parse(description);
+    }
+
+    @Benchmark
+    public Board parse() {
+        return Board.parse(description);
+    }
+
+    @Benchmark
+    public Board initBoard() {
+        board.initBoard();
+        return board;
+    }
+
+    @Benchmark
+    public Board copy() {
+        return board.copy();
+    }
+}
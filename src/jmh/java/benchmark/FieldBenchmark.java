@@ -0,0 +1,63 @@
+package benchmark;
+
+import enums.Event;
+import enums.GhostCharacter;
+import game.Board;
+import game.Field;
+import game.Ghost;
+import game.PacMan;
+import game.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Field#checkActor} for Pac-Man and a ghost, on a free field and on a wall.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldBenchmark {
+
+    private Field freeField;
+    private Field wall;
+    private PacMan pacMan;
+    private Ghost ghost;
+
+    @Setup
+    public void setUp() {
+        final Board board = Maze.CLASSIC.createBoard();
+        board.initBoard();
+        freeField = board.getField(1, 1);
+        wall = board.getField(0, 0);
+        pacMan = new PacMan(new Point(1, 2));
+        ghost = new Ghost(new Point(1, 2), GhostCharacter.OIKAKE);
+    }
+
+    @Benchmark
+    public Event checkPacManOnFreeField() {
+        return freeField.checkActor(pacMan);
+    }
+
+    @Benchmark
+    public Event checkGhostOnFreeField() {
+        return freeField.checkActor(ghost);
+    }
+
+    @Benchmark
+    public Event checkPacManOnWall() {
+        return wall.checkActor(pacMan);
+    }
+}
@@ -0,0 +1,61 @@
+package benchmark;
+
+import game.Board;
+import game.PacManGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import view.ControllerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PacManGame#step(long)}, including the moves of all actors. A game that is over is replaced by a new
+ * one on a fresh copy of the board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStepBenchmark {
+
+    /**
+     * Simulated duration of a step (in milliseconds), a bit longer than the move interval of Pac-Man so every step
+     * moves him.
+     */
+    private static final long STEP_DURATION = 100;
+
+    @Param({"SMALL", "CLASSIC", "LARGE"})
+    public Maze maze;
+
+    private Board board;
+    private ControllerFactory controllerFactory;
+    private PacManGame game;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        board = maze.createBoard();
+        controllerFactory = BenchmarkControllers.randomPacMan();
+        game = new PacManGame(board.copy(), seed++, controllerFactory);
+    }
+
+    @Benchmark
+    public long step() {
+        if (game.isGameOver()) {
+            game = new PacManGame(board.copy(), seed++, controllerFactory);
+        }
+        game.step(STEP_DURATION);
+        return game.getScore();
+    }
+}
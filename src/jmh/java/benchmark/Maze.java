@@ -0,0 +1,121 @@
+package benchmark;
+
+import game.Board;
+
+/**
+ * The mazes the benchmarks run on.
+ */
+public enum Maze {
+
+    /**
+     * A small hand-written maze with 14 x 28 fields.
+     */
+    SMALL {
+        @Override
+        public String[] getDescription() {
+            return new String[]{
+                    "############################",
+                    "#------------##------------#",
+                    "#-####-#####-##-#####-####-#",
+                    "#X####-#####-##-#####-####X#",
+                    "#--------------------------#",
+                    "#-####-##-########-##-####-#",
+                    "#------##----##----##------#",
+                    "######-#####-##-#####-######",
+                    "-------##----GG----##-------",
+                    "######-##-###GG###-##-######",
+                    "#------------P-------------#",
+                    "#-####-#####-##-#####-####-#",
+                    "#X-----------------------X-#",
+                    "############################"};
+        }
+    },
+
+    /**
+     * A maze in the size of the arcade game, 30 x 28 fields.
+     */
+    CLASSIC {
+        @Override
+        public String[] getDescription() {
+            return new String[]{
+                    "############################",
+                    "#------------##------------#",
+                    "#-####-#####-##-#####-####-#",
+                    "#X####-#####-##-#####-####X#",
+                    "#-####-#####-##-#####-####-#",
+                    "#--------------------------#",
+                    "#-####-##-########-##-####-#",
+                    "#-####-##-########-##-####-#",
+                    "#------##----##----##------#",
+                    "######-#####-##-#####-######",
+                    "######-#####-##-#####-######",
+                    "######-##----------##-######",
+                    "######-##-###GG###-##-######",
+                    "######-##-###GG###-##-######",
+                    "----------########----------",
+                    "######-##-########-##-######",
+                    "######-##----------##-######",
+                    "######-##-########-##-######",
+                    "######-##-########-##-######",
+                    "#------------##------------#",
+                    "#-####-#####-##-#####-####-#",
+                    "#-####-#####-##-#####-####-#",
+                    "#X--##-------P--------##--X#",
+                    "###-##-##-########-##-##-###",
+                    "###-##-##-########-##-##-###",
+                    "#------##----##----##------#",
+                    "#-##########-##-##########-#",
+                    "#-##########-##-##########-#",
+                    "#--------------------------#",
+                    "############################"};
+        }
+    },
+
+    /**
+     * A generated grid of pillars with 1001 x 1001 fields.
+     */
+    LARGE {
+        @Override
+        public String[] getDescription() {
+            return pillars(1001);
+        }
+    };
+
+    /**
+     * Returns the description of the maze in the format of {@link Board#parse(String[])}.
+     *
+     * @return the description of the maze.
+     */
+    public abstract String[] getDescription();
+
+    public Board createBoard() {
+        return Board.parse(getDescription());
+    }
+
+    /**
+     * Creates a square maze with walls at the border and on every field with even coordinates, so every odd row and
+     * column is a corridor. Pac-Man starts in the upper left corner, four ghosts start in the centre.
+     */
+    private static String[] pillars(final int size) {
+        final String[] rows = new String[size];
+        final int centre = size / 2 | 1;
+        for (int i = 0; i < size; i++) {
+            final StringBuilder row = new StringBuilder(size);
+            for (int j = 0; j < size; j++) {
+                if (i == 0 || j == 0 || i == size - 1 || j == size - 1 || i % 2 == 0 && j % 2 == 0) {
+                    row.append('#');
+                } else if (i == 1 && j == 1) {
+                    row.append('P');
+                } else if (i == centre && j >= centre - 2 && j <= centre + 1) {
+                    row.append('G');
+                } else if ((i + j) % 97 == 0) {
+                    row.append('X');
+                } else {
+                    row.append('-');
+                }
+            }
+            rows[i] = row.toString();
+        }
+        return rows;
+    }
+}
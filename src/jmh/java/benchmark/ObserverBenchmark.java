@@ -0,0 +1,105 @@
+package benchmark;
+
+import enums.ActorType;
+import game.BatchGameObserver;
+import game.Board;
+import game.GameEventBatch;
+import game.GameObserverAdapter;
+import game.PacManGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import view.ControllerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of the observer notifications of a step, with a varying number of observers on the classic maze.
+ * The observers are either called once per event or once per step with a {@link GameEventBatch}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObserverBenchmark {
+
+    private static final long STEP_DURATION = 100;
+
+    @Param({"0", "1", "4", "16"})
+    public int observers;
+
+    @Param({"false", "true"})
+    public boolean batched;
+
+    private Board board;
+    private ControllerFactory controllerFactory;
+    private PacManGame game;
+    private CountingObserver observer;
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        board = Maze.CLASSIC.createBoard();
+        controllerFactory = BenchmarkControllers.randomPacMan();
+        observer = new CountingObserver();
+        newGame();
+    }
+
+    private void newGame() {
+        game = new PacManGame(board.copy(), seed++, controllerFactory);
+        for (int i = 0; i < observers; i++) {
+            if (batched) {
+                game.addBatchObserver(observer);
+            } else {
+                game.addObserver(observer);
+            }
+        }
+    }
+
+    @Benchmark
+    public long step() {
+        if (game.isGameOver()) {
+            newGame();
+        }
+        game.step(STEP_DURATION);
+        return observer.events;
+    }
+
+    private static final class CountingObserver extends GameObserverAdapter implements BatchGameObserver {
+
+        private long events;
+
+        @Override
+        public void actorSet(final ActorType actortype, final int x, final int y) {
+            events += x + y;
+        }
+
+        @Override
+        public void actorRemoved(final ActorType actortype, final int x, final int y) {
+            events -= x;
+        }
+
+        @Override
+        public void stepDone() {
+            events++;
+        }
+
+        @Override
+        public void stepDone(final GameEventBatch batch) {
+            for (int i = 0; i < batch.size(); i++) {
+                events += batch.getX(i);
+            }
+            events++;
+        }
+    }
+}
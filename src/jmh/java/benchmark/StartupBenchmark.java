@@ -0,0 +1,53 @@
+package benchmark;
+
+import game.Board;
+import game.PacManGame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cold start of the headless engine in a fresh JVM: loading its classes, parsing a board, creating a game
+ * and simulating its first second. Every fork measures a single invocation, without warm-up, which is what a batch
+ * worker pays before its first game. The engine does not depend on JavaFX, so none of its classes are loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class StartupBenchmark {
+
+    /**
+     * Simulated duration of a step (in milliseconds).
+     */
+    private static final long STEP_DURATION = 100;
+
+    /**
+     * Number of steps simulated after the start.
+     */
+    private static final int STEPS = 10;
+
+    @Param({"CLASSIC"})
+    public Maze maze;
+
+    @Benchmark
+    public long startGame() {
+        final PacManGame game = new PacManGame(Board.parse(maze.getDescription()), 1,
+                BenchmarkControllers.randomPacMan());
+        for (int i = 0; i < STEPS; i++) {
+            game.step(STEP_DURATION);
+        }
+        return game.getScore();
+    }
+}
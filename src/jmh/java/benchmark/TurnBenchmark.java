@@ -0,0 +1,70 @@
+package benchmark;
+
+import enums.Event;
+import enums.GhostCharacter;
+import game.Board;
+import game.Ghost;
+import game.PacManGame;
+import game.Point;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PacManGame#turn}, i.e. checking the target field, moving the actor and notifying the observers. An
+ * extra ghost is moved back and forth between two free fields.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurnBenchmark {
+
+    @Param({"SMALL", "CLASSIC", "LARGE"})
+    public Maze maze;
+
+    private PacManGame game;
+    private Ghost ghost;
+    private Point first;
+    private Point second;
+
+    @Setup
+    public void setUp() {
+        final Board board = maze.createBoard();
+        game = new PacManGame(board, BenchmarkControllers.randomPacMan());
+        ghost = new Ghost(new Point(0, 0), GhostCharacter.KIMAGURE);
+        first = null;
+        for (int i = 0; i < board.getNumberOfRows() && first == null; i++) {
+            for (int j = 0; j + 1 < board.getNumberOfColumns() && first == null; j++) {
+                if (board.getField(i, j).checkActor(ghost) == Event.MOVE_POSSIBLE
+                        && board.getField(i, j + 1).checkActor(ghost) == Event.MOVE_POSSIBLE) {
+                    first = new Point(i, j);
+                    second = new Point(i, j + 1);
+                }
+            }
+        }
+        if (first == null) {
+            throw new IllegalStateException("no two neighbouring free fields");
+        }
+        ghost.setPosition(first);
+        board.getField(first).placeActor(ghost);
+    }
+
+    @Benchmark
+    public boolean turnBackAndForth() {
+        final Point target = ghost.getPosition().x == first.x && ghost.getPosition().y == first.y ? second : first;
+        return game.turn(ghost, target.x, target.y);
+    }
+}
@@ -0,0 +1,32 @@
+package ai;
+
+import game.Board;
+import game.GameInfo;
+import game.GhostInfo;
+
+/**
+ * Controller of MACHIBUSE, who tries to ambush Pac-Man by heading for the field four fields ahead of him. If a wall
+ * comes first, the ghost heads for the last field before the wall.
+ */
+public class AmbushGhostController extends GhostController {
+
+    private static final int FIELDS_AHEAD = 4;
+
+    public AmbushGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+        super(gameInfo, ghostInfo);
+    }
+
+    @Override
+    protected int getTarget() {
+        final int direction = gameInfo.getPacManDirection().ordinal();
+        int target = board.indexOf(gameInfo.getPacManPosition());
+        for (int i = 0; i < FIELDS_AHEAD; i++) {
+            final int next = board.getNeighbour(target, direction);
+            if (next == Board.BLOCKED) {
+                break;
+            }
+            target = next;
+        }
+        return target;
+    }
+}
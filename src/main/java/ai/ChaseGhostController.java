@@ -0,0 +1,19 @@
+package ai;
+
+import game.GameInfo;
+import game.GhostInfo;
+
+/**
+ * Controller of OIKAKE, who chases Pac-Man by heading directly for his field.
+ */
+public class ChaseGhostController extends GhostController {
+
+    public ChaseGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+        super(gameInfo, ghostInfo);
+    }
+
+    @Override
+    protected int getTarget() {
+        return board.indexOf(gameInfo.getPacManPosition());
+    }
+}
@@ -0,0 +1,206 @@
+package ai;
+
+import enums.ActorType;
+import enums.Direction;
+import game.Board;
+import game.BoardInfo;
+import game.DistanceFields;
+import game.GameInfo;
+import game.GhostInfo;
+import view.RestorableController;
+
+/**
+ * Base class of the ghost controllers. At every crossing the ghost takes the neighbouring field with the shortest path
+ * to its target field, it never reverses its direction unless it is stuck in a dead end. In power pellet mode, and if
+ * the ghost has no target, it moves randomly.
+ * <p>
+ * The path lengths are read from the {@link DistanceFields} of the board, so they follow the tunnels at the borders of
+ * the board. A board too large for distance fields falls back to the straight-line distance. A decision only reads the
+ * neighbour table of the board and a few precomputed tables, so it allocates nothing while the distance map of its
+ * target is cached. Only a cache miss allocates: it computes the map of the target, which takes an array of a
+ * {@code short} and an {@code int} per field. The maps are not computed in advance, the maps of all targets of a large
+ * board would exceed the memory budget of the cache.
+ */
+public abstract class GhostController implements RestorableController {
+
+    static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Ordinal of the opposite of the direction with the given ordinal.
+     */
+    static final int[] REVERSE = new int[DIRECTIONS.length];
+
+    static {
+        REVERSE[Direction.UP.ordinal()] = Direction.DOWN.ordinal();
+        REVERSE[Direction.DOWN.ordinal()] = Direction.UP.ordinal();
+        REVERSE[Direction.LEFT.ordinal()] = Direction.RIGHT.ordinal();
+        REVERSE[Direction.RIGHT.ordinal()] = Direction.LEFT.ordinal();
+    }
+
+    protected final GameInfo gameInfo;
+    protected final GhostInfo ghostInfo;
+    protected final BoardInfo board;
+
+    /**
+     * The distance fields of the board or null if the board is too large for them.
+     */
+    private final DistanceFields distanceFields;
+
+    /**
+     * The target of the distance map used last and the map, which saves the lookup in the shared cache while the
+     * target does not move.
+     */
+    private int mapTarget = -1;
+    private short[] map;
+
+    /**
+     * The field the ghost starts on, part of the seed of its random decisions.
+     */
+    private final int start;
+
+    /**
+     * State of the xorshift generator for random decisions.
+     */
+    private long randomState;
+
+    protected GhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+        if (gameInfo == null || ghostInfo == null) {
+            throw new IllegalArgumentException("invalid game info or ghost info");
+        }
+        this.gameInfo = gameInfo;
+        this.ghostInfo = ghostInfo;
+        this.board = gameInfo.getBoardInfo();
+        this.distanceFields = board.getDistanceFields();
+        this.start = board.indexOf(ghostInfo.getPosition());
+        reseed(gameInfo.getSeed());
+    }
+
+    @Override
+    public void reseed(final long seed) {
+        setState(seed * 0x9E3779B97F4A7C15L + ghostInfo.getCharacter().ordinal() + 31L * start);
+    }
+
+    @Override
+    public long getState() {
+        return randomState;
+    }
+
+    @Override
+    public void setState(final long state) {
+        randomState = state == 0 ? 1 : state;
+    }
+
+    @Override
+    public Direction getMove() {
+        final int position = board.indexOf(ghostInfo.getPosition());
+        final int reverse = reverseOfCurrentDirection();
+        int candidates = 0;
+        int only = -1;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            if (d != reverse && board.getNeighbour(position, d) != Board.BLOCKED) {
+                candidates++;
+                only = d;
+            }
+        }
+        // outside of crossings there is nothing to decide, which saves looking up the target and its distances
+        if (candidates == 0) {
+            return reverse < 0 ? null : DIRECTIONS[reverse];
+        }
+        if (candidates == 1) {
+            return DIRECTIONS[only];
+        }
+        final int target = gameInfo.isPowerPelletMode() ? -1 : getTarget();
+        return target < 0 ? randomMove(position) : moveTowards(position, target);
+    }
+
+    /**
+     * Returns the field the ghost is heading for. The default has no target, the ghost moves randomly.
+     *
+     * @return the index of the target field or -1 if the ghost has no target.
+     */
+    protected int getTarget() {
+        return -1;
+    }
+
+    /**
+     * Returns the direction towards the neighbouring field closest to the given target.
+     */
+    protected final Direction moveTowards(final int position, final int target) {
+        final int reverse = reverseOfCurrentDirection();
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            final int next = board.getNeighbour(position, d);
+            if (d == reverse || next == Board.BLOCKED) {
+                continue;
+            }
+            final double distance = distance(next, target);
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = d;
+            }
+        }
+        if (best < 0) {
+            return reverse < 0 ? null : DIRECTIONS[reverse];
+        }
+        return DIRECTIONS[best];
+    }
+
+    /**
+     * Returns a random direction that neither leads into a wall nor reverses the current direction.
+     */
+    protected final Direction randomMove(final int position) {
+        final int reverse = reverseOfCurrentDirection();
+        int candidates = 0;
+        int chosen = -1;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            if (d == reverse || board.getNeighbour(position, d) == Board.BLOCKED) {
+                continue;
+            }
+            // reservoir sampling, so every candidate is chosen with the same probability
+            candidates++;
+            if (nextInt(candidates) == 0) {
+                chosen = d;
+            }
+        }
+        if (chosen < 0) {
+            return reverse < 0 ? null : DIRECTIONS[reverse];
+        }
+        return DIRECTIONS[chosen];
+    }
+
+    /**
+     * Returns the number of moves of a ghost from one field to another, {@link DistanceFields#UNREACHABLE} if there
+     * is no path. Without distance fields it is the straight-line distance.
+     *
+     * @param from   the index of the start field.
+     * @param target the index of the target field.
+     * @return the distance between the fields.
+     */
+    protected final double distance(final int from, final int target) {
+        if (distanceFields == null) {
+            final long dRow = board.getRow(from) - board.getRow(target);
+            final long dColumn = board.getColumn(from) - board.getColumn(target);
+            return Math.sqrt(dRow * dRow + dColumn * dColumn);
+        }
+        if (target != mapTarget) {
+            map = distanceFields.getDistancesTo(target, ActorType.GHOST);
+            mapTarget = target;
+        }
+        return DistanceFields.toDistance(map[from]);
+    }
+
+    private int reverseOfCurrentDirection() {
+        final Direction direction = ghostInfo.getDirection();
+        return direction == null ? -1 : REVERSE[direction.ordinal()];
+    }
+
+    private int nextInt(final int bound) {
+        long x = randomState;
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        randomState = x;
+        return (int) ((x >>> 33) % bound);
+    }
+}
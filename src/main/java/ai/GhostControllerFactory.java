@@ -0,0 +1,28 @@
+package ai;
+
+import game.GameInfo;
+import game.GhostInfo;
+import view.ActorController;
+import view.ControllerFactory;
+
+/**
+ * Provides the controllers for the four ghost personalities. Subclasses decide how Pac-Man is controlled.
+ */
+public abstract class GhostControllerFactory implements ControllerFactory {
+
+    @Override
+    public ActorController getGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+        switch (ghostInfo.getCharacter()) {
+            case OIKAKE:
+                return new ChaseGhostController(gameInfo, ghostInfo);
+            case MACHIBUSE:
+                return new AmbushGhostController(gameInfo, ghostInfo);
+            case KIMAGURE:
+                return new RandomGhostController(gameInfo, ghostInfo);
+            case OTOBOKE:
+                return new ShyGhostController(gameInfo, ghostInfo);
+            default:
+                throw new IllegalArgumentException("unknown ghost character");
+        }
+    }
+}
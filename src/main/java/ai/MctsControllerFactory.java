@@ -0,0 +1,35 @@
+package ai;
+
+import game.GameInfo;
+import view.ActorController;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Provides the controllers for the four ghost personalities and a {@link MctsPacManController} for Pac-Man.
+ */
+public class MctsControllerFactory extends GhostControllerFactory {
+
+    private final ForkJoinPool pool;
+    private final long moveBudget;
+
+    /**
+     * Creates a new factory.
+     *
+     * @param pool       the pool that runs the searches of Pac-Man.
+     * @param moveBudget the time (in milliseconds) the search of a move may take.
+     * @throws IllegalArgumentException if the pool is null or the budget is not positive.
+     */
+    public MctsControllerFactory(ForkJoinPool pool, long moveBudget) {
+        if (pool == null || moveBudget <= 0) {
+            throw new IllegalArgumentException("invalid pool or move budget");
+        }
+        this.pool = pool;
+        this.moveBudget = moveBudget;
+    }
+
+    @Override
+    public ActorController getPacManController(final GameInfo gameInfo) {
+        return new MctsPacManController(gameInfo, this, pool, moveBudget);
+    }
+}
@@ -0,0 +1,426 @@
+package ai;
+
+import enums.Direction;
+import enums.FieldType;
+import game.Board;
+import game.BoardInfo;
+import game.GameInfo;
+import game.GhostInfo;
+import game.PacManGame;
+import view.ActorController;
+import view.ControllerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Controller of Pac-Man that chooses its moves with a Monte Carlo tree search.
+ * <p>
+ * For every move the searchers explore the moves of Pac-Man in a tree. A path through the tree is played on a copy of
+ * the game with {@link PacManGame#step(long)}, one move of Pac-Man per step, followed by a random rollout. The result
+ * of the rollout, the points Pac-Man earned or whether he died, is propagated back along the path. The ghosts are
+ * driven by the same controllers as in the real game.
+ * <p>
+ * Every worker of the {@link ForkJoinPool} runs a searcher with a tree of its own until the time budget of the move
+ * is used up, and the move visited most often over all trees is chosen. The copies of the game, the tree nodes and the
+ * tasks are created once and reused for every move: a copy is reset to the current state by restoring a snapshot, so
+ * searching does not allocate.
+ */
+public class MctsPacManController implements ActorController {
+
+    /**
+     * Default number of random moves of Pac-Man in a rollout.
+     */
+    public static final int DEFAULT_ROLLOUT_DEPTH = 20;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Maximum number of nodes of the tree of a searcher.
+     */
+    private static final int NODE_CAPACITY = 1 << 14;
+
+    /**
+     * Maximum depth of the tree.
+     */
+    private static final int MAX_DEPTH = 32;
+
+    private static final double EXPLORATION = 0.7;
+
+    /**
+     * Number of points that give a reward of 0.75, the rewards of more points approach 1.
+     */
+    private static final double POINTS_SCALE = 10;
+
+    private final GameInfo gameInfo;
+    private final ControllerFactory ghostControllers;
+    private final ForkJoinPool pool;
+    private final long moveBudget;
+    private final int rolloutDepth;
+
+    private PacManGame game;
+
+    /**
+     * The neighbour table of the board for Pac-Man: {@link Board#BLOCKED} where a wall or a ghost start blocks his
+     * move, like in {@link PacManGame#turn(game.Actor, int, int)}.
+     */
+    private int[] pacManMoves;
+    private Searcher[] searchers;
+    private SearchTask[] tasks;
+    private ForkJoinTask<?> search;
+    private byte[] rootState;
+    private long deadline;
+
+    public MctsPacManController(GameInfo gameInfo, ControllerFactory ghostControllers, ForkJoinPool pool,
+                                long moveBudget) {
+        this(gameInfo, ghostControllers, pool, moveBudget, DEFAULT_ROLLOUT_DEPTH);
+    }
+
+    /**
+     * Creates a new controller.
+     *
+     * @param gameInfo         the game, must be a {@link PacManGame}.
+     * @param ghostControllers the factory of the ghost controllers used in the searches, usually the factory of the
+     *                         real game.
+     * @param pool             the pool that runs the searches.
+     * @param moveBudget       the time (in milliseconds) the search of a move may take.
+     * @param rolloutDepth     the number of random moves of Pac-Man in a rollout.
+     * @throws IllegalArgumentException if the game is no {@code PacManGame}, an argument is null or a number is not
+     *                                  positive.
+     */
+    public MctsPacManController(GameInfo gameInfo, ControllerFactory ghostControllers, ForkJoinPool pool,
+                                long moveBudget, int rolloutDepth) {
+        if (!(gameInfo instanceof PacManGame) || ghostControllers == null || pool == null) {
+            throw new IllegalArgumentException("invalid game, ghost controllers or pool");
+        }
+        if (moveBudget <= 0 || rolloutDepth <= 0) {
+            throw new IllegalArgumentException("move budget and rollout depth must be positive");
+        }
+        this.gameInfo = gameInfo;
+        this.ghostControllers = ghostControllers;
+        this.pool = pool;
+        this.moveBudget = MILLISECONDS.toNanos(moveBudget);
+        this.rolloutDepth = rolloutDepth;
+    }
+
+    /**
+     * Searches the best move in the current state of the game. This is called by the game during a step, so the
+     * searchers are set up on the first call, when the game is complete.
+     */
+    @Override
+    public Direction getMove() {
+        if (searchers == null) {
+            init();
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(rootState);
+        game.snapshot(buffer);
+        deadline = System.nanoTime() + moveBudget;
+        search.reinitialize();
+        pool.invoke(search);
+
+        final BoardInfo board = gameInfo.getBoardInfo();
+        final int position = board.indexOf(gameInfo.getPacManPosition());
+        Direction best = null;
+        long bestVisits = -1;
+        for (Direction direction : DIRECTIONS) {
+            if (!canMove(pacManMoves, position, direction.ordinal())) {
+                continue;
+            }
+            long visits = 0;
+            for (Searcher searcher : searchers) {
+                visits += searcher.getRootVisits(direction);
+            }
+            if (visits > bestVisits || visits == bestVisits && direction == gameInfo.getPacManDirection()) {
+                best = direction;
+                bestVisits = visits;
+            }
+        }
+        return best == null ? gameInfo.getPacManDirection() : best;
+    }
+
+    private void init() {
+        game = (PacManGame) gameInfo;
+        final BoardInfo board = gameInfo.getBoardInfo();
+        pacManMoves = new int[board.getNumberOfFields() * DIRECTIONS.length];
+        for (int i = 0; i < board.getNumberOfFields(); i++) {
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                final int next = board.getNeighbour(i, d);
+                final boolean blocked = next == Board.BLOCKED || board.getFieldInfo(board.getRow(next),
+                        board.getColumn(next)).getType() == FieldType.GHOST_START;
+                pacManMoves[i * DIRECTIONS.length + d] = blocked ? Board.BLOCKED : next;
+            }
+        }
+        rootState = new byte[game.getSnapshotSize()];
+        final int parallelism = pool.getParallelism();
+        searchers = new Searcher[parallelism];
+        tasks = new SearchTask[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            searchers[i] = new Searcher(i);
+            tasks[i] = new SearchTask(searchers[i]);
+        }
+        search = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                for (SearchTask task : tasks) {
+                    task.reinitialize();
+                }
+                invokeAll(tasks);
+            }
+        };
+    }
+
+    /**
+     * Runs the iterations of one searcher.
+     */
+    private class SearchTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Searcher searcher;
+
+        SearchTask(Searcher searcher) {
+            this.searcher = searcher;
+        }
+
+        @Override
+        protected void compute() {
+            searcher.search();
+        }
+    }
+
+    /**
+     * A tree of moves together with the copy of the game it is explored on. The nodes are stored in parallel arrays,
+     * the children of a node are stored next to each other.
+     */
+    private class Searcher {
+
+        private final PacManGame copy;
+        private final ByteBuffer state;
+        private final BoardInfo board;
+        private final ScriptedPacManController pacMan;
+
+        private final int[] firstChild = new int[NODE_CAPACITY];
+        private final byte[] childCount = new byte[NODE_CAPACITY];
+        private final byte[] move = new byte[NODE_CAPACITY];
+        private final int[] visits = new int[NODE_CAPACITY];
+        private final double[] value = new double[NODE_CAPACITY];
+        private int nodes;
+
+        private final int[] path = new int[MAX_DEPTH + 1];
+        private final int[] legalMoves = new int[DIRECTIONS.length];
+
+        Searcher(int index) {
+            pacMan = new ScriptedPacManController(0x9E3779B97F4A7C15L * (index + 1) + gameInfo.getSeed());
+            copy = game.fork(new ControllerFactory() {
+                @Override
+                public ActorController getGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+                    return ghostControllers.getGhostController(gameInfo, ghostInfo);
+                }
+
+                @Override
+                public ActorController getPacManController(final GameInfo gameInfo) {
+                    return pacMan;
+                }
+            });
+            state = ByteBuffer.wrap(rootState);
+            board = copy.getBoardInfo();
+            pacMan.board = board;
+            pacMan.moves = pacManMoves;
+            pacMan.game = copy;
+        }
+
+        long getRootVisits(final Direction direction) {
+            for (int child = firstChild[0]; child < firstChild[0] + childCount[0]; child++) {
+                if (move[child] == direction.ordinal()) {
+                    return visits[child];
+                }
+            }
+            return 0;
+        }
+
+        void search() {
+            nodes = 1;
+            firstChild[0] = -1;
+            visits[0] = 0;
+            value[0] = 0;
+            do {
+                iterate();
+            } while (System.nanoTime() - deadline < 0);
+        }
+
+        private void iterate() {
+            state.clear();
+            copy.restore(state);
+            final long score = copy.getScore();
+            final int lives = copy.getLives();
+            final int stage = copy.getStageCounter();
+            int node = 0;
+            int depth = 0;
+            path[0] = 0;
+            while (depth < MAX_DEPTH && !copy.isGameOver() && copy.getLives() == lives) {
+                if (firstChild[node] < 0 && !expand(node)) {
+                    break;
+                }
+                if (childCount[node] == 0) {
+                    break;
+                }
+                final int child = select(node);
+                pacMan.script(move[child]);
+                copy.step(PacManGame.PACMAN_MOVE_TIME);
+                node = child;
+                path[++depth] = node;
+                if (visits[child] == 0) {
+                    break;
+                }
+            }
+            for (int i = 0; i < rolloutDepth && !copy.isGameOver() && copy.getLives() == lives; i++) {
+                pacMan.script(-1);
+                copy.step(PacManGame.PACMAN_MOVE_TIME);
+            }
+            final double reward = reward(copy.getScore() - score, copy.getLives() < lives || copy.isGameOver(),
+                    copy.getStageCounter() > stage);
+            for (int i = 0; i <= depth; i++) {
+                visits[path[i]]++;
+                value[path[i]] += reward;
+            }
+        }
+
+        /**
+         * Creates the children of the node for the moves of Pac-Man that do not lead into a wall or a ghost start.
+         *
+         * @return false if there is no space for the children.
+         */
+        private boolean expand(final int node) {
+            final int position = board.indexOf(copy.getPacManPosition());
+            int count = 0;
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                if (canMove(pacManMoves, position, d)) {
+                    legalMoves[count++] = d;
+                }
+            }
+            if (nodes + count > NODE_CAPACITY) {
+                return false;
+            }
+            firstChild[node] = nodes;
+            childCount[node] = (byte) count;
+            for (int i = 0; i < count; i++) {
+                final int child = nodes++;
+                firstChild[child] = -1;
+                childCount[child] = 0;
+                move[child] = (byte) legalMoves[i];
+                visits[child] = 0;
+                value[child] = 0;
+            }
+            return true;
+        }
+
+        /**
+         * Selects the child with the highest upper confidence bound, unvisited children first.
+         */
+        private int select(final int node) {
+            final double logVisits = Math.log(Math.max(1, visits[node]));
+            int best = firstChild[node];
+            double bestBound = Double.NEGATIVE_INFINITY;
+            for (int child = firstChild[node]; child < firstChild[node] + childCount[node]; child++) {
+                if (visits[child] == 0) {
+                    return child;
+                }
+                final double bound = value[child] / visits[child]
+                        + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+                if (bound > bestBound) {
+                    best = child;
+                    bestBound = bound;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Returns whether Pac-Man can move from a field in a direction.
+     */
+    private static boolean canMove(final int[] pacManMoves, final int position, final int direction) {
+        return pacManMoves[position * DIRECTIONS.length + direction] != Board.BLOCKED;
+    }
+
+    /**
+     * Rates the result of a rollout between 0 and 1: 0 if Pac-Man died, otherwise more than 0.5 growing with the
+     * points he earned, 1 if he finished the stage.
+     */
+    private static double reward(final long points, final boolean died, final boolean stageDone) {
+        if (died) {
+            return 0;
+        }
+        if (stageDone) {
+            return 1;
+        }
+        return 0.5 + 0.5 * points / (points + POINTS_SCALE);
+    }
+
+    /**
+     * The controller of Pac-Man in the copies of the game: returns the move of the tree, or a random move in the
+     * rollout. Random moves do not reverse the direction of Pac-Man and avoid walls and ghost starts.
+     */
+    private static class ScriptedPacManController implements ActorController {
+
+        private BoardInfo board;
+        private int[] moves;
+        private GameInfo game;
+        private int scripted = -1;
+        private long random;
+
+        ScriptedPacManController(long seed) {
+            this.random = seed == 0 ? 1 : seed;
+        }
+
+        /**
+         * Sets the move of the next step, -1 for a random move.
+         */
+        void script(final int direction) {
+            scripted = direction;
+        }
+
+        @Override
+        public Direction getMove() {
+            if (scripted >= 0) {
+                return DIRECTIONS[scripted];
+            }
+            final int position = board.indexOf(game.getPacManPosition());
+            final int reverse = reverse(game.getPacManDirection().ordinal());
+            int chosen = -1;
+            int candidates = 0;
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                if (d != reverse && canMove(moves, position, d) && nextInt(++candidates) == 0) {
+                    chosen = d;
+                }
+            }
+            return DIRECTIONS[chosen < 0 ? reverse : chosen];
+        }
+
+        private static int reverse(final int direction) {
+            switch (DIRECTIONS[direction]) {
+                case UP:
+                    return Direction.DOWN.ordinal();
+                case DOWN:
+                    return Direction.UP.ordinal();
+                case LEFT:
+                    return Direction.RIGHT.ordinal();
+                default:
+                    return Direction.LEFT.ordinal();
+            }
+        }
+
+        private int nextInt(final int bound) {
+            long x = random;
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            random = x;
+            return (int) ((x >>> 33) % bound);
+        }
+    }
+}
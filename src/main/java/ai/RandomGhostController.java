@@ -0,0 +1,15 @@
+package ai;
+
+import game.GameInfo;
+import game.GhostInfo;
+
+/**
+ * Controller of KIMAGURE, who wanders through the maze at random. It has no target, see
+ * {@link GhostController#getTarget()}.
+ */
+public class RandomGhostController extends GhostController {
+
+    public RandomGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+        super(gameInfo, ghostInfo);
+    }
+}
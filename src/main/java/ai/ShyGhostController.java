@@ -0,0 +1,61 @@
+package ai;
+
+import enums.FieldType;
+import game.BoardInfo;
+import game.GameInfo;
+import game.GhostInfo;
+
+/**
+ * Controller of OTOBOKE, who chases Pac-Man while he is far away, but retreats to the lower left corner of the board
+ * as soon as he comes close.
+ */
+public class ShyGhostController extends GhostController {
+
+    /**
+     * Distance to Pac-Man below which the ghost retreats.
+     */
+    private static final double SHY_DISTANCE = 8;
+
+    /**
+     * The field closest to the lower left corner that is not a wall.
+     */
+    private final int retreat;
+
+    public ShyGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+        super(gameInfo, ghostInfo);
+        this.retreat = findRetreat(board);
+    }
+
+    @Override
+    protected int getTarget() {
+        final int pacMan = board.indexOf(gameInfo.getPacManPosition());
+        if (distance(board.indexOf(ghostInfo.getPosition()), pacMan) > SHY_DISTANCE) {
+            return pacMan;
+        }
+        return retreat;
+    }
+
+    /**
+     * Searches the rows upwards from the bottom for the free field closest to the lower left corner, until a row is
+     * farther away than the closest field found.
+     */
+    private static int findRetreat(final BoardInfo board) {
+        final int lastRow = board.getNumberOfRows() - 1;
+        int retreat = -1;
+        long best = Long.MAX_VALUE;
+        for (int row = lastRow; row >= 0 && (long) (lastRow - row) * (lastRow - row) < best; row--) {
+            for (int column = 0; column < board.getNumberOfColumns(); column++) {
+                final long distance = (long) (lastRow - row) * (lastRow - row) + (long) column * column;
+                if (distance >= best) {
+                    break;
+                }
+                if (board.getFieldInfo(row, column).getType() != FieldType.WALL) {
+                    retreat = board.indexOf(row, column);
+                    best = distance;
+                    break;
+                }
+            }
+        }
+        return retreat;
+    }
+}
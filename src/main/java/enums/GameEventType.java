@@ -0,0 +1,6 @@
+package enums;
+
+public enum GameEventType {
+    GAME_OVER, START_POWER_PELLET_MODE, END_POWER_PELLET_MODE, PACMAN_DIED, EXTRA_ITEM_PLACED, EXTRA_ITEM_VANISHED,
+    ACTOR_SET, ACTOR_REMOVED, NEXT_STAGE;
+}
@@ -1,25 +1,10 @@
 package enums;
 
-import javafx.scene.paint.Color;
-
-import static javafx.scene.paint.Color.*;
-
+/**
+ * The character of a ghost, which decides how it chases Pac-Man. The engine does not know how a ghost looks, the view
+ * maps every character to its color.
+ */
 public enum GhostCharacter {
 
-    OIKAKE(RED), MACHIBUSE(PINK), KIMAGURE(CYAN), OTOBOKE(ORANGE);
-
-    private final Color color;
-
-    /**
-     * Returns the color of the ghost
-     *
-     * @return the color of the ghost
-     */
-    public Color getColor() {
-        return color;
-    }
-
-    private GhostCharacter(Color color) {
-        this.color = color;
-    }
+    OIKAKE, MACHIBUSE, KIMAGURE, OTOBOKE
 }
@@ -0,0 +1,23 @@
+package enums;
+
+/**
+ * What an {@code AsyncGameObservable} does with an event if the ring buffer is full, because an observer does not keep
+ * up with the game.
+ */
+public enum OverrunPolicy {
+    /**
+     * The game thread waits until the slowest observer has made room.
+     */
+    BLOCK,
+    /**
+     * A step that does not fit into the ring buffer is dropped as a whole, so observers never see a part of a step.
+     */
+    DROP,
+    /**
+     * A step is only published as a whole. A step that does not fit is kept by the game thread and published together
+     * with the following steps as soon as there is room for all of them, so several steps are merged into one
+     * {@code stepDone()} without losing events. If the kept steps would exceed the capacity of the ring buffer, the
+     * events of further steps are dropped as a whole.
+     */
+    COALESCE;
+}
@@ -0,0 +1,19 @@
+package enums;
+
+/**
+ * How a thread waits for events (or for free space) in the ring buffer of an {@code AsyncGameObservable}.
+ */
+public enum WaitStrategy {
+    /**
+     * Spins on the cursor, lowest latency but keeps a core busy.
+     */
+    BUSY_SPIN,
+    /**
+     * Spins, but yields the processor between the checks.
+     */
+    YIELD,
+    /**
+     * Parks the thread for a short time between the checks, lowest CPU usage.
+     */
+    PARK;
+}
@@ -11,10 +11,22 @@ public abstract class Actor {
 
     private ActorController autoplayer = null;
 
+    /**
+     * Slot of this actor in the actor table of the {@link CellStore} it was placed on last.
+     */
+    int storeSlot = -1;
+
     public Point getPosition() {
         return position;
     }
 
+    /**
+     * Sets the position of this actor. The game passes the shared points of {@link Board#pointAt(int, int)}, so moving
+     * does not allocate.
+     *
+     * @param position the new position.
+     * @throws IllegalArgumentException if the position is null.
+     */
     public void setPosition(Point position) {
         if (position == null) {
             throw new IllegalArgumentException("Invalid position");
@@ -22,10 +34,6 @@ public abstract class Actor {
         this.position = position;
     }
 
-    public void setPosition(int x, int y) {
-        position = new Point(x, y);
-    }
-
     public ActorType getActorType() {
         return actorType;
     }
@@ -38,6 +46,10 @@ public abstract class Actor {
         this.autoplayer = controller;
     }
 
+    ActorController getController() {
+        return autoplayer;
+    }
+
     public Direction getMove() {
         if (autoplayer != null) {
             return autoplayer.getMove();
@@ -0,0 +1,573 @@
+package game;
+
+import enums.ActorType;
+import enums.GameEventType;
+import enums.OverrunPolicy;
+import enums.WaitStrategy;
+import metrics.GameMetrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers the events of a {@link GameObservable} asynchronously, so slow observers do not stall the game loop.
+ * <p>
+ * The game thread publishes every event into a preallocated ring buffer of {@code long}s, without locks and without
+ * allocating. Each observer added to this observable consumes the ring buffer on a thread of its own. If the slowest
+ * observer falls so far behind that the ring buffer is full, the {@link OverrunPolicy} decides whether the game thread
+ * waits or steps are dropped or merged. Observers never see a part of a step. Overruns are counted, also in the
+ * {@link GameMetrics} set with {@link #setMetrics(GameMetrics)}.
+ * <p>
+ * The game thread is the only producer. Observers may be added and removed from any thread. If an observer throws an
+ * {@link Error}, its thread stops and the game thread removes it with its next step, instead of waiting for a thread
+ * that is gone; the failure is counted and kept, see {@link #getObserverFailure()}.
+ */
+public class AsyncGameObservable implements GameObservable, AutoCloseable {
+
+    private static final GameEventType[] EVENT_TYPES = GameEventType.values();
+    private static final ActorType[] ACTOR_TYPES = ActorType.values();
+
+    /**
+     * Encoded type of the end of a step.
+     */
+    private static final int STEP_DONE = EVENT_TYPES.length;
+    private static final int TYPE_BITS = 4;
+    private static final int ACTOR_BITS = 2;
+    private static final int COORDINATE_BITS = 29;
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+
+    private static final long PARK_NANOS = 50000;
+
+    private final GameObservable source;
+    private final WaitStrategy waitStrategy;
+    private final OverrunPolicy overrunPolicy;
+    private final long[] ring;
+    private final int mask;
+
+    /**
+     * The sequence of the last published event.
+     */
+    private final AtomicLong cursor = new AtomicLong(-1);
+
+    /**
+     * The sequence of the next event, only used by the game thread.
+     */
+    private long nextSequence;
+
+    /**
+     * The lowest sequence consumed by all observers, as seen the last time it was computed.
+     */
+    private long cachedGatingSequence = -1;
+
+    /**
+     * The events of the steps that did not fit into the ring buffer, see {@link OverrunPolicy#COALESCE}. Only used by
+     * the game thread.
+     */
+    private final long[] pending;
+    private int pendingSize;
+
+    private volatile Consumer[] consumers = new Consumer[0];
+    private int threadCounter;
+
+    private volatile long publishedEvents;
+    private volatile long droppedEvents;
+    private volatile long droppedSteps;
+    private volatile long coalescedSteps;
+    private volatile long producerWaits;
+    private volatile long failedObservers;
+    private volatile Throwable observerFailure;
+    private final AtomicLong failedEvents = new AtomicLong();
+
+    /**
+     * The metrics the overruns are counted in as well, written by the game thread.
+     */
+    private volatile GameMetrics metrics;
+
+    private final BatchGameObserver publisher = this::publish;
+
+    /**
+     * Creates a new asynchronous observable and registers it at the given source.
+     *
+     * @param source        the observable whose events are delivered, usually a {@link PacManGame}.
+     * @param capacity      the number of events the ring buffer holds, must be a power of two.
+     * @param waitStrategy  how the threads wait for events or free space.
+     * @param overrunPolicy what happens if the ring buffer is full.
+     * @throws IllegalArgumentException if an argument is null or the capacity is not a power of two.
+     */
+    public AsyncGameObservable(GameObservable source, int capacity, WaitStrategy waitStrategy,
+                               OverrunPolicy overrunPolicy) {
+        if (source == null || waitStrategy == null || overrunPolicy == null) {
+            throw new IllegalArgumentException("invalid source, wait strategy or overrun policy");
+        }
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.source = source;
+        this.waitStrategy = waitStrategy;
+        this.overrunPolicy = overrunPolicy;
+        this.ring = new long[capacity];
+        this.mask = capacity - 1;
+        this.pending = overrunPolicy == OverrunPolicy.COALESCE ? new long[capacity] : null;
+        source.addBatchObserver(publisher);
+    }
+
+    /**
+     * Adds the given GameObserver and starts a thread that delivers the events to it. The observer receives the
+     * events published after it was added.
+     *
+     * @param observer the GameObserver to add.
+     * @throws IllegalArgumentException if the given observer is null.
+     */
+    @Override
+    public synchronized void addObserver(final GameObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("invalid observer");
+        }
+        start(new Consumer(observer, null, cursor.get()));
+    }
+
+    /**
+     * Removes the given GameObserver and stops its thread. Events that have not been delivered yet are discarded.
+     *
+     * @param observer the GameObserver to remove.
+     */
+    @Override
+    public synchronized void removeObserver(final GameObserver observer) {
+        remove(observer);
+    }
+
+    /**
+     * Adds the given BatchGameObserver and starts a thread that delivers the events to it, collected into one batch
+     * per step. The observer receives the steps that end after it was added, the first batch may lack the events
+     * published before. The batches are delivered after the game went on, so unlike a batch observer of the game
+     * itself the observer must not read the state of the game or its {@link PacManGame#getDirtyCells() dirty cells}.
+     *
+     * @param observer the BatchGameObserver to add.
+     * @throws IllegalArgumentException if the given observer is null.
+     */
+    @Override
+    public synchronized void addBatchObserver(final BatchGameObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("invalid observer");
+        }
+        start(new Consumer(null, observer, cursor.get()));
+    }
+
+    /**
+     * Removes the given BatchGameObserver and stops its thread. Events that have not been delivered yet are
+     * discarded.
+     *
+     * @param observer the BatchGameObserver to remove.
+     */
+    @Override
+    public synchronized void removeBatchObserver(final BatchGameObserver observer) {
+        remove(observer);
+    }
+
+    private void start(final Consumer consumer) {
+        final Consumer[] current = consumers;
+        final Consumer[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = consumer;
+        consumers = updated;
+        final Thread thread = new Thread(consumer, "async-game-observer-" + threadCounter++);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void remove(final Object observer) {
+        final Consumer[] current = consumers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].observer == observer || current[i].batchObserver == observer) {
+                current[i].running = false;
+                consumers = without(current, i);
+                return;
+            }
+        }
+    }
+
+    private static Consumer[] without(final Consumer[] consumers, final int index) {
+        final Consumer[] updated = new Consumer[consumers.length - 1];
+        System.arraycopy(consumers, 0, updated, 0, index);
+        System.arraycopy(consumers, index + 1, updated, index, consumers.length - index - 1);
+        return updated;
+    }
+
+    /**
+     * Unregisters from the source and stops the threads of all observers.
+     */
+    @Override
+    public void close() {
+        // not under the lock of this observable: the game thread holds the lock of the source while it takes this one
+        source.removeBatchObserver(publisher);
+        synchronized (this) {
+            for (Consumer consumer : consumers) {
+                consumer.running = false;
+            }
+            consumers = new Consumer[0];
+        }
+    }
+
+    /**
+     * Sets the metrics the overruns and failed observers are counted in, usually the metrics of the game. They are
+     * written by the game thread, so they must not be shared with another game.
+     *
+     * @param metrics the metrics, null to stop counting.
+     */
+    public void setMetrics(final GameMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public long getPublishedEvents() {
+        return publishedEvents;
+    }
+
+    /**
+     * Returns the number of events that were dropped because the ring buffer was full.
+     *
+     * @return the number of dropped events.
+     */
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    /**
+     * Returns the number of steps that were dropped as a whole because the ring buffer was full.
+     *
+     * @return the number of dropped steps.
+     */
+    public long getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    /**
+     * Returns the number of steps whose end was merged into the end of a later step, see
+     * {@link OverrunPolicy#COALESCE}. Dropped steps are not counted.
+     *
+     * @return the number of coalesced steps.
+     */
+    public long getCoalescedSteps() {
+        return coalescedSteps;
+    }
+
+    /**
+     * Returns how often the game thread had to wait for free space, see {@link OverrunPolicy#BLOCK}.
+     *
+     * @return the number of waits of the game thread.
+     */
+    public long getProducerWaits() {
+        return producerWaits;
+    }
+
+    /**
+     * Returns the number of events whose delivery failed with an exception of the observer.
+     *
+     * @return the number of failed events.
+     */
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    /**
+     * Returns the number of observers that were removed because their thread died.
+     *
+     * @return the number of failed observers.
+     */
+    public long getFailedObservers() {
+        return failedObservers;
+    }
+
+    /**
+     * Returns the error that stopped the thread of the last failed observer.
+     *
+     * @return the error or null if no observer failed.
+     */
+    public Throwable getObserverFailure() {
+        return observerFailure;
+    }
+
+    /**
+     * Publishes the events of a step, called on the game thread.
+     */
+    private void publish(final GameEventBatch batch) {
+        removeFailed();
+        if (consumers.length == 0) {
+            return;
+        }
+        switch (overrunPolicy) {
+            case BLOCK:
+                for (int i = 0; i < batch.size(); i++) {
+                    offer(encode(batch.getType(i).ordinal(), batch.getActorType(i), batch.getX(i), batch.getY(i)));
+                }
+                offer(encode(STEP_DONE, null, 0, 0));
+                break;
+            case DROP:
+                if (hasCapacity(batch.size() + 1)) {
+                    putAll(batch);
+                } else {
+                    dropStep(batch);
+                }
+                break;
+            case COALESCE:
+                publishWhole(batch);
+                break;
+        }
+    }
+
+    /**
+     * Publishes an event, waits for free space if necessary.
+     */
+    private void offer(final long event) {
+        if (!hasCapacity(1)) {
+            producerWaits++;
+            final GameMetrics current = metrics;
+            if (current != null) {
+                current.getProducerWaits().increment();
+            }
+            while (!hasCapacity(1)) {
+                idle();
+                removeFailed();
+            }
+        }
+        put(event);
+    }
+
+    private void dropStep(final GameEventBatch batch) {
+        droppedSteps++;
+        droppedEvents += batch.size();
+        final GameMetrics current = metrics;
+        if (current != null) {
+            current.getDroppedSteps().increment();
+            current.getDroppedEvents().add(batch.size());
+        }
+    }
+
+    /**
+     * Publishes a step as a whole, together with the steps kept before, or keeps it until there is room for all of
+     * them, see {@link OverrunPolicy#COALESCE}.
+     */
+    private void publishWhole(final GameEventBatch batch) {
+        final int size = pendingSize + batch.size() + 1;
+        if (hasCapacity(size)) {
+            for (int i = 0; i < pendingSize; i++) {
+                put(pending[i]);
+            }
+            pendingSize = 0;
+            putAll(batch);
+            return;
+        }
+        if (size > ring.length) {
+            // the kept steps could never be published at once, so this step is lost
+            dropStep(batch);
+            return;
+        }
+        coalescedSteps++;
+        final GameMetrics current = metrics;
+        if (current != null) {
+            current.getCoalescedSteps().increment();
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            pending[pendingSize++] = encode(batch.getType(i).ordinal(), batch.getActorType(i), batch.getX(i),
+                    batch.getY(i));
+        }
+    }
+
+    /**
+     * Removes the observers whose thread died, called on the game thread.
+     */
+    private void removeFailed() {
+        for (Consumer consumer : consumers) {
+            if (consumer.failure != null) {
+                removeFailed(consumer);
+            }
+        }
+    }
+
+    private synchronized void removeFailed(final Consumer consumer) {
+        final Consumer[] current = consumers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == consumer) {
+                consumers = without(current, i);
+                observerFailure = consumer.failure;
+                failedObservers++;
+                final GameMetrics metrics = this.metrics;
+                if (metrics != null) {
+                    metrics.getFailedObservers().increment();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Publishes the events of a step and its end, the ring buffer must have room for them.
+     */
+    private void putAll(final GameEventBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            put(encode(batch.getType(i).ordinal(), batch.getActorType(i), batch.getX(i), batch.getY(i)));
+        }
+        put(encode(STEP_DONE, null, 0, 0));
+    }
+
+    private void put(final long event) {
+        ring[(int) nextSequence & mask] = event;
+        cursor.lazySet(nextSequence);
+        nextSequence++;
+        publishedEvents++;
+    }
+
+    /**
+     * Returns whether the given number of events fits into the ring buffer without overwriting an event that an
+     * observer has not consumed yet.
+     */
+    private boolean hasCapacity(final int events) {
+        final long wrapPoint = nextSequence + events - 1 - ring.length;
+        if (wrapPoint < cachedGatingSequence) {
+            return true;
+        }
+        long minimum = nextSequence - 1;
+        for (Consumer consumer : consumers) {
+            minimum = Math.min(minimum, consumer.sequence.get());
+        }
+        cachedGatingSequence = minimum;
+        return wrapPoint < minimum;
+    }
+
+    private void idle() {
+        switch (waitStrategy) {
+            case BUSY_SPIN:
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            case PARK:
+                LockSupport.parkNanos(PARK_NANOS);
+                break;
+        }
+    }
+
+    private static long encode(final int type, final ActorType actorType, final int x, final int y) {
+        final long actor = actorType == null ? 0 : actorType.ordinal() + 1;
+        return type | actor << TYPE_BITS | (x & COORDINATE_MASK) << (TYPE_BITS + ACTOR_BITS)
+                | (y & COORDINATE_MASK) << (TYPE_BITS + ACTOR_BITS + COORDINATE_BITS);
+    }
+
+    private static void dispatch(final long event, final GameObserver observer) {
+        final int type = (int) (event & ((1 << TYPE_BITS) - 1));
+        if (type == STEP_DONE) {
+            observer.stepDone();
+            return;
+        }
+        final int actor = (int) (event >>> TYPE_BITS & ((1 << ACTOR_BITS) - 1));
+        final int x = (int) (event >>> (TYPE_BITS + ACTOR_BITS) & COORDINATE_MASK);
+        final int y = (int) (event >>> (TYPE_BITS + ACTOR_BITS + COORDINATE_BITS) & COORDINATE_MASK);
+        switch (EVENT_TYPES[type]) {
+            case GAME_OVER:
+                observer.gameOver();
+                break;
+            case START_POWER_PELLET_MODE:
+                observer.startPowerPelletMode();
+                break;
+            case END_POWER_PELLET_MODE:
+                observer.endPowerPelletMode();
+                break;
+            case PACMAN_DIED:
+                observer.pacManDied();
+                break;
+            case EXTRA_ITEM_PLACED:
+                observer.extraItemPlaced(new Point(x, y));
+                break;
+            case EXTRA_ITEM_VANISHED:
+                observer.extraItemVanished();
+                break;
+            case ACTOR_SET:
+                observer.actorSet(ACTOR_TYPES[actor - 1], x, y);
+                break;
+            case ACTOR_REMOVED:
+                observer.actorRemoved(ACTOR_TYPES[actor - 1], x, y);
+                break;
+            case NEXT_STAGE:
+                observer.nextStage();
+                break;
+        }
+    }
+
+    /**
+     * Adds an event to the batch, or delivers the batch to the observer at the end of a step.
+     */
+    private static void collect(final long event, final GameEventBatch batch, final BatchGameObserver observer) {
+        final int type = (int) (event & ((1 << TYPE_BITS) - 1));
+        if (type == STEP_DONE) {
+            try {
+                observer.stepDone(batch);
+            } finally {
+                batch.clear();
+            }
+            return;
+        }
+        final int actor = (int) (event >>> TYPE_BITS & ((1 << ACTOR_BITS) - 1));
+        batch.add(EVENT_TYPES[type], actor == 0 ? null : ACTOR_TYPES[actor - 1],
+                (int) (event >>> (TYPE_BITS + ACTOR_BITS) & COORDINATE_MASK),
+                (int) (event >>> (TYPE_BITS + ACTOR_BITS + COORDINATE_BITS) & COORDINATE_MASK));
+    }
+
+    /**
+     * Delivers the events to one observer, either a GameObserver or a BatchGameObserver.
+     */
+    private final class Consumer implements Runnable {
+
+        private final GameObserver observer;
+        private final BatchGameObserver batchObserver;
+        private final GameEventBatch batch;
+
+        /**
+         * The sequence of the last event delivered to the observer.
+         */
+        private final AtomicLong sequence;
+        private volatile boolean running = true;
+
+        /**
+         * The error that stopped the thread, or null while it runs.
+         */
+        private volatile Throwable failure;
+
+        Consumer(GameObserver observer, BatchGameObserver batchObserver, long start) {
+            this.observer = observer;
+            this.batchObserver = batchObserver;
+            this.batch = batchObserver == null ? null : new GameEventBatch();
+            this.sequence = new AtomicLong(start);
+        }
+
+        @Override
+        public void run() {
+            try {
+                consume();
+            } catch (Throwable t) {
+                failure = t;
+            }
+        }
+
+        private void consume() {
+            long next = sequence.get() + 1;
+            while (running) {
+                final long available = cursor.get();
+                if (available < next) {
+                    idle();
+                    continue;
+                }
+                for (; next <= available && running; next++) {
+                    try {
+                        if (batchObserver == null) {
+                            dispatch(ring[(int) next & mask], observer);
+                        } else {
+                            collect(ring[(int) next & mask], batch, batchObserver);
+                        }
+                    } catch (RuntimeException e) {
+                        failedEvents.incrementAndGet();
+                    }
+                }
+                sequence.lazySet(next - 1);
+            }
+        }
+    }
+}
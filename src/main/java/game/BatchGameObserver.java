@@ -0,0 +1,20 @@
+package game;
+
+/**
+ * A BatchGameObserver receives all events of a step at once, instead of one call per event like a
+ * {@link GameObserver}. This is cheaper for observers that handle many events, like renderers or loggers.
+ */
+public interface BatchGameObserver {
+
+    /**
+     * This method is called by the GameObservable every time a step is done. The batch contains the events since the
+     * previous step, or since the first batch observer was added. The events of the creation of a game are never
+     * delivered, since no observer can be added before, and restoring a snapshot discards the events recorded so far.
+     * The fields that changed in the step, including changes outside of a step, are available from
+     * {@link PacManGame#getDirtyCells()} during this call.
+     *
+     * @param events the events of the step. The batch is reused and only valid during this call.
+     */
+    void stepDone(GameEventBatch events);
+
+}
@@ -1,59 +1,134 @@
 package game;
 
+import enums.Direction;
 import enums.FieldType;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
-public class Board {
+public class Board implements BoardInfo {
 
-    private Field[][] board;
+    /**
+     * Value of the neighbour table for a move that is blocked by a wall.
+     */
+    public static final int BLOCKED = -1;
+
+    private static final int DIRECTIONS = Direction.values().length;
+    private static final FieldType[] FIELD_TYPES = FieldType.values();
+    private static final int WALL = FieldType.WALL.ordinal();
+    private static final int GHOST_START = FieldType.GHOST_START.ordinal();
+
+    /**
+     * The ordinal of the {@code FieldType} of every character of a board description, or -1 for characters that are
+     * not allowed.
+     */
+    static final byte[] TYPE_OF_CHARACTER = new byte[128];
+
+    static {
+        Arrays.fill(TYPE_OF_CHARACTER, (byte) -1);
+        TYPE_OF_CHARACTER['#'] = (byte) FieldType.WALL.ordinal();
+        TYPE_OF_CHARACTER['-'] = (byte) FieldType.FREE.ordinal();
+        TYPE_OF_CHARACTER['X'] = (byte) FieldType.POWER_PELLET.ordinal();
+        TYPE_OF_CHARACTER['P'] = (byte) FieldType.PACMAN_START.ordinal();
+        TYPE_OF_CHARACTER['G'] = (byte) FieldType.GHOST_START.ordinal();
+    }
+
+    /**
+     * The fields of the board, packed in row-major order.
+     */
+    private final CellStore cells;
+    private final int rows;
+    private final int columns;
     private int pacDotsOnStart;
-    private List<Point> extraItemFields = new ArrayList<>();
 
-    private List<Point> ghostsStarts = new ArrayList<>();
+    /**
+     * The indices of the fields an extra item can be placed on. Only depends on the layout and is shared by all copies
+     * of a board, like the following fields.
+     */
+    private int[] extraItemIndices;
+    private List<Point> extraItemFields;
+
+    private List<Point> ghostsStarts;
+    private int[] ghostStartIndices;
     private Point pacManStart;
 
+    /**
+     * Scratch space for the ranks of the occupied fields, see {@link #findFreeField(int[], int)}.
+     */
+    private int[] occupiedRanks = new int[8];
+
+    /**
+     * For every field and every {@code Direction} (by ordinal) the index of the neighbouring field, with the
+     * wraparound at the borders applied, or {@link #BLOCKED} if the neighbour is a wall. The table only depends on the
+     * layout and is shared by all copies of a board.
+     */
+    private int[] neighbours;
+
+    private DistanceFields distanceFields;
+
+    /**
+     * One {@code Point} per field, created on first use, so moving actors does not allocate. Shared by all copies of
+     * a board.
+     */
+    private Point[] points;
+
+    /**
+     * Returns the fields of the board. The fields are views of the packed storage of this board, so this method
+     * creates one object per field and should not be used in performance critical code.
+     *
+     * @return the fields of the board.
+     */
     public Field[][] getBoard() {
-        return board;
+        Field[][] fields = new Field[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                fields[i][j] = new Field(cells, cellIndex(i, j));
+            }
+        }
+        return fields;
     }
 
+    @Override
     public List<Point> getGhostsStarts() {
         return ghostsStarts;
     }
 
+    @Override
     public int getPacDotsOnStart() {
         return pacDotsOnStart;
     }
 
+    @Override
     public Point getPacManStart() {
         return pacManStart;
     }
 
+    @Override
     public int getNumberOfRows() {
-        return board.length;
+        return rows;
     }
 
+    @Override
     public int getNumberOfColumns() {
-        if (board.length == 0) {
-            return 0;
-        } else {
-            return board[0].length;
-        }
+        return columns;
     }
 
     public Field getField(int x, int y) {
         if (!isPointValid(x, y)) {
             throw new IllegalArgumentException("specified field is not on the board");
         }
-        return board[x][y];
+        return new Field(cells, cellIndex(x, y));
     }
 
     public Field getField(final Point p) {
         if (!isPointValid(p)) {
             throw new IllegalArgumentException("specified field is not on the board");
         }
-        return board[p.x][p.y];
+        return new Field(cells, cellIndex(p.x, p.y));
     }
 
     public List<Point> getExtraItemFields() {
@@ -61,31 +136,232 @@ public class Board {
     }
 
     public BoardInfo getBoardInfo() {
-        return (BoardInfo) this;
+        return this;
     }
 
+    @Override
     public FieldInfo getFieldInfo(Point p) {
         if (!isPointValid(p)) {
             throw new IllegalArgumentException("specified field not on the board");
         }
-        return (FieldInfo) board[p.x][p.y];
+        return new Field(cells, cellIndex(p.x, p.y));
     }
 
+    @Override
     public FieldInfo getFieldInfo(final int x, final int y) {
         if (!isPointValid(x, y)) {
             throw new IllegalArgumentException("specified field not on the board");
         }
-        return (FieldInfo) board[x][y];
+        return new Field(cells, cellIndex(x, y));
+    }
+
+    /**
+     * Returns the packed storage of the fields.
+     */
+    CellStore getCells() {
+        return cells;
+    }
+
+    /**
+     * Returns the number of fields an extra item can be placed on that are not occupied by an actor.
+     *
+     * @return the number of free extra item fields.
+     */
+    int getFreeExtraItemFieldCount() {
+        return extraItemIndices.length - collectOccupiedRanks(extraItemIndices);
+    }
+
+    /**
+     * Returns a free field an extra item can be placed on. The free fields are ordered by their index, so the result
+     * only depends on the positions of the actors and not on the moves that led there.
+     *
+     * @param rank the rank of the field among the free extra item fields, less than
+     *             {@link #getFreeExtraItemFieldCount()}.
+     * @return the index of the field.
+     */
+    int getFreeExtraItemField(final int rank) {
+        return findFreeField(extraItemIndices, rank);
+    }
+
+    /**
+     * Returns the first ghost start that is not occupied by an actor.
+     *
+     * @return the index of the ghost start or -1 if all ghost starts are occupied.
+     */
+    int getFreeGhostStart() {
+        if (collectOccupiedRanks(ghostStartIndices) == ghostStartIndices.length) {
+            return -1;
+        }
+        return findFreeField(ghostStartIndices, 0);
+    }
+
+    /**
+     * Returns the field with the given rank among the fields of the candidates that are not occupied. Only the
+     * occupied fields are looked at, so this takes time proportional to the number of actors, not to the number of
+     * candidates.
+     */
+    private int findFreeField(final int[] candidates, final int rank) {
+        final int occupied = collectOccupiedRanks(candidates);
+        if (rank < 0 || rank >= candidates.length - occupied) {
+            throw new IllegalArgumentException("invalid rank of a free field");
+        }
+        Arrays.sort(occupiedRanks, 0, occupied);
+        int position = rank;
+        for (int i = 0; i < occupied && occupiedRanks[i] <= position; i++) {
+            position++;
+        }
+        return candidates[position];
+    }
+
+    /**
+     * Stores the ranks of the occupied fields among the sorted candidates in {@link #occupiedRanks}.
+     *
+     * @return the number of occupied candidates.
+     */
+    private int collectOccupiedRanks(final int[] candidates) {
+        final int actors = cells.getActorCount();
+        if (occupiedRanks.length < actors) {
+            occupiedRanks = new int[Math.max(actors, occupiedRanks.length * 2)];
+        }
+        int occupied = 0;
+        for (int slot = 0; slot < actors; slot++) {
+            final int cell = cells.getCellOfSlot(slot);
+            if (cell >= 0) {
+                final int rank = Arrays.binarySearch(candidates, cell);
+                if (rank >= 0) {
+                    occupiedRanks[occupied++] = rank;
+                }
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Returns the number of fields of the board, the indices of the fields range from 0 to this number (exclusive).
+     *
+     * @return the number of fields.
+     */
+    @Override
+    public int getNumberOfFields() {
+        return rows * columns;
+    }
+
+    /**
+     * Returns the index of the field that is reached by moving from the field with the given index in the given
+     * direction. Moving over the border of the board wraps around to the opposite side.
+     *
+     * @param index     the index of the field to start from.
+     * @param direction the direction to move in.
+     * @return the index of the neighbouring field or {@link #BLOCKED} if it is a wall.
+     */
+    public int getNeighbour(final int index, final Direction direction) {
+        return neighbours[index * DIRECTIONS + direction.ordinal()];
+    }
+
+    /**
+     * Same as {@link #getNeighbour(int, Direction)} with the ordinal of the direction, for traversals that iterate
+     * over all directions.
+     */
+    @Override
+    public int getNeighbour(final int index, final int directionOrdinal) {
+        return neighbours[index * DIRECTIONS + directionOrdinal];
+    }
+
+    /**
+     * Returns the shortest path distances of this board. They are shared by all copies of this board.
+     *
+     * @return the distance fields of the layout of this board or null if the board has more than
+     * {@link DistanceFields#MAX_FIELDS} fields.
+     */
+    @Override
+    public DistanceFields getDistanceFields() {
+        return distanceFields;
+    }
+
+    /**
+     * Returns the coordinates of the given field. The same instance is returned for every call with the same field,
+     * also by copies of this board.
+     *
+     * @param x the row of the field.
+     * @param y the column of the field.
+     * @return the coordinates of the field.
+     * @throws IllegalArgumentException if the coordinates are not on the board.
+     */
+    public Point pointAt(final int x, final int y) {
+        return pointAt(indexOf(x, y));
+    }
+
+    /**
+     * Returns the coordinates of the field with the given index, see {@link #pointAt(int, int)}.
+     *
+     * @param index the index of the field.
+     * @return the coordinates of the field.
+     * @throws IllegalArgumentException if the index is not on the board.
+     */
+    public Point pointAt(final int index) {
+        if (index < 0 || index >= points.length) {
+            throw new IllegalArgumentException("specified field is not on the board");
+        }
+        Point p = points[index];
+        if (p == null) {
+            // a race only creates an equal point twice
+            p = new Point(getRow(index), getColumn(index));
+            points[index] = p;
+        }
+        return p;
+    }
+
+    @Override
+    public int getRow(final int index) {
+        return index / columns;
+    }
+
+    @Override
+    public int getColumn(final int index) {
+        return index % columns;
+    }
+
+    /**
+     * Returns the index of the given coordinates. The fields are numbered in row-major order.
+     *
+     * @param p the coordinates of the field.
+     * @return the index of the field.
+     * @throws IllegalArgumentException if the coordinates are not on the board.
+     */
+    @Override
+    public int indexOf(final Point p) {
+        if (!isPointValid(p)) {
+            throw new IllegalArgumentException("specified field is not on the board");
+        }
+        return cellIndex(p.x, p.y);
+    }
+
+    /**
+     * Returns the index of the given coordinates. The fields are numbered in row-major order.
+     *
+     * @param x the row of the field.
+     * @param y the column of the field.
+     * @return the index of the field.
+     * @throws IllegalArgumentException if the coordinates are not on the board.
+     */
+    @Override
+    public int indexOf(final int x, final int y) {
+        if (!isPointValid(x, y)) {
+            throw new IllegalArgumentException("specified field is not on the board");
+        }
+        return cellIndex(x, y);
+    }
+
+    private int cellIndex(final int x, final int y) {
+        return x * columns + y;
     }
 
     private boolean isPointValid(final Point p) {
-        return p != null && p.x >= 0 && p.y >= 0 && p.x < board.length
-                && p.y < board[p.x].length
-                && board[p.x][p.y] != null;
+        return p != null && isPointValid(p.x, p.y);
     }
 
     private boolean isPointValid(final int x, final int y) {
-        return x >= 0 && y >= 0 && x < board.length && y < board[x].length && board[x][y] != null;
+        return x >= 0 && y >= 0 && x < rows && y < columns;
     }
 
 
@@ -100,37 +376,146 @@ public class Board {
      *                                  null.
      */
     public Board(Field[][] board) {
-        if (board == null || board.length == 0 || board[0].length == 0) {
+        this(board == null || board.length == 0 || board[0] == null ? 0 : board.length,
+                board == null || board.length == 0 || board[0] == null ? 0 : board[0].length);
+        for (int i = 0; i < rows; i++) {
+            if (board[i] == null || board[i].length != columns) {
+                throw new IllegalArgumentException("invalid board");
+            }
+            for (int j = 0; j < columns; j++) {
+                if (board[i][j] == null) {
+                    throw new IllegalArgumentException("invalid board");
+                }
+                final int index = cellIndex(i, j);
+                cells.cells[index] = board[i][j].getCell() & ~CellStore.ACTOR_MASK;
+                final Actor actor = board[i][j].getActor();
+                if (actor != null) {
+                    cells.setOccupant(index, actor);
+                }
+            }
+        }
+        scanLayout();
+    }
+
+    /**
+     * Creates an empty board of the given size, the fields have to be filled in by the caller before it calls
+     * {@link #scanLayout()}.
+     */
+    Board(int rows, int columns) {
+        if (rows == 0 || columns == 0) {
             throw new IllegalArgumentException("invalid board");
         }
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = new CellStore(rows * columns);
+    }
+
+    /**
+     * Saves the start positions, checks the amount of free fields and Pac-Man starting fields and populates the list
+     * of {@code extraItemFields}.
+     *
+     * @throws IllegalArgumentException if the board has not exactly one Pac-Man start or no free field.
+     */
+    void scanLayout() {
+        final int fields = rows * columns;
+        points = new Point[fields];
         int pacmanStartCounter = 0;
         int freeFieldsCounter = 0;
-
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[i].length; j++) {
-                switch (board[i][j].getType()) {
-                    case PACMAN_START:
-                        pacmanStartCounter++;
-                        extraItemFields.add(new Point(i, j));
-                        break;
-                    case FREE:
-                        freeFieldsCounter++;
-                        extraItemFields.add(new Point(i, j));
-                        break;
-                    case POWER_PELLET:
-                        extraItemFields.add(new Point(i, j));
-                        break;
-                    case GHOST_START:
-                        ghostsStarts.add(new Point(i, j));
-                        break;
-                }
+        int pacManStartIndex = 0;
+        int blockedFieldsCounter = 0;
+        final List<Point> starts = new ArrayList<>();
+        final int[] cellArray = cells.cells;
+        for (int index = 0; index < fields; index++) {
+            switch (FIELD_TYPES[cellArray[index] & CellStore.TYPE_MASK]) {
+                case PACMAN_START:
+                    pacmanStartCounter++;
+                    pacManStartIndex = index;
+                    break;
+                case FREE:
+                    freeFieldsCounter++;
+                    break;
+                case GHOST_START:
+                    blockedFieldsCounter++;
+                    starts.add(pointAt(index));
+                    break;
+                case WALL:
+                    blockedFieldsCounter++;
+                    break;
             }
         }
         if (pacmanStartCounter != 1 || freeFieldsCounter == 0) {
             throw new IllegalArgumentException("board has more than 1 Pac-Man start position or no free field");
         }
-        this.board = board;
+        pacManStart = pointAt(pacManStartIndex);
         pacDotsOnStart = freeFieldsCounter;
+        ghostsStarts = Collections.unmodifiableList(starts);
+        ghostStartIndices = new int[starts.size()];
+        for (int i = 0; i < ghostStartIndices.length; i++) {
+            ghostStartIndices[i] = cellIndex(starts.get(i).x, starts.get(i).y);
+        }
+        extraItemIndices = new int[fields - blockedFieldsCounter];
+        for (int index = 0, i = 0; i < extraItemIndices.length; index++) {
+            final int type = cellArray[index] & CellStore.TYPE_MASK;
+            if (type != WALL && type != GHOST_START) {
+                extraItemIndices[i++] = index;
+            }
+        }
+        extraItemFields = new ExtraItemFields();
+        neighbours = buildNeighbours();
+        if (fields <= DistanceFields.MAX_FIELDS) {
+            final byte[] types = new byte[fields];
+            for (int i = 0; i < fields; i++) {
+                types[i] = (byte) (cellArray[i] & CellStore.TYPE_MASK);
+            }
+            distanceFields = new DistanceFields(neighbours, types, DIRECTIONS, DistanceFields.DEFAULT_MEMORY_BUDGET);
+        }
+    }
+
+    private int[] buildNeighbours() {
+        final int[] table = new int[rows * columns * DIRECTIONS];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                final int base = cellIndex(i, j) * DIRECTIONS;
+                final int up = i == 0 ? rows - 1 : i - 1;
+                final int down = i == rows - 1 ? 0 : i + 1;
+                final int left = j == 0 ? columns - 1 : j - 1;
+                final int right = j == columns - 1 ? 0 : j + 1;
+                table[base + Direction.UP.ordinal()] = passable(up, j);
+                table[base + Direction.DOWN.ordinal()] = passable(down, j);
+                table[base + Direction.LEFT.ordinal()] = passable(i, left);
+                table[base + Direction.RIGHT.ordinal()] = passable(i, right);
+            }
+        }
+        return table;
+    }
+
+    private int passable(final int x, final int y) {
+        final int index = cellIndex(x, y);
+        return cells.isWall(index) ? BLOCKED : index;
+    }
+
+    /**
+     * Returns a new board with the same layout as this one. Only the field types are copied and the tables derived
+     * from the layout are shared, pac-dots, power pellets, extra items and actors have to be set by
+     * {@link #initBoard()}. This allows several games to run on the same layout independently of each other.
+     *
+     * @return a copy of this board.
+     */
+    public Board copy() {
+        Board copy = new Board(rows, columns);
+        for (int i = 0; i < cells.cells.length; i++) {
+            copy.cells.cells[i] = cells.cells[i] & CellStore.TYPE_MASK;
+        }
+        copy.neighbours = neighbours;
+        copy.points = points;
+        copy.distanceFields = distanceFields;
+        copy.pacManStart = pacManStart;
+        copy.pacDotsOnStart = pacDotsOnStart;
+        copy.ghostsStarts = ghostsStarts;
+        copy.ghostStartIndices = ghostStartIndices;
+        copy.extraItemIndices = extraItemIndices;
+        copy.extraItemFields = copy.new ExtraItemFields();
+        return copy;
     }
 
     /**
@@ -145,33 +530,27 @@ public class Board {
      */
 
     public static Board parse(String[] boardDescription) {
-        Field[][] tmpBoard = new Field[boardDescription.length][boardDescription[0].length()];
+        if (boardDescription == null || boardDescription.length == 0) {
+            throw new IllegalArgumentException("invalid board");
+        }
+        Board board = new Board(boardDescription.length, boardDescription[0].length());
 
         for (int i = 0; i < boardDescription.length; i++) {
-            char[] row = boardDescription[i].toCharArray();
-            for (int j = 0; j < row.length; j++) {
-                switch (row[j]) {
-                    case '#':
-                        tmpBoard[i][j] = new Field(FieldType.WALL);
-                        break;
-                    case '-':
-                        tmpBoard[i][j] = new Field(FieldType.FREE);
-                        break;
-                    case 'X':
-                        tmpBoard[i][j] = new Field(FieldType.POWER_PELLET);
-                        break;
-                    case 'P':
-                        tmpBoard[i][j] = new Field(FieldType.PACMAN_START);
-                        break;
-                    case 'G':
-                        tmpBoard[i][j] = new Field(FieldType.GHOST_START);
-                        break;
-                    default:
-                        throw new IllegalArgumentException("invalid character in board description");
+            final String row = boardDescription[i];
+            if (row.length() != board.columns) {
+                throw new IllegalArgumentException("invalid board");
+            }
+            for (int j = 0; j < row.length(); j++) {
+                final char c = row.charAt(j);
+                final int type = c < TYPE_OF_CHARACTER.length ? TYPE_OF_CHARACTER[c] : -1;
+                if (type < 0) {
+                    throw new IllegalArgumentException("invalid character in board description");
                 }
+                board.cells.cells[board.cellIndex(i, j)] = type;
             }
         }
-        return new Board(tmpBoard);
+        board.scanLayout();
+        return board;
     }
 
     /**
@@ -179,28 +558,25 @@ public class Board {
      * pellets (indicated by the original board), removes all actors and extra items.
      */
     public void initBoard() {
-        for (Field[] aBoard : board) {
-            for (Field field : aBoard) {
-                switch (field.getType()) {
-                    case FREE:
-                        field.removeActor();
-                        field.setExtraItem(null);
-                        field.setPacDot(true);
-                        break;
-                    case POWER_PELLET:
-                        field.removeActor();
-                        field.setExtraItem(null);
-                        field.setPowerPellet(true);
-                        break;
-                    case PACMAN_START:
-                        field.removeActor();
-                        field.setExtraItem(null);
-                        break;
-                    case GHOST_START:
-                        field.removeActor();
-                        break;
-                }
+        cells.resetAll();
+    }
+
+    /**
+     * Read-only view of the fields an extra item can be placed on, the points are created on first use.
+     */
+    private class ExtraItemFields extends AbstractList<Point> implements RandomAccess {
+
+        @Override
+        public Point get(final int index) {
+            if (index < 0 || index >= extraItemIndices.length) {
+                throw new IndexOutOfBoundsException("index: " + index);
             }
+            return pointAt(extraItemIndices[index]);
+        }
+
+        @Override
+        public int size() {
+            return extraItemIndices.length;
         }
     }
 }
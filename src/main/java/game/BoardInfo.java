@@ -8,7 +8,7 @@ public interface BoardInfo {
 
     FieldInfo getFieldInfo(int x, int y);
 
-    List<Point> getGhostsStart();
+    List<Point> getGhostsStarts();
 
     Point getPacManStart();
 
@@ -18,4 +18,26 @@ public interface BoardInfo {
 
     int getNumberOfColumns();
 
+    int getNumberOfFields();
+
+    int indexOf(Point p);
+
+    int indexOf(int x, int y);
+
+    int getRow(int index);
+
+    int getColumn(int index);
+
+    /**
+     * Returns the index of the neighbouring field in the given direction or {@link Board#BLOCKED}, see
+     * {@link Board#getNeighbour(int, int)}.
+     *
+     * @param index            the index of the field to start from.
+     * @param directionOrdinal the ordinal of the direction to move in.
+     * @return the index of the neighbouring field or {@link Board#BLOCKED} if it is a wall.
+     */
+    int getNeighbour(int index, int directionOrdinal);
+
+    DistanceFields getDistanceFields();
+
 }
@@ -0,0 +1,141 @@
+package game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Loads boards from map files. A map file contains one line per row, using the characters of
+ * {@link Board#parse(String[])}. All lines must have the same length and may end with {@code \n} or {@code \r\n}.
+ * <p>
+ * The file is streamed through a {@link FileChannel} in fixed-size chunks and the bytes are parsed directly into the
+ * packed storage of the board, so loading needs no memory besides the board itself.
+ */
+public final class BoardLoader {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private BoardLoader() {
+    }
+
+    /**
+     * Loads the board of the given map file.
+     *
+     * @param path the path of the map file.
+     * @return the board described by the file.
+     * @throws IOException              if the file can not be read.
+     * @throws IllegalArgumentException if the file is no valid board, the message names the row and column of the
+     *                                  error (both starting at 0).
+     */
+    public static Board load(final Path path) throws IOException {
+        if (path == null) {
+            throw new IllegalArgumentException("invalid path");
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            final long size = channel.size();
+            final long firstLine = findFirstLineBreak(channel, buffer);
+            if (firstLine == 0 || size == 0) {
+                throw new IllegalArgumentException("invalid board: the first row is empty");
+            }
+            final boolean crLf = firstLine > 0 && readByte(channel, firstLine - 1) == '\r';
+            final long columns = firstLine < 0 ? size : crLf ? firstLine - 1 : firstLine;
+            final long lineLength = columns + (crLf ? 2 : 1);
+            final long rows = (size + lineLength - 1) / lineLength;
+            if (columns == 0 || rows * columns > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("invalid board: " + rows + " x " + columns + " fields");
+            }
+            final Board board = new Board((int) rows, (int) columns);
+            parse(channel, buffer, board.getCells().cells, (int) rows, (int) columns);
+            board.scanLayout();
+            return board;
+        }
+    }
+
+    /**
+     * Returns the position of the first {@code \n} in the file, or -1 if there is none.
+     */
+    private static long findFirstLineBreak(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        long position = 0;
+        channel.position(0);
+        buffer.clear();
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            final byte[] bytes = buffer.array();
+            for (int i = 0; i < buffer.limit(); i++) {
+                if (bytes[i] == '\n') {
+                    return position + i;
+                }
+            }
+            position += buffer.limit();
+            buffer.clear();
+        }
+        return -1;
+    }
+
+    private static int readByte(final FileChannel channel, final long position) throws IOException {
+        final ByteBuffer single = ByteBuffer.allocate(1);
+        channel.read(single, position);
+        return single.get(0);
+    }
+
+    private static void parse(final FileChannel channel, final ByteBuffer buffer, final int[] cells, final int rows,
+                              final int columns) throws IOException {
+        final byte[] types = Board.TYPE_OF_CHARACTER;
+        int row = 0;
+        int column = 0;
+        int index = 0;
+        boolean carriageReturn = false;
+        channel.position(0);
+        buffer.clear();
+        while (channel.read(buffer) > 0) {
+            buffer.flip();
+            final byte[] bytes = buffer.array();
+            final int limit = buffer.limit();
+            for (int i = 0; i < limit; i++) {
+                final byte b = bytes[i];
+                if (b == '\n') {
+                    if (column != columns) {
+                        throw error(row, column, "row has " + column + " columns instead of " + columns);
+                    }
+                    row++;
+                    column = 0;
+                    carriageReturn = false;
+                } else if (carriageReturn) {
+                    throw error(row, column, "carriage return not followed by a line break");
+                } else if (b == '\r' && column == columns) {
+                    carriageReturn = true;
+                } else {
+                    if (column == columns) {
+                        throw error(row, column, "row has more than " + columns + " columns");
+                    }
+                    if (row == rows) {
+                        throw error(row, column, "board has more than " + rows + " rows");
+                    }
+                    final int type = b >= 0 ? types[b] : -1;
+                    if (type < 0) {
+                        throw error(row, column, "invalid character '" + (char) (b & 0xFF) + "'");
+                    }
+                    cells[index++] = type;
+                    column++;
+                }
+            }
+            buffer.clear();
+        }
+        if (column != 0) {
+            if (column != columns) {
+                throw error(row, column, "row has " + column + " columns instead of " + columns);
+            }
+            row++;
+        }
+        if (row != rows) {
+            throw error(row, 0, "board has " + row + " rows instead of " + rows);
+        }
+    }
+
+    private static IllegalArgumentException error(final int row, final int column, final String message) {
+        return new IllegalArgumentException("invalid board at row " + row + ", column " + column + ": " + message);
+    }
+}
@@ -0,0 +1,56 @@
+package game;
+
+import java.util.Arrays;
+
+/**
+ * A set of field indices that supports adding, iterating and clearing in time proportional to the number of
+ * elements, not to the number of fields. A bitset answers whether an index is contained, a list holds the indices in
+ * the order they were added.
+ */
+final class CellSet {
+
+    private final long[] bits;
+    private int[] indices = new int[64];
+    private int size;
+
+    CellSet(int fields) {
+        bits = new long[(fields + 63) >>> 6];
+    }
+
+    /**
+     * Adds the index, if it is not contained yet.
+     */
+    void add(int index) {
+        final long mask = 1L << index;
+        final int word = index >>> 6;
+        if ((bits[word] & mask) == 0) {
+            bits[word] |= mask;
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = index;
+        }
+    }
+
+    boolean contains(int index) {
+        return (bits[index >>> 6] & 1L << index) != 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index at the given position, in the order the indices were added.
+     */
+    int get(int position) {
+        return indices[position];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            bits[indices[i] >>> 6] = 0;
+        }
+        size = 0;
+    }
+}
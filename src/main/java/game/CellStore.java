@@ -0,0 +1,452 @@
+package game;
+
+import enums.ActorType;
+import enums.Event;
+import enums.ExtraItem;
+import enums.FieldType;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Packed storage of the fields of a board. Every field is a single {@code int} in row-major order, holding the
+ * following bits:
+ * <pre>
+ *  bits  0 -  2: ordinal of the {@link FieldType}
+ *  bit        3: pac-dot
+ *  bit        4: power pellet
+ *  bits  5 -  7: ordinal of the {@link ExtraItem} + 1, 0 if there is no extra item
+ *  bits  8 -  9: occupant, 0 if there is no actor, otherwise ordinal of the {@link ActorType} + 1
+ *  bits 10 - 31: slot of the occupying actor in the actor table of this store
+ * </pre>
+ * The actors themselves are kept in a small table, so a field needs no object of its own.
+ */
+final class CellStore {
+
+    static final int TYPE_MASK = 0x7;
+    static final int PAC_DOT = 1 << 3;
+    static final int POWER_PELLET = 1 << 4;
+    static final int EXTRA_ITEM_SHIFT = 5;
+    static final int EXTRA_ITEM_MASK = 0x7 << EXTRA_ITEM_SHIFT;
+    static final int EDIBLE_MASK = PAC_DOT | POWER_PELLET | EXTRA_ITEM_MASK;
+    static final int OCCUPANT_SHIFT = 8;
+    static final int OCCUPANT_MASK = 0x3 << OCCUPANT_SHIFT;
+    static final int SLOT_SHIFT = 10;
+    static final int ACTOR_MASK = OCCUPANT_MASK | (-1 << SLOT_SHIFT);
+    /**
+     * The type and the items of a field, i.e. everything but its occupant.
+     */
+    static final int ITEM_MASK = 0xFF;
+
+    private static final FieldType[] FIELD_TYPES = FieldType.values();
+    private static final ExtraItem[] EXTRA_ITEMS = ExtraItem.values();
+    private static final ActorType[] ACTOR_TYPES = ActorType.values();
+
+    private static final int WALL = FieldType.WALL.ordinal();
+    private static final int FREE = FieldType.FREE.ordinal();
+    private static final int PELLET_FIELD = FieldType.POWER_PELLET.ordinal();
+    private static final int GHOST_START = FieldType.GHOST_START.ordinal();
+    private static final int PACMAN_OCCUPANT = ActorType.PACMAN.ordinal() + 1;
+    private static final int GHOST_OCCUPANT = ActorType.GHOST.ordinal() + 1;
+
+    /**
+     * Result of {@link #checkActor(int, Actor)}, indexed by field type, occupant and incoming actor type.
+     */
+    private static final Event[] CHECK_TABLE = new Event[(TYPE_MASK + 1) * 4 * ACTOR_TYPES.length];
+
+    static {
+        for (FieldType type : FIELD_TYPES) {
+            for (int occupant = 0; occupant < 3; occupant++) {
+                for (ActorType incoming : ACTOR_TYPES) {
+                    CHECK_TABLE[checkKey(type.ordinal(), occupant, incoming)] = check(type, occupant, incoming);
+                }
+            }
+        }
+    }
+
+    final int[] cells;
+
+    private Actor[] actors;
+
+    /**
+     * The index of the field every actor of the actor table is placed on, or -1 if it is not on the board.
+     */
+    private int[] cellOfSlot;
+    private int actorCount;
+
+    /**
+     * The fields whose pac-dot, power pellet or extra item was changed since the last reset, null if the store is
+     * untracked.
+     */
+    private final CellSet changed;
+
+    /**
+     * Indicates whether all changes since the last reset are recorded in {@link #changed}. The fields of a new store
+     * are written directly, so the first reset has to look at every field.
+     */
+    private boolean tracked;
+
+    /**
+     * The fields changed since the dirty cells were cleared last, see {@link #getDirtyCells()}. Null if the store is
+     * untracked.
+     */
+    private final DirtyCells dirty;
+
+    CellStore(int size) {
+        cells = new int[size];
+        actors = new Actor[8];
+        cellOfSlot = new int[8];
+        changed = new CellSet(size);
+        dirty = new DirtyCells(size);
+    }
+
+    private CellStore(FieldType type) {
+        cells = new int[]{type.ordinal()};
+        actors = new Actor[1];
+        cellOfSlot = new int[1];
+        changed = null;
+        dirty = null;
+    }
+
+    /**
+     * Creates a store of a single field that does not track its changes, for a field that is not part of a board.
+     * An untracked store has no dirty cells and can not be reset or read from a snapshot.
+     *
+     * @param type the type of the field.
+     * @return the new store, the field has no items.
+     */
+    static CellStore untracked(FieldType type) {
+        return new CellStore(type);
+    }
+
+    DirtyCells getDirtyCells() {
+        return dirty;
+    }
+
+    /**
+     * Records that the items of the field with the given index changed.
+     */
+    private void changed(int index) {
+        if (changed != null) {
+            changed.add(index);
+            dirty.add(index);
+        }
+    }
+
+    int size() {
+        return cells.length;
+    }
+
+    FieldType getType(int index) {
+        return FIELD_TYPES[cells[index] & TYPE_MASK];
+    }
+
+    boolean isWall(int index) {
+        return (cells[index] & TYPE_MASK) == WALL;
+    }
+
+    boolean hasPacDot(int index) {
+        return (cells[index] & PAC_DOT) != 0;
+    }
+
+    boolean hasPowerPellet(int index) {
+        return (cells[index] & POWER_PELLET) != 0;
+    }
+
+    boolean hasExtraItem(int index) {
+        return (cells[index] & EXTRA_ITEM_MASK) != 0;
+    }
+
+    ExtraItem getExtraItem(int index) {
+        final int item = (cells[index] & EXTRA_ITEM_MASK) >>> EXTRA_ITEM_SHIFT;
+        return item == 0 ? null : EXTRA_ITEMS[item - 1];
+    }
+
+    boolean hasActor(int index) {
+        return (cells[index] & OCCUPANT_MASK) != 0;
+    }
+
+    ActorType getActorType(int index) {
+        final int occupant = (cells[index] & OCCUPANT_MASK) >>> OCCUPANT_SHIFT;
+        return occupant == 0 ? null : ACTOR_TYPES[occupant - 1];
+    }
+
+    Actor getActor(int index) {
+        final int cell = cells[index];
+        if ((cell & OCCUPANT_MASK) == 0) {
+            return null;
+        }
+        return actors[cell >>> SLOT_SHIFT];
+    }
+
+    void setPacDot(int index, boolean pacDot) {
+        if ((cells[index] & TYPE_MASK) != FREE) {
+            throw new IllegalStateException("invalid field type to place a pac-dot");
+        }
+        cells[index] = pacDot ? cells[index] | PAC_DOT : cells[index] & ~PAC_DOT;
+        changed(index);
+    }
+
+    void setPowerPellet(int index, boolean powerPellet) {
+        if ((cells[index] & TYPE_MASK) != PELLET_FIELD) {
+            throw new IllegalStateException("invalid field type to place a power pellet");
+        }
+        cells[index] = powerPellet ? cells[index] | POWER_PELLET : cells[index] & ~POWER_PELLET;
+        changed(index);
+    }
+
+    void setExtraItem(int index, ExtraItem extraItem) {
+        final int type = cells[index] & TYPE_MASK;
+        if (type == WALL || type == GHOST_START) {
+            throw new IllegalStateException("invalid field type to place an extra item");
+        }
+        final int item = extraItem == null ? 0 : (extraItem.ordinal() + 1) << EXTRA_ITEM_SHIFT;
+        cells[index] = (cells[index] & ~EXTRA_ITEM_MASK) | item;
+        changed(index);
+    }
+
+    /**
+     * Places the {@code Actor} on the field with the given index. If the actor is Pac-Man, the pac-dot, power pellet
+     * and extra item of the field are removed.
+     *
+     * @throws IllegalArgumentException if the given {@code Actor} is null.
+     * @throws IllegalStateException    if the {@code Actor} can not be placed on the field.
+     */
+    void placeActor(int index, Actor actor) {
+        if (actor == null) {
+            throw new IllegalArgumentException("bad actor argument");
+        }
+        if (checkActor(index, actor) == Event.MOVE_IMPOSSIBLE) {
+            throw new IllegalStateException("actor can not be placed here");
+        }
+        setOccupant(index, actor);
+        if (actor.getActorType() == ActorType.PACMAN && (cells[index] & EDIBLE_MASK) != 0) {
+            cells[index] &= ~EDIBLE_MASK;
+            changed(index);
+        }
+    }
+
+    /**
+     * Sets the occupant bits of the field without any checks or side effects.
+     */
+    void setOccupant(int index, Actor actor) {
+        removeActor(index);
+        final int slot = slotOf(actor);
+        final int occupant = ((actor.getActorType().ordinal() + 1) << OCCUPANT_SHIFT) | (slot << SLOT_SHIFT);
+        cells[index] |= occupant;
+        cellOfSlot[slot] = index;
+        if (dirty != null) {
+            dirty.add(index);
+        }
+    }
+
+    void removeActor(int index) {
+        final int cell = cells[index];
+        if ((cell & OCCUPANT_MASK) != 0) {
+            final int slot = cell >>> SLOT_SHIFT;
+            if (cellOfSlot[slot] == index) {
+                cellOfSlot[slot] = -1;
+            }
+            cells[index] = cell & ~ACTOR_MASK;
+            if (dirty != null) {
+                dirty.add(index);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of actors in the actor table, i.e. the actors placed on this store since its last reset.
+     */
+    int getActorCount() {
+        return actorCount;
+    }
+
+    /**
+     * Returns the index of the field the actor in the given slot of the actor table is placed on.
+     *
+     * @return the index of the field or -1 if the actor was removed.
+     */
+    int getCellOfSlot(int slot) {
+        return cellOfSlot[slot];
+    }
+
+    /**
+     * Checks what happens if the given actor enters the field with the given index.
+     *
+     * @throws IllegalArgumentException if null is passed as {@code incomingActor}
+     */
+    Event checkActor(int index, Actor incomingActor) {
+        if (incomingActor == null) {
+            throw new IllegalArgumentException("bad incoming actor argument");
+        }
+        final int cell = cells[index];
+        return CHECK_TABLE[checkKey(cell & TYPE_MASK, (cell & OCCUPANT_MASK) >>> OCCUPANT_SHIFT,
+                incomingActor.getActorType())];
+    }
+
+    /**
+     * Resets the field with the given index to its initial state, i.e. without actors and extra items and with the
+     * pac-dot or power pellet given by its type.
+     */
+    void resetCell(int index) {
+        cells[index] = initialItems(cells[index] & TYPE_MASK);
+    }
+
+    /**
+     * Resets all fields and forgets all registered actors. Only the fields changed since the last reset and the fields
+     * of the actors are touched, unless the fields were written directly since the store was created.
+     */
+    void resetAll() {
+        if (tracked) {
+            resetItems();
+            for (int slot = 0; slot < actorCount; slot++) {
+                if (cellOfSlot[slot] >= 0) {
+                    cells[cellOfSlot[slot]] &= ~ACTOR_MASK;
+                    dirty.add(cellOfSlot[slot]);
+                }
+            }
+        } else {
+            for (int i = 0; i < cells.length; i++) {
+                resetCell(i);
+            }
+            changed.clear();
+            dirty.addAll();
+            tracked = true;
+        }
+        Arrays.fill(actors, 0, actorCount, null);
+        actorCount = 0;
+    }
+
+    /**
+     * Restores the pac-dots and power pellets and removes the extra items of the fields changed since the last reset.
+     * The actors are kept.
+     */
+    void resetItems() {
+        for (int i = 0; i < changed.size(); i++) {
+            final int index = changed.get(i);
+            cells[index] = (cells[index] & ACTOR_MASK) | initialItems(cells[index] & TYPE_MASK);
+            dirty.add(index);
+        }
+        changed.clear();
+    }
+
+    private static int initialItems(int type) {
+        if (type == FREE) {
+            return type | PAC_DOT;
+        } else if (type == PELLET_FIELD) {
+            return type | POWER_PELLET;
+        }
+        return type;
+    }
+
+    /**
+     * Writes the lowest byte of every field, i.e. its type, pac-dot, power pellet and extra item, to the buffer.
+     */
+    void writeItems(ByteBuffer buffer) {
+        for (int cell : cells) {
+            buffer.put((byte) cell);
+        }
+    }
+
+    /**
+     * Returns whether the items at the given index of the buffer, as written by {@link #writeItems(ByteBuffer)}, were
+     * written by a store with the same field types. The position of the buffer is not changed.
+     */
+    boolean matchesItems(ByteBuffer buffer, int index) {
+        if (index < 0 || buffer.limit() - index < cells.length) {
+            return false;
+        }
+        for (int i = 0; i < cells.length; i++) {
+            if ((buffer.get(index + i) & TYPE_MASK) != (cells[i] & TYPE_MASK)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the pac-dots, power pellets and extra items of every field as written by {@link #writeItems(ByteBuffer)}.
+     * The types of the fields are kept and all actors are removed. The items have to be checked with
+     * {@link #matchesItems(ByteBuffer, int)} first.
+     */
+    void readItems(ByteBuffer buffer) {
+        changed.clear();
+        dirty.addAll();
+        for (int i = 0; i < cells.length; i++) {
+            final int items = buffer.get() & ITEM_MASK;
+            cells[i] = items;
+            if (items != initialItems(items & TYPE_MASK)) {
+                changed.add(i);
+            }
+        }
+        tracked = true;
+        Arrays.fill(cellOfSlot, 0, actorCount, -1);
+    }
+
+    /**
+     * Writes the walls, pac-dots, power pellets, ghosts and Pac-Man as five consecutive bit planes, see
+     * {@link PacManGame#writeBitPlanes(long[], int)}.
+     */
+    void writeBitPlanes(long[] planes, int offset) {
+        final int words = (cells.length + 63) >>> 6;
+        Arrays.fill(planes, offset, offset + PacManGame.BIT_PLANES * words, 0);
+        for (int i = 0; i < cells.length; i++) {
+            final int cell = cells[i];
+            final long bit = 1L << i;
+            final int word = offset + (i >>> 6);
+            if ((cell & TYPE_MASK) == WALL) {
+                planes[word] |= bit;
+            }
+            if ((cell & PAC_DOT) != 0) {
+                planes[word + words] |= bit;
+            }
+            if ((cell & POWER_PELLET) != 0) {
+                planes[word + 2 * words] |= bit;
+            }
+            final int occupant = (cell & OCCUPANT_MASK) >>> OCCUPANT_SHIFT;
+            if (occupant == GHOST_OCCUPANT) {
+                planes[word + 3 * words] |= bit;
+            } else if (occupant == PACMAN_OCCUPANT) {
+                planes[word + 4 * words] |= bit;
+            }
+        }
+    }
+
+    private int slotOf(Actor actor) {
+        final int slot = actor.storeSlot;
+        if (slot >= 0 && slot < actorCount && actors[slot] == actor) {
+            return slot;
+        }
+        for (int i = 0; i < actorCount; i++) {
+            if (actors[i] == actor) {
+                actor.storeSlot = i;
+                return i;
+            }
+        }
+        if (actorCount == actors.length) {
+            actors = Arrays.copyOf(actors, actorCount * 2);
+            cellOfSlot = Arrays.copyOf(cellOfSlot, actorCount * 2);
+        }
+        cellOfSlot[actorCount] = -1;
+        actors[actorCount] = actor;
+        actor.storeSlot = actorCount;
+        return actorCount++;
+    }
+
+    private static int checkKey(int type, int occupant, ActorType incoming) {
+        return (((type << 2) | occupant) * ACTOR_TYPES.length) + incoming.ordinal();
+    }
+
+    private static Event check(FieldType type, int occupant, ActorType incoming) {
+        if (type == FieldType.WALL || (type == FieldType.GHOST_START && incoming == ActorType.PACMAN)) {
+            return Event.MOVE_IMPOSSIBLE;
+        }
+        if (occupant == 0) {
+            return Event.MOVE_POSSIBLE;
+        }
+        if (incoming == ActorType.PACMAN || occupant == PACMAN_OCCUPANT) {
+            return Event.PACMAN_GHOST_COLLISION;
+        }
+        return Event.MOVE_IMPOSSIBLE;
+    }
+}
@@ -0,0 +1,76 @@
+package game;
+
+/**
+ * The fields of a board that changed during a step: actors that moved onto or away from a field, eaten pac-dots and
+ * power pellets, and extra items that appeared or vanished. Renderers can use it to redraw only these fields.
+ * <p>
+ * The set is filled by the game and cleared after {@link GameObserver#stepDone()} was delivered, so it is only valid
+ * during that call. Changes outside of a step, e.g. while the game is created, are reported with the next step. If
+ * the whole board changed, e.g. because a snapshot was restored, {@link #isAll()} returns true instead of every field
+ * being listed.
+ */
+public final class DirtyCells {
+
+    private final CellSet cells;
+    private boolean all;
+
+    DirtyCells(int fields) {
+        cells = new CellSet(fields);
+        all = true;
+    }
+
+    /**
+     * Returns whether every field of the board has to be considered changed.
+     *
+     * @return true if the whole board changed.
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * Returns the number of changed fields. If {@link #isAll()} is true, the listed fields may be incomplete.
+     *
+     * @return the number of changed fields.
+     */
+    public int size() {
+        return cells.size();
+    }
+
+    /**
+     * Returns the index of a changed field, see {@link BoardInfo#getRow(int)} and {@link BoardInfo#getColumn(int)}.
+     *
+     * @param position the position of the field in this set, less than {@link #size()}.
+     * @return the index of the field.
+     * @throws IndexOutOfBoundsException if the position is not less than the size.
+     */
+    public int getIndex(final int position) {
+        if (position < 0 || position >= cells.size()) {
+            throw new IndexOutOfBoundsException("position: " + position);
+        }
+        return cells.get(position);
+    }
+
+    /**
+     * Returns whether the field with the given index changed.
+     *
+     * @param index the index of the field.
+     * @return true if the field changed.
+     */
+    public boolean contains(final int index) {
+        return all || cells.contains(index);
+    }
+
+    void add(int index) {
+        cells.add(index);
+    }
+
+    void addAll() {
+        all = true;
+    }
+
+    void clear() {
+        cells.clear();
+        all = false;
+    }
+}
@@ -0,0 +1,291 @@
+package game;
+
+import enums.ActorType;
+import enums.FieldType;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Shortest path distances through the maze of a board, computed by a breadth-first search over the neighbour table of
+ * the board. The distances to a target field are computed on first use and cached as a {@code short} per field. The
+ * cache is bounded by a memory budget and evicts maps that were not used recently, with the clock algorithm as an
+ * approximation of least recently used.
+ * <p>
+ * A path visits every field at most once, so on a board of at most {@link #MAX_FIELDS} fields every distance fits in
+ * the {@code short} of a field. Larger boards are not supported, a single distance map of such a board would take
+ * several milliseconds to compute and most of the memory budget.
+ * <p>
+ * The distances only depend on the walls of a board, which never change, so one instance is shared by a board and all
+ * of its copies. All methods are thread-safe: the cached maps are published as an immutable {@link Table}, which is
+ * read without a lock, only a miss locks to insert the new map into a copy of the table.
+ */
+public class DistanceFields {
+
+    /**
+     * Default memory budget (in bytes) for the cached distance maps.
+     */
+    public static final long DEFAULT_MEMORY_BUDGET = 16L * 1024 * 1024;
+
+    /**
+     * Distance of a field that can not be reached from the target.
+     */
+    public static final int UNREACHABLE = 0xFFFF;
+
+    /**
+     * Maximum number of fields of a board, the longest path on such a board is one step shorter than
+     * {@link #UNREACHABLE}.
+     */
+    public static final int MAX_FIELDS = UNREACHABLE;
+
+    private static final int NONE = -1;
+
+    private static final byte WALL = (byte) FieldType.WALL.ordinal();
+    private static final byte GHOST_START = (byte) FieldType.GHOST_START.ordinal();
+
+    private final int[] neighbours;
+    private final byte[] types;
+    private final int fields;
+    private final int directions;
+
+    /**
+     * The cached maps, replaced by a new table on every insert.
+     */
+    private volatile Table table;
+
+    /**
+     * Whether the map of a slot was read since the clock hand passed it. Readers set the flags without a lock, a lost
+     * or late flag only makes the eviction less accurate.
+     */
+    private final boolean[] referenced;
+    private final int capacity;
+    private int hand;
+    private int size;
+
+    private final LongAdder hits = new LongAdder();
+    private long misses;
+
+    /**
+     * Creates the distance fields of the given layout.
+     *
+     * @param neighbours   the neighbour table of the board, see {@link Board#getNeighbour(int, int)}.
+     * @param types        the ordinal of the {@code FieldType} of every field.
+     * @param directions   the number of directions per field in the neighbour table.
+     * @param memoryBudget the number of bytes the cached distance maps may occupy, at least one map is always cached.
+     * @throws IllegalArgumentException if the board has more than {@link #MAX_FIELDS} fields.
+     */
+    DistanceFields(int[] neighbours, byte[] types, int directions, long memoryBudget) {
+        if (types.length > MAX_FIELDS) {
+            throw new IllegalArgumentException("board too large for distance fields");
+        }
+        this.neighbours = neighbours;
+        this.types = types;
+        this.fields = types.length;
+        this.directions = directions;
+        capacity = (int) Math.max(1, Math.min(2L * fields, memoryBudget / (2L * fields)));
+        referenced = new boolean[capacity];
+        table = new Table(capacity);
+    }
+
+    /**
+     * Returns the distances of all fields to the given target field. The returned array is shared and must not be
+     * modified; use {@link #toDistance(short)} to read an entry.
+     *
+     * @param target    the index of the target field.
+     * @param actorType the type of the actor, Pac-Man can not walk through the ghost starts.
+     * @return the distance of every field (by index) to the target.
+     * @throws IllegalArgumentException if the target is not on the board or the actor type is null.
+     */
+    public short[] getDistancesTo(final int target, final ActorType actorType) {
+        if (target < 0 || target >= fields || actorType == null) {
+            throw new IllegalArgumentException("invalid target or actor type");
+        }
+        final int key = target * 2 + (actorType == ActorType.PACMAN ? 1 : 0);
+        final Table cached = table;
+        final int slot = cached.find(key);
+        if (slot != NONE) {
+            hits.increment();
+            referenced[slot] = true;
+            return cached.maps[slot];
+        }
+        final short[] map = search(target, actorType == ActorType.PACMAN);
+        synchronized (this) {
+            misses++;
+            final Table current = table;
+            final int inserted = current.find(key);
+            if (inserted != NONE) {
+                return current.maps[inserted];
+            }
+            table = insert(current, key, map);
+        }
+        return map;
+    }
+
+    /**
+     * Returns the length of the shortest path between two fields.
+     *
+     * @param from      the index of the start field.
+     * @param to        the index of the target field.
+     * @param actorType the type of the actor that walks.
+     * @return the distance or {@link #UNREACHABLE}.
+     */
+    public int getDistance(final int from, final int to, final ActorType actorType) {
+        if (from < 0 || from >= fields) {
+            throw new IllegalArgumentException("invalid start field");
+        }
+        return toDistance(getDistancesTo(to, actorType)[from]);
+    }
+
+    /**
+     * Converts an entry of a distance map to the distance.
+     *
+     * @param entry the entry of the distance map.
+     * @return the distance or {@link #UNREACHABLE}.
+     */
+    public static int toDistance(final short entry) {
+        return entry & 0xFFFF;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized int getCachedMaps() {
+        return size;
+    }
+
+    private short[] search(final int target, final boolean pacMan) {
+        final short[] map = new short[fields];
+        Arrays.fill(map, (short) UNREACHABLE);
+        if (types[target] == WALL || pacMan && types[target] == GHOST_START) {
+            return map;
+        }
+        final int[] queue = new int[fields];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = target;
+        map[target] = 0;
+        while (head < tail) {
+            final int current = queue[head++];
+            final int distance = toDistance(map[current]) + 1;
+            final int base = current * directions;
+            for (int d = 0; d < directions; d++) {
+                final int next = neighbours[base + d];
+                if (next != Board.BLOCKED && map[next] == (short) UNREACHABLE
+                        && !(pacMan && types[next] == GHOST_START)) {
+                    map[next] = (short) distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns a copy of the table with the given map, evicting a map if the cache is full. Must be invoked with the
+     * lock held.
+     */
+    private Table insert(final Table current, final int key, final short[] map) {
+        final Table next = new Table(current);
+        final int slot;
+        if (size < capacity) {
+            slot = size++;
+        } else {
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % capacity;
+            }
+            slot = hand;
+            hand = (hand + 1) % capacity;
+            next.remove(next.slotKeys[slot]);
+        }
+        referenced[slot] = false;
+        next.maps[slot] = map;
+        next.slotKeys[slot] = key;
+        next.put(key, slot);
+        return next;
+    }
+
+    /**
+     * The cached maps: an open addressing hash table from the key of a map to its slot, with linear probing. A key is
+     * the index of the target field times two, plus one for Pac-Man, who can not enter the ghost starts. The table
+     * has at least twice as many entries as there are slots, unused entries have the key {@link #NONE}.
+     * <p>
+     * A table is only changed before it is published, afterwards it is immutable.
+     */
+    private static final class Table {
+
+        private final int[] keys;
+        private final int[] slots;
+        private final int mask;
+        private final short[][] maps;
+        private final int[] slotKeys;
+
+        Table(int capacity) {
+            final int tableSize = Integer.highestOneBit(capacity) << 2;
+            keys = new int[tableSize];
+            slots = new int[tableSize];
+            mask = tableSize - 1;
+            maps = new short[capacity][];
+            slotKeys = new int[capacity];
+            Arrays.fill(keys, NONE);
+        }
+
+        Table(Table table) {
+            keys = table.keys.clone();
+            slots = table.slots.clone();
+            mask = table.mask;
+            maps = table.maps.clone();
+            slotKeys = table.slotKeys.clone();
+        }
+
+        private int home(final int key) {
+            final int hash = key * 0x9E3779B9;
+            return (hash ^ hash >>> 16) & mask;
+        }
+
+        /**
+         * Returns the slot of the map with the given key or {@link #NONE} if it is not cached.
+         */
+        int find(final int key) {
+            for (int i = home(key); keys[i] != NONE; i = i + 1 & mask) {
+                if (keys[i] == key) {
+                    return slots[i];
+                }
+            }
+            return NONE;
+        }
+
+        void put(final int key, final int slot) {
+            int i = home(key);
+            while (keys[i] != NONE) {
+                i = i + 1 & mask;
+            }
+            keys[i] = key;
+            slots[i] = slot;
+        }
+
+        /**
+         * Removes a key from the table and moves the following keys of its probe sequence back, so every key stays
+         * reachable from its home entry without markers for removed keys.
+         */
+        void remove(final int key) {
+            int gap = home(key);
+            while (keys[gap] != key) {
+                gap = gap + 1 & mask;
+            }
+            for (int i = gap + 1 & mask; keys[i] != NONE; i = i + 1 & mask) {
+                if ((i - home(keys[i]) & mask) >= (i - gap & mask)) {
+                    keys[gap] = keys[i];
+                    slots[gap] = slots[i];
+                    gap = i;
+                }
+            }
+            keys[gap] = NONE;
+        }
+    }
+}
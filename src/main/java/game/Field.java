@@ -9,57 +9,78 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
-public class Field {
+/**
+ * A single field of a {@link Board}. A field does not hold any state itself, it is a lightweight view of one entry
+ * of the packed storage of the board. Fields created by {@link #Field(FieldType)} have a single untracked cell of their
+ * own and are meant to describe a board before it is created.
+ */
+public class Field implements FieldInfo {
 
-    private FieldType type;
-    private boolean pacDot;
-    private boolean powerPellet;
-    private ExtraItem extraItem;
-    private Actor actor;
+    private final CellStore store;
+    private final int index;
 
     public Field(FieldType type) {
         if (type == null) {
             throw new IllegalArgumentException("bad fieldtype argument");
         }
-        this.type = type;
+        this.store = CellStore.untracked(type);
+        this.index = 0;
+    }
+
+    Field(CellStore store, int index) {
+        this.store = store;
+        this.index = index;
+    }
+
+    /**
+     * Returns the packed representation of this field, see {@link CellStore}.
+     */
+    int getCell() {
+        return store.cells[index];
     }
 
     public Actor getActor() {
-        return actor;
+        return store.getActor(index);
     }
 
+    @Override
     public boolean hasActor() {
-        return actor != null;
+        return store.hasActor(index);
     }
 
+    @Override
     public boolean hasPacDot() {
-        return pacDot;
+        return store.hasPacDot(index);
     }
 
+    @Override
     public boolean hasPowerPellet() {
-        return powerPellet;
+        return store.hasPowerPellet(index);
     }
 
+    @Override
     public boolean hasExtraItem() {
-        return extraItem != null;
+        return store.hasExtraItem(index);
     }
 
+    @Override
     public ExtraItem getExtraItem() {
-        return extraItem;
+        return store.getExtraItem(index);
     }
 
+    @Override
     public FieldType getType() {
-        return type;
+        return store.getType(index);
     }
 
+    @Override
     public ActorType getActorType() {
-        if (actor == null) {
-            return null;
-        }
-        return actor.getActorType();
+        return store.getActorType(index);
     }
 
+    @Override
     public GhostInfo getGhostInfo() {
+        final Actor actor = store.getActor(index);
         if (actor instanceof Ghost) {
             return (GhostInfo) actor;
         }
@@ -73,10 +94,7 @@ public class Field {
      * @throws IllegalStateException if the {@code Field} is not of type FREE.
      */
     public void setPacDot(boolean pacDot) {
-        if (type != FieldType.FREE) {
-            throw new IllegalStateException("invalid field type to place a pac-dot");
-        }
-        this.pacDot = pacDot;
+        store.setPacDot(index, pacDot);
     }
 
     /**
@@ -86,10 +104,7 @@ public class Field {
      * @throws IllegalStateException if the {@code Field} is not of type POWER_PELLET.
      */
     public void setPowerPellet(boolean powerPellet) {
-        if (type != FieldType.POWER_PELLET) {
-            throw new IllegalStateException("invalid field type to place a power pellet");
-        }
-        this.powerPellet = powerPellet;
+        store.setPowerPellet(index, powerPellet);
     }
 
     /**
@@ -100,10 +115,7 @@ public class Field {
      * @throws IllegalStateException if the {@code Field} is of type WALL or GHOST_START.
      */
     public void setExtraItem(ExtraItem extraItem) {
-        if (type == FieldType.WALL || type == FieldType.GHOST_START) {
-            throw new IllegalStateException("invalid field type to place an extra item");
-        }
-        this.extraItem = extraItem;
+        store.setExtraItem(index, extraItem);
     }
 
     /**
@@ -114,22 +126,11 @@ public class Field {
      * @throws IllegalStateException    if the {@code Actor} can not be placed on the {@code Field}.
      */
     public void placeActor(Actor actor) {
-        if (actor == null) {
-            throw new IllegalArgumentException("bad actor argument");
-        }
-        if (this.checkActor(actor) == Event.MOVE_IMPOSSIBLE) {
-            throw new IllegalStateException("actor can not be placed here");
-        }
-        this.actor = actor;
-        if (actor.getActorType() == ActorType.PACMAN) {
-            this.pacDot = false;
-            this.powerPellet = false;
-            this.extraItem = null;
-        }
+        store.placeActor(index, actor);
     }
 
     public void removeActor() {
-        this.actor = null;
+        store.removeActor(index);
     }
 
     /**
@@ -140,44 +141,7 @@ public class Field {
      * @throws IllegalArgumentException if null is passed as {@code incomingActor}
      */
     public Event checkActor(Actor incomingActor) {
-        if (incomingActor == null) {
-            throw new IllegalArgumentException("bad incoming actor argument");
-        }
-        Event e;
-        if (incomingActor.getActorType() == ActorType.PACMAN) {
-            switch (type) {
-                case WALL:
-                    e = Event.MOVE_IMPOSSIBLE;
-                    break;
-                case GHOST_START:
-                    e = Event.MOVE_IMPOSSIBLE;
-                    break;
-                default:
-                    if (actor != null) {
-                        e = Event.PACMAN_GHOST_COLLISION;
-
-                    } else {
-                        e = Event.MOVE_POSSIBLE;
-                    }
-            }
-        } else {
-            switch (type) {
-                case WALL:
-                    e = Event.MOVE_IMPOSSIBLE;
-                    break;
-                default:
-                    if (actor != null) {
-                        if (actor.getActorType() == ActorType.GHOST) {
-                            e = Event.MOVE_IMPOSSIBLE;
-                        } else {
-                            e = Event.PACMAN_GHOST_COLLISION;
-                        }
-                    } else {
-                        e = Event.MOVE_POSSIBLE;
-                    }
-            }
-        }
-        return e;
+        return store.checkActor(index, incomingActor);
     }
 
     /**
@@ -189,14 +153,14 @@ public class Field {
     public String toString() {
         StringBuilder sb = new StringBuilder("[");
         List<String> fields = new ArrayList<String>();
-        fields.add(type.toString());
-        fields.add(Boolean.toString(pacDot));
-        fields.add(Boolean.toString(powerPellet));
-        if (extraItem != null) {
-            fields.add(extraItem.toString());
+        fields.add(getType().toString());
+        fields.add(Boolean.toString(hasPacDot()));
+        fields.add(Boolean.toString(hasPowerPellet()));
+        if (hasExtraItem()) {
+            fields.add(getExtraItem().toString());
         }
-        if (actor != null) {
-            fields.add(actor.getActorType().toString());
+        if (hasActor()) {
+            fields.add(getActorType().toString());
         }
         String delimiter = ", ";
         Object o = fields.stream().collect(Collectors.joining(delimiter));
@@ -1,7 +1,30 @@
 package game;
 
+import enums.ActorType;
+import enums.ExtraItem;
 import enums.FieldType;
 
 public interface FieldInfo {
 
+    FieldType getType();
+
+    boolean hasPacDot();
+
+    boolean hasPowerPellet();
+
+    boolean hasExtraItem();
+
+    ExtraItem getExtraItem();
+
+    boolean hasActor();
+
+    ActorType getActorType();
+
+    /**
+     * Returns the information about the ghost on this field.
+     *
+     * @return the ghost on this field or null if there is no ghost.
+     */
+    GhostInfo getGhostInfo();
+
 }
@@ -0,0 +1,137 @@
+package game;
+
+import enums.ActorType;
+import enums.GameEventType;
+
+import java.util.Arrays;
+
+/**
+ * The events of one step of a game, in the order they occurred. The events are stored in a primitive buffer which is
+ * reused for every step, so a batch is only valid during the call of {@link BatchGameObserver#stepDone(GameEventBatch)}
+ * and must not be kept by the observer.
+ */
+public final class GameEventBatch {
+
+    private static final GameEventType[] EVENT_TYPES = GameEventType.values();
+    private static final ActorType[] ACTOR_TYPES = ActorType.values();
+
+    /**
+     * Number of ints per event: type, actor type (+1, 0 for none), x and y.
+     */
+    private static final int EVENT_SIZE = 4;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] events = new int[INITIAL_CAPACITY * EVENT_SIZE];
+    private int size;
+
+    /**
+     * Returns the number of events in this batch.
+     *
+     * @return the number of events.
+     */
+    public int size() {
+        return size;
+    }
+
+    public GameEventType getType(final int i) {
+        checkIndex(i);
+        return EVENT_TYPES[events[i * EVENT_SIZE]];
+    }
+
+    /**
+     * Returns the actor type of an ACTOR_SET or ACTOR_REMOVED event.
+     *
+     * @param i the index of the event.
+     * @return the actor type or null if the event has no actor.
+     */
+    public ActorType getActorType(final int i) {
+        checkIndex(i);
+        final int actorType = events[i * EVENT_SIZE + 1];
+        return actorType == 0 ? null : ACTOR_TYPES[actorType - 1];
+    }
+
+    /**
+     * Returns the x-coordinate of an ACTOR_SET, ACTOR_REMOVED, EXTRA_ITEM_PLACED or EXTRA_ITEM_VANISHED event.
+     *
+     * @param i the index of the event.
+     * @return the x-coordinate or 0 if the event has no coordinates.
+     */
+    public int getX(final int i) {
+        checkIndex(i);
+        return events[i * EVENT_SIZE + 2];
+    }
+
+    /**
+     * Returns the y-coordinate of an ACTOR_SET, ACTOR_REMOVED, EXTRA_ITEM_PLACED or EXTRA_ITEM_VANISHED event.
+     *
+     * @param i the index of the event.
+     * @return the y-coordinate or 0 if the event has no coordinates.
+     */
+    public int getY(final int i) {
+        checkIndex(i);
+        return events[i * EVENT_SIZE + 3];
+    }
+
+    /**
+     * Delivers the events of this batch, one by one, to the given observer. {@link GameObserver#stepDone()} is not
+     * called.
+     *
+     * @param observer the observer to call.
+     */
+    public void replay(final GameObserver observer) {
+        for (int i = 0; i < size; i++) {
+            final int base = i * EVENT_SIZE;
+            switch (EVENT_TYPES[events[base]]) {
+                case GAME_OVER:
+                    observer.gameOver();
+                    break;
+                case START_POWER_PELLET_MODE:
+                    observer.startPowerPelletMode();
+                    break;
+                case END_POWER_PELLET_MODE:
+                    observer.endPowerPelletMode();
+                    break;
+                case PACMAN_DIED:
+                    observer.pacManDied();
+                    break;
+                case EXTRA_ITEM_PLACED:
+                    observer.extraItemPlaced(new Point(events[base + 2], events[base + 3]));
+                    break;
+                case EXTRA_ITEM_VANISHED:
+                    observer.extraItemVanished();
+                    break;
+                case ACTOR_SET:
+                    observer.actorSet(ACTOR_TYPES[events[base + 1] - 1], events[base + 2], events[base + 3]);
+                    break;
+                case ACTOR_REMOVED:
+                    observer.actorRemoved(ACTOR_TYPES[events[base + 1] - 1], events[base + 2], events[base + 3]);
+                    break;
+                case NEXT_STAGE:
+                    observer.nextStage();
+                    break;
+            }
+        }
+    }
+
+    void add(final GameEventType type, final ActorType actorType, final int x, final int y) {
+        if ((size + 1) * EVENT_SIZE > events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        final int base = size * EVENT_SIZE;
+        events[base] = type.ordinal();
+        events[base + 1] = actorType == null ? 0 : actorType.ordinal() + 1;
+        events[base + 2] = x;
+        events[base + 3] = y;
+        size++;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void checkIndex(final int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("no event with index " + i);
+        }
+    }
+}
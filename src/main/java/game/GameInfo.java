@@ -0,0 +1,42 @@
+package game;
+
+import enums.Direction;
+
+/**
+ * Read-only view of a running game, as seen by the controllers of the actors.
+ */
+public interface GameInfo {
+
+    BoardInfo getBoardInfo();
+
+    /**
+     * Returns the current position of Pac-Man.
+     *
+     * @return the position of Pac-Man.
+     */
+    Point getPacManPosition();
+
+    /**
+     * Returns the direction of the last move of Pac-Man.
+     *
+     * @return the direction of Pac-Man.
+     */
+    Direction getPacManDirection();
+
+    boolean isPowerPelletMode();
+
+    long getScore();
+
+    int getLives();
+
+    int getStageCounter();
+
+    /**
+     * Returns the seed the game was created with. Controllers that need random numbers should derive their seed from
+     * it, so a game can be repeated.
+     *
+     * @return the seed of the game.
+     */
+    long getSeed();
+
+}
@@ -0,0 +1,296 @@
+package game;
+
+import view.FrameRenderer;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Drives a {@link PacManGame} on a thread of its own with a fixed logical tick, measured with {@link System#nanoTime()}.
+ * Every tick calls {@link PacManGame#step(long)} with the same duration, so the game behaves the same regardless of the
+ * speed of the machine.
+ * <p>
+ * If the loop falls behind, e.g. because of a GC pause, it catches up by running several ticks in a row, but at most
+ * {@code maxCatchUpTicks}. A larger backlog is dropped, so the game slows down for a moment instead of spiraling into
+ * ever longer catch-ups. Frames are rendered between the ticks at their own rate. Overruns and dropped ticks are
+ * counted.
+ */
+public class GameLoop implements AutoCloseable {
+
+    /**
+     * Default tick (in milliseconds), a tenth of the time between two moves of Pac-Man.
+     */
+    public static final long DEFAULT_TICK = 10;
+
+    /**
+     * Default number of ticks that are run in a row to catch up.
+     */
+    public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+
+    /**
+     * Default time (in nanoseconds) between two frames, i.e. 60 frames per second.
+     */
+    public static final long DEFAULT_FRAME_TIME = SECONDS.toNanos(1) / 60;
+
+    private final PacManGame game;
+    private final FrameRenderer renderer;
+    private final long tick;
+    private final long tickNanos;
+    private final long frameNanos;
+    private final int maxCatchUpTicks;
+
+    /**
+     * The source of the time in nanoseconds, {@link System#nanoTime()} unless a test replaces it.
+     */
+    private final LongSupplier clock;
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private volatile boolean paused;
+
+    private volatile long ticks;
+    private volatile long frames;
+    private volatile long overruns;
+    private volatile long droppedTicks;
+    private volatile long maxLag;
+
+    /**
+     * The times of the next tick and frame and whether the last iteration was paused, only accessed by the thread of
+     * the loop once it is started.
+     */
+    private long nextTick;
+    private long nextFrame;
+    private boolean wasPaused;
+
+    public GameLoop(PacManGame game, FrameRenderer renderer) {
+        this(game, renderer, DEFAULT_TICK, DEFAULT_MAX_CATCH_UP_TICKS, DEFAULT_FRAME_TIME);
+    }
+
+    /**
+     * Creates a new game loop. The loop does not run before {@link #start()} is called.
+     *
+     * @param game            the game to drive.
+     * @param renderer        the renderer to call between the ticks, may be null.
+     * @param tick            the duration (in milliseconds) of a tick.
+     * @param maxCatchUpTicks the maximum number of ticks run in a row if the loop is behind.
+     * @param frameTime       the time (in nanoseconds) between two frames.
+     * @throws IllegalArgumentException if the game is null or one of the numbers is not positive.
+     */
+    public GameLoop(PacManGame game, FrameRenderer renderer, long tick, int maxCatchUpTicks, long frameTime) {
+        this(game, renderer, tick, maxCatchUpTicks, frameTime, System::nanoTime);
+    }
+
+    /**
+     * Creates a new game loop that reads the time from the given clock, e.g. to test it without waiting.
+     *
+     * @param game            the game to drive.
+     * @param renderer        the renderer to call between the ticks, may be null.
+     * @param tick            the duration (in milliseconds) of a tick.
+     * @param maxCatchUpTicks the maximum number of ticks run in a row if the loop is behind.
+     * @param frameTime       the time (in nanoseconds) between two frames.
+     * @param clock           the source of the time in nanoseconds.
+     * @throws IllegalArgumentException if the game is null or one of the numbers is not positive.
+     */
+    GameLoop(PacManGame game, FrameRenderer renderer, long tick, int maxCatchUpTicks, long frameTime,
+             LongSupplier clock) {
+        if (game == null) {
+            throw new IllegalArgumentException("invalid game");
+        }
+        if (tick <= 0 || maxCatchUpTicks <= 0 || frameTime <= 0) {
+            throw new IllegalArgumentException("tick, catch-up ticks and frame time must be positive");
+        }
+        this.game = game;
+        this.renderer = renderer;
+        this.tick = tick;
+        this.tickNanos = MILLISECONDS.toNanos(tick);
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        this.frameNanos = frameTime;
+        this.clock = clock;
+        nextTick = clock.getAsLong();
+        nextFrame = nextTick;
+    }
+
+    /**
+     * Starts the thread of the loop.
+     *
+     * @throws IllegalStateException if the loop was already started.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            throw new IllegalStateException("game loop already started");
+        }
+        running = true;
+        nextTick = clock.getAsLong();
+        nextFrame = nextTick;
+        thread = new Thread(this::run, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the loop and waits for its thread to finish. If the calling thread is interrupted while waiting, it stops
+     * waiting and keeps its interrupt status.
+     */
+    @Override
+    public void close() {
+        final Thread current;
+        synchronized (this) {
+            running = false;
+            current = thread;
+        }
+        if (current != null && current != Thread.currentThread()) {
+            LockSupport.unpark(current);
+            try {
+                current.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Pauses the game. Frames are still rendered, but no ticks are run until {@link #resume()} is called.
+     */
+    public void pause() {
+        paused = true;
+    }
+
+    /**
+     * Resumes the game. The time the game was paused is not caught up.
+     */
+    public void resume() {
+        paused = false;
+        final Thread current = thread;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    /**
+     * Returns how often the loop was more than one tick behind and had to catch up.
+     *
+     * @return the number of overruns.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Returns the number of ticks that were dropped because the loop was more than {@code maxCatchUpTicks} behind.
+     *
+     * @return the number of dropped ticks.
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * Returns the largest time (in nanoseconds) the loop has been behind.
+     *
+     * @return the maximum lag.
+     */
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    private void run() {
+        while (running) {
+            advance();
+            if (renderer == null) {
+                if (paused) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                parkUntil(nextTick);
+            } else if (paused || nextFrame - nextTick < 0) {
+                parkUntil(nextFrame);
+            } else {
+                parkUntil(nextTick);
+            }
+        }
+    }
+
+    /**
+     * Runs the ticks and renders the frame that are due at the current time of the clock. After a pause the ticks
+     * start again from the current time.
+     */
+    void advance() {
+        final long now = clock.getAsLong();
+        if (paused) {
+            wasPaused = true;
+            nextTick = now;
+        } else {
+            if (wasPaused) {
+                wasPaused = false;
+                nextTick = now;
+            }
+            if (now - nextTick >= 0) {
+                nextTick = runTicks(now, nextTick);
+                if (game.isGameOver()) {
+                    running = false;
+                }
+            }
+        }
+        if (renderer != null && now - nextFrame >= 0) {
+            final double alpha = paused ? 0 : 1 - (double) (nextTick - now) / tickNanos;
+            renderer.render(Math.max(0, Math.min(alpha, Math.nextDown(1.0))));
+            frames++;
+            nextFrame += frameNanos;
+            if (now - nextFrame >= 0) {
+                nextFrame = now + frameNanos;
+            }
+        }
+    }
+
+    private void parkUntil(final long time) {
+        final long wait = time - clock.getAsLong();
+        if (wait > 0) {
+            LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    /**
+     * Runs the ticks that are due, at most {@code maxCatchUpTicks}.
+     *
+     * @return the time of the next tick.
+     */
+    private long runTicks(final long now, long nextTick) {
+        final long lag = now - nextTick;
+        if (lag > maxLag) {
+            maxLag = lag;
+        }
+        final long due = lag / tickNanos + 1;
+        if (due > 1) {
+            overruns++;
+        }
+        final long run = Math.min(due, maxCatchUpTicks);
+        for (long i = 0; i < run && !game.isGameOver(); i++) {
+            game.step(tick);
+            ticks++;
+        }
+        if (due > run) {
+            droppedTicks += due - run;
+            return nextTick + due * tickNanos;
+        }
+        return nextTick + run * tickNanos;
+    }
+}
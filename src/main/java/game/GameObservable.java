@@ -29,4 +29,24 @@ public interface GameObservable {
      */
     void removeObserver(GameObserver observer);
 
+    /**
+     * Adds the given BatchGameObserver to this observable. It receives the
+     * events of every step at once.
+     *
+     * @param observer
+     *            the BatchGameObserver to add.
+     *
+     * @throws IllegalArgumentException
+     *             if the given observer is null.
+     */
+    void addBatchObserver(BatchGameObserver observer);
+
+    /**
+     * Removes the given BatchGameObserver from this observable.
+     *
+     * @param observer
+     *            the BatchGameObserver to remove.
+     */
+    void removeBatchObserver(BatchGameObserver observer);
+
 }
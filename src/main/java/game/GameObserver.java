@@ -66,7 +66,8 @@ public interface GameObserver {
     void actorRemoved(ActorType actortype, int x, int y);
 
     /**
-     * This method is called by the GameObservable every time a step is done.
+     * This method is called by the GameObservable every time a step is done. During this call
+     * {@link PacManGame#getDirtyCells()} holds the fields that changed in the step.
      */
     void stepDone();
 
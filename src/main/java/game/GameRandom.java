@@ -0,0 +1,58 @@
+package game;
+
+/**
+ * The random number generator of a game. It produces the same numbers as {@link java.util.Random} for the same seed,
+ * but its state can be read and restored, so it can be part of a snapshot of the game. It is not thread-safe.
+ */
+final class GameRandom {
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long state;
+
+    GameRandom(long seed) {
+        setSeed(seed);
+    }
+
+    /**
+     * Resets the generator as {@link java.util.Random#setSeed(long)} does.
+     */
+    void setSeed(long seed) {
+        state = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    long getState() {
+        return state;
+    }
+
+    void setState(long state) {
+        this.state = state & MASK;
+    }
+
+    /**
+     * Returns a number between 0 (inclusive) and the given bound (exclusive), see
+     * {@link java.util.Random#nextInt(int)}.
+     *
+     * @throws IllegalArgumentException if the bound is not positive.
+     */
+    int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive");
+        }
+        int r = next(31);
+        final int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = next(31)) {
+        }
+        return r;
+    }
+
+    private int next(int bits) {
+        state = (state * MULTIPLIER + ADDEND) & MASK;
+        return (int) (state >>> (48 - bits));
+    }
+}
@@ -1,11 +1,12 @@
 package game;
 
 import enums.ActorType;
+import enums.Direction;
 import enums.GhostCharacter;
-import javafx.scene.paint.Color;
 
 public class Ghost extends Actor implements GhostInfo {
     private GhostCharacter character;
+    private Direction direction;
 
     public Ghost(final Point position, final GhostCharacter character) {
         if (position == null || character == null) {
@@ -17,8 +18,12 @@ public class Ghost extends Actor implements GhostInfo {
     }
 
     @Override
-    public Color getColor() {
-        return character.getColor();
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public void setDirection(Direction direction) {
+        this.direction = direction;
     }
 
     @Override
@@ -32,18 +37,19 @@ public class Ghost extends Actor implements GhostInfo {
         sb.append(this.actorType);
         sb.append(", character: ").append(this.character);
         sb.append(", position: (").append(this.position.x).append(",").append(this.position.y).append(")");
-        sb.append(", color: ").append(this.character.getColor().toString());
         sb.append("]");
         return sb.toString();
     }
 
+    /**
+     * Returns the first ghost start of the board that is not occupied.
+     *
+     * @param board the board to search.
+     * @return the free ghost start or null if all ghost starts are occupied.
+     */
     public Point findStartingPosition(final Board board) {
-        for (Point ghostStart : board.getGhostsStarts()) {
-            if (!board.getField(ghostStart).hasActor()) {
-                return ghostStart;
-            }
-        }
-        return null;
+        final int index = board.getFreeGhostStart();
+        return index < 0 ? null : board.pointAt(index);
     }
 
 }
@@ -1,7 +1,7 @@
 package game;
 
+import enums.Direction;
 import enums.GhostCharacter;
-import javafx.scene.paint.Color;
 
 
 public interface GhostInfo {
@@ -14,11 +14,11 @@ public interface GhostInfo {
     Point getPosition();
 
     /**
-     * Returns the color of the ghost.
+     * Returns the direction of the last move of the ghost.
      *
-     * @return the color of the ghost
+     * @return the direction of this ghost or null if it has not moved yet.
      */
-    Color getColor();
+    Direction getDirection();
 
     /**
      * Returns the character of this ghost.
@@ -0,0 +1,38 @@
+package game;
+
+import enums.Direction;
+
+/**
+ * An InputRecorder receives every input of a {@link PacManGame}: the duration of every step and every move returned
+ * by the controllers, in the order the game asked for them. Since the game is deterministic for a given seed, these
+ * inputs are enough to play the game again.
+ */
+public interface InputRecorder {
+
+    /**
+     * This method is called once when the recorder is set, before the first step of the game.
+     *
+     * @param game the game whose inputs are recorded.
+     */
+    void gameStarted(GameInfo game);
+
+    /**
+     * This method is called at the beginning of every step of a running game.
+     *
+     * @param duration the duration passed to the step.
+     */
+    void stepStarted(long duration);
+
+    /**
+     * This method is called every time a controller returned a move.
+     *
+     * @param direction the move, may be null.
+     */
+    void moveChosen(Direction direction);
+
+    /**
+     * This method is called at the end of every step of a running game.
+     */
+    void stepDone();
+
+}
@@ -0,0 +1,268 @@
+package game;
+
+import enums.FieldType;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Generates random mazes of arbitrary size, e.g. for stress tests.
+ * <p>
+ * The maze is laid out on a grid: fields with odd row and column are corridor cells, the fields between them are
+ * walls or passages. The passages are carved with the Sidewinder algorithm, which links every cell row only to the
+ * row above it. Every row therefore gets a random number generator of its own, derived from the seed and the row, and
+ * the rows are carved in parallel without any coordination. The result only depends on the seed, not on the number of
+ * threads. Afterwards a share of the remaining walls between two cells is removed to create loops.
+ * <p>
+ * Pac-Man starts in the bottom cell row. The ghosts start in the top border row (and the bottom border row, if the
+ * top one is full), above the corridor of the first cell row, so the ghost starts never block a path of Pac-Man.
+ * Tunnels open the left and right border of evenly spaced cell rows.
+ */
+public class MazeGenerator {
+
+    /**
+     * Minimum number of rows and columns of a maze.
+     */
+    public static final int MIN_SIZE = 5;
+
+    /**
+     * Number of cell rows a single task carves before it is not split any further.
+     */
+    private static final int ROWS_PER_TASK = 64;
+
+    private static final int WALL = FieldType.WALL.ordinal();
+    private static final int FREE = FieldType.FREE.ordinal();
+    private static final int POWER_PELLET = FieldType.POWER_PELLET.ordinal();
+    private static final int PACMAN_START = FieldType.PACMAN_START.ordinal();
+    private static final int GHOST_START = FieldType.GHOST_START.ordinal();
+
+    private final int rows;
+    private final int columns;
+    private final int ghostStarts;
+    private final double powerPelletDensity;
+    private final int tunnels;
+    private final double loopRatio;
+
+    /**
+     * Number of cell rows and columns of the grid.
+     */
+    private final int cellRows;
+    private final int cellColumns;
+
+    /**
+     * Creates a new generator.
+     *
+     * @param rows               the number of rows of the mazes.
+     * @param columns            the number of columns of the mazes.
+     * @param ghostStarts        the number of ghost starts, at most {@link #getMaxGhostStarts(int, int)}.
+     * @param powerPelletDensity the probability of a cell to hold a power pellet instead of a pac-dot, at least 0 and
+     *                           less than 1.
+     * @param tunnels            the number of cell rows with a tunnel to the opposite border, at most the number of
+     *                           cell rows, i.e. {@code (rows - 1) / 2}.
+     * @param loopRatio          the probability of a wall between two cells to be removed after the passages have
+     *                           been carved, 0 creates a maze without loops, 1 an open grid.
+     * @throws IllegalArgumentException if one of the arguments is out of range.
+     */
+    public MazeGenerator(int rows, int columns, int ghostStarts, double powerPelletDensity, int tunnels,
+                         double loopRatio) {
+        if (rows < MIN_SIZE || columns < MIN_SIZE || (long) rows * columns > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid size of the maze");
+        }
+        if (ghostStarts < 0 || ghostStarts > getMaxGhostStarts(rows, columns)) {
+            throw new IllegalArgumentException("invalid number of ghost starts");
+        }
+        if (!(powerPelletDensity >= 0 && powerPelletDensity < 1) || !(loopRatio >= 0 && loopRatio <= 1)) {
+            throw new IllegalArgumentException("invalid power pellet density or loop ratio");
+        }
+        if (tunnels < 0 || tunnels > (rows - 1) / 2) {
+            throw new IllegalArgumentException("invalid number of tunnels");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.ghostStarts = ghostStarts;
+        this.powerPelletDensity = powerPelletDensity;
+        this.tunnels = tunnels;
+        this.loopRatio = loopRatio;
+        this.cellRows = (rows - 1) / 2;
+        this.cellColumns = (columns - 1) / 2;
+    }
+
+    /**
+     * Returns the maximum number of ghost starts of a maze of the given size. The ghost starts are placed in the top
+     * border row, and in the bottom border row if the number of rows is odd, without the corners.
+     *
+     * @param rows    the number of rows of the maze.
+     * @param columns the number of columns of the maze.
+     * @return the maximum number of ghost starts.
+     */
+    public static int getMaxGhostStarts(final int rows, final int columns) {
+        return (rows % 2 == 1 ? 2 : 1) * (columns - 2);
+    }
+
+    /**
+     * Generates a maze on the threads of the common {@link ForkJoinPool}.
+     *
+     * @param seed the seed of the maze, the same seed always generates the same maze.
+     * @return a new board with the maze.
+     */
+    public Board generate(final long seed) {
+        return generate(seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Generates a maze on the threads of the given pool.
+     *
+     * @param seed the seed of the maze, the same seed always generates the same maze.
+     * @param pool the pool that carves the rows.
+     * @return a new board with the maze.
+     */
+    public Board generate(final long seed, final ForkJoinPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("invalid pool");
+        }
+        final Board board = new Board(rows, columns);
+        final int[] cells = board.getCells().cells;
+        pool.invoke(new CarveTask(cells, seed, 0, cellRows));
+        fillRemainingRows(cells);
+        placeTunnels(cells);
+        placeGhostStarts(cells);
+        cells[index(2 * cellRows - 1, 2 * (cellColumns / 2) + 1)] = PACMAN_START;
+        board.scanLayout();
+        return board;
+    }
+
+    /**
+     * Carves the cell row with the given number and the wall row above it.
+     */
+    private void carveRow(final int[] cells, final long seed, final int cellRow) {
+        long random = mix(seed + 0x9E3779B97F4A7C15L * (cellRow + 1));
+        final int row = 2 * cellRow + 1;
+        final int base = index(row, 0);
+        final int baseAbove = base - columns;
+        for (int column = 0; column < columns; column++) {
+            cells[base + column] = WALL;
+            cells[baseAbove + column] = WALL;
+        }
+        int runStart = 0;
+        for (int cell = 0; cell < cellColumns; cell++) {
+            final int column = 2 * cell + 1;
+            random = next(random);
+            cells[base + column] = toDouble(random) < powerPelletDensity ? POWER_PELLET : FREE;
+            final boolean last = cell == cellColumns - 1;
+            random = next(random);
+            final boolean carveEast = !last && (cellRow == 0 || toDouble(random) < 0.5);
+            if (carveEast) {
+                cells[base + column + 1] = FREE;
+            } else {
+                if (cellRow > 0) {
+                    random = next(random);
+                    final int north = runStart + (int) ((random >>> 33) % (cell - runStart + 1));
+                    cells[baseAbove + 2 * north + 1] = FREE;
+                }
+                runStart = cell + 1;
+                if (!last) {
+                    random = next(random);
+                    if (toDouble(random) < loopRatio) {
+                        cells[base + column + 1] = FREE;
+                    }
+                }
+            }
+        }
+        if (cellRow > 0 && loopRatio > 0) {
+            for (int cell = 0; cell < cellColumns; cell++) {
+                final int above = baseAbove + 2 * cell + 1;
+                random = next(random);
+                if (cells[above] == WALL && toDouble(random) < loopRatio) {
+                    cells[above] = FREE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills the rows below the last cell row with walls.
+     */
+    private void fillRemainingRows(final int[] cells) {
+        for (int i = index(2 * cellRows, 0); i < cells.length; i++) {
+            cells[i] = WALL;
+        }
+    }
+
+    private void placeTunnels(final int[] cells) {
+        for (int k = 0; k < tunnels; k++) {
+            final int row = 2 * (int) ((long) cellRows * (2 * k + 1) / (2 * tunnels)) + 1;
+            cells[index(row, 0)] = FREE;
+            for (int column = 2 * cellColumns; column < columns; column++) {
+                cells[index(row, column)] = FREE;
+            }
+        }
+    }
+
+    private void placeGhostStarts(final int[] cells) {
+        final int width = columns - 2;
+        final int top = Math.min(ghostStarts, width);
+        final int left = 1 + (width - top) / 2;
+        for (int i = 0; i < top; i++) {
+            cells[index(0, left + i)] = GHOST_START;
+        }
+        final int bottom = ghostStarts - top;
+        final int bottomLeft = 1 + (width - bottom) / 2;
+        for (int i = 0; i < bottom; i++) {
+            cells[index(rows - 1, bottomLeft + i)] = GHOST_START;
+        }
+    }
+
+    private int index(final int row, final int column) {
+        return row * columns + column;
+    }
+
+    /**
+     * The finalizer of SplitMix64, spreads the bits of consecutive seeds.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return z == 0 ? 1 : z;
+    }
+
+    private static long next(long x) {
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        return x;
+    }
+
+    private static double toDouble(final long random) {
+        return (random >>> 11) * 0x1.0p-53;
+    }
+
+    private class CarveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] cells;
+        private final long seed;
+        private final int from;
+        private final int to;
+
+        CarveTask(int[] cells, long seed, int from, int to) {
+            this.cells = cells;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int cellRow = from; cellRow < to; cellRow++) {
+                    carveRow(cells, seed, cellRow);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new CarveTask(cells, seed, from, middle), new CarveTask(cells, seed, middle, to));
+            }
+        }
+    }
+}
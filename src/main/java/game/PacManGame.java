@@ -3,18 +3,35 @@ package game;
 import enums.ActorType;
 import enums.Direction;
 import enums.ExtraItem;
+import enums.GameEventType;
 import enums.GhostCharacter;
+import jdk.jfr.FlightRecorder;
+import jfr.ActorMoveEvent;
+import jfr.CollisionEvent;
+import jfr.ExtraItemEvent;
+import jfr.LifeEvent;
+import jfr.PowerPelletModeEvent;
+import jfr.StageEvent;
+import jfr.StepEvent;
+import metrics.GameMetrics;
+import metrics.LatencyHistogram;
+import view.ActorController;
 import view.ControllerFactory;
+import view.RestorableController;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static enums.ActorType.GHOST;
 import static enums.ActorType.PACMAN;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
-public class PacManGame {
+public class PacManGame implements GameInfo, GameObservable {
     private static final long DEFAULT_SEED = 250;
 
     private static final int PACMAN_LIVES = 3;
@@ -31,6 +48,48 @@ public class PacManGame {
      * Time (in milliseconds) between the appearance of new extra items.
      */
     private static final long NEW_EXTRA_ITEM_TIME = SECONDS.toMillis(20);
+    /**
+     * Time (in milliseconds) between two moves of Pac-Man.
+     */
+    public static final long PACMAN_MOVE_TIME = 100;
+    /**
+     * Time (in milliseconds) between two moves of the ghosts.
+     */
+    private static final long GHOST_MOVE_TIME = 125;
+
+    /**
+     * Number of bit planes written by {@link #writeBitPlanes(long[], int)}, followed by the index of each plane.
+     */
+    public static final int BIT_PLANES = 5;
+    public static final int WALL_PLANE = 0;
+    public static final int PAC_DOT_PLANE = 1;
+    public static final int POWER_PELLET_PLANE = 2;
+    public static final int GHOST_PLANE = 3;
+    public static final int PACMAN_PLANE = 4;
+
+    /**
+     * First bytes of a snapshot, see {@link #snapshot(ByteBuffer)}.
+     */
+    private static final int SNAPSHOT_MAGIC = 0x50414331;
+    private static final byte SNAPSHOT_VERSION = 1;
+    /**
+     * Size (in bytes) of a snapshot without the ghosts and the fields.
+     */
+    private static final int SNAPSHOT_HEADER_SIZE = 103;
+    private static final int SNAPSHOT_GHOST_SIZE = 13;
+    private static final int GAME_OVER_FLAG = 1;
+    private static final int POWER_PELLET_MODE_FLAG = 2;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final GhostCharacter[] GHOST_CHARACTERS = GhostCharacter.values();
+    private static final ExtraItem[] EXTRA_ITEMS = ExtraItem.values();
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    /**
+     * Unique id of this game within the JVM.
+     */
+    private final long id = NEXT_ID.incrementAndGet();
 
     private Board board;
 
@@ -38,9 +97,11 @@ public class PacManGame {
     private boolean powerPelletMode;
 
     /**
-     * The last time the step() method was invoked (as measured by {@link System.currentTimeMillis()})
+     * The time (as measured by {@link System#nanoTime()}) up to which step() has passed the elapsed time to the game.
+     * Only whole milliseconds are passed, the remainder is carried over to the next invocation.
      */
     private long lastStepInvocation;
+    private boolean stepInvoked;
 
     /**
      * Counts the time until the next move for Pac-Man.
@@ -83,12 +144,42 @@ public class PacManGame {
     private int pacDotCounter;
     private int lives;
 
-    private Random random;
+    private final long seed;
+    private final GameRandom random;
+    private final ControllerFactory controllerFactory;
 
     private List<GameObserver> observers;
+    private List<BatchGameObserver> batchObservers;
+
+    /**
+     * The events of the current step, only recorded if there are batch observers.
+     */
+    private final GameEventBatch eventBatch = new GameEventBatch();
     private List<Ghost> ghosts;
     private PacMan pacMan;
 
+    private InputRecorder inputRecorder;
+
+    private GameMetrics metrics;
+
+    /**
+     * The latencies of the observers and of the batch observers, in the same order as the observers. Only used if
+     * metrics are set.
+     */
+    private final List<LatencyHistogram> observerLatencies = new ArrayList<>();
+    private final List<LatencyHistogram> batchObserverLatencies = new ArrayList<>();
+
+    /**
+     * The time (in nanoseconds) every observer spent on the events of the current step so far, in the same order as
+     * the observers. Only used if metrics are set.
+     */
+    private long[] observerTimes = new long[0];
+
+    /**
+     * Indicates whether a step was performed, after that no input recorder can be set.
+     */
+    private boolean started;
+
     public PacManGame(Board board, ControllerFactory controllerFactory) {
         this(board, DEFAULT_SEED, controllerFactory);
     }
@@ -99,13 +190,16 @@ public class PacManGame {
         }
         this.board = board;
         this.board.initBoard();
+        this.seed = seed;
+        this.controllerFactory = controllerFactory;
 
         observers = new ArrayList<GameObserver>();
+        batchObservers = new ArrayList<BatchGameObserver>();
 
         extraItemDuration = EXTRA_ITEM_TIME;
         extraItemPosition = null;
 
-        random = new Random(DEFAULT_SEED);
+        random = new GameRandom(seed);
 
         setPacManOnBoard();
         setGhostsOnBoard();
@@ -119,22 +213,20 @@ public class PacManGame {
         final Point pacManStart = board.getPacManStart();
         pacMan = new PacMan(pacManStart);
         board.getField(pacManStart).placeActor(pacMan);
-        notifyObserversActorSet(PACMAN, pacManStart.x, pacManStart.x);
-        // pacman.initController
+        notifyObserversActorSet(PACMAN, pacManStart.x, pacManStart.y);
+        pacMan.initController(controllerFactory.getPacManController(this));
     }
 
     private void setGhostsOnBoard() {
         ghosts = new ArrayList<>();
         final int startPoints = board.getGhostsStarts().size();
-        if (startPoints > 0) {
-            for (int i = 0; i < startPoints && i <= 3; i++) {
-                final Ghost ghost = new Ghost(board.getGhostsStarts().get(i), getGhostChar(i));
-                final Point ghostPosition = ghost.getPosition();
-                board.getField(ghostPosition.x, ghostPosition.y).placeActor(ghost);
-                notifyObserversActorSet(GHOST, ghostPosition.x, ghostPosition.y);
-                // ghost initcontroller
-                ghosts.add(ghost);
-            }
+        for (int i = 0; i < startPoints; i++) {
+            final Ghost ghost = new Ghost(board.getGhostsStarts().get(i), getGhostChar(i % GHOST_CHARACTERS.length));
+            final Point ghostPosition = ghost.getPosition();
+            board.getField(ghostPosition.x, ghostPosition.y).placeActor(ghost);
+            notifyObserversActorSet(GHOST, ghostPosition.x, ghostPosition.y);
+            ghost.initController(controllerFactory.getGhostController(this, ghost));
+            ghosts.add(ghost);
         }
     }
 
@@ -159,12 +251,362 @@ public class PacManGame {
         return ghostCharacter;
     }
 
+    @Override
+    public BoardInfo getBoardInfo() {
+        return board;
+    }
+
+    @Override
+    public Point getPacManPosition() {
+        return pacMan.getPosition();
+    }
+
+    @Override
+    public Direction getPacManDirection() {
+        return pacMan.getDirection();
+    }
+
+    @Override
+    public boolean isPowerPelletMode() {
+        return powerPelletMode;
+    }
+
+    @Override
+    public long getScore() {
+        return score;
+    }
+
+    @Override
+    public int getStageCounter() {
+        return stageCounter;
+    }
+
+    @Override
+    public int getLives() {
+        return lives;
+    }
+
+    @Override
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the field of the extra item on the board.
+     *
+     * @return the position of the extra item or null if there is none.
+     */
+    public Point getExtraItemPosition() {
+        return extraItemPosition;
+    }
+
+    /**
+     * Returns the extra item on the board.
+     *
+     * @return the extra item or null if there is none.
+     */
+    public ExtraItem getExtraItem() {
+        final Point position = extraItemPosition;
+        return position == null ? null : board.getCells().getExtraItem(board.indexOf(position));
+    }
+
+    /**
+     * Returns the id of this game, unique within the JVM. It identifies the game in the events of the flight recorder.
+     *
+     * @return the id of the game.
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the fields that changed in the current step. The set is only valid while the observers are notified
+     * that the step is done, afterwards it is cleared for the next step.
+     *
+     * @return the changed fields, read-only.
+     */
+    public DirtyCells getDirtyCells() {
+        return board.getCells().getDirtyCells();
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Returns the number of {@code long}s of a single bit plane, see {@link #writeBitPlanes(long[], int)}.
+     *
+     * @return the number of words per plane.
+     */
+    public int getBitPlaneWords() {
+        return (board.getNumberOfFields() + 63) >>> 6;
+    }
+
+    /**
+     * Writes the board as {@link #BIT_PLANES} consecutive bit planes of {@link #getBitPlaneWords()} words each, in the
+     * order walls, pac-dots, power pellets, ghosts and Pac-Man. Bit {@code i % 64} of word {@code i / 64} of a plane is
+     * set if the field with index {@code i} has the respective property, see {@link BoardInfo#indexOf(int, int)}.
+     *
+     * @param planes the array to write to.
+     * @param offset the index of the first word to write.
+     * @throws ArrayIndexOutOfBoundsException if the array is too small.
+     */
+    public synchronized void writeBitPlanes(final long[] planes, final int offset) {
+        board.getCells().writeBitPlanes(planes, offset);
+    }
+
+    /**
+     * Returns the number of bytes of a snapshot of this game.
+     *
+     * @return the size of a snapshot.
+     */
+    public int getSnapshotSize() {
+        return SNAPSHOT_HEADER_SIZE + ghosts.size() * SNAPSHOT_GHOST_SIZE + board.getNumberOfFields();
+    }
+
+    /**
+     * Takes a snapshot of this game.
+     *
+     * @return a new buffer holding the snapshot, ready to be read.
+     * @see #snapshot(ByteBuffer)
+     */
+    public ByteBuffer snapshot() {
+        final ByteBuffer buffer = ByteBuffer.allocate(getSnapshotSize());
+        snapshot(buffer);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Writes a snapshot of the complete state of this game to the buffer, starting at its position: the items on the
+     * fields, the positions and directions of the actors, the timers, score, lives, stage and the state of the random
+     * number generator. The state of controllers implementing {@link RestorableController} is included, the state of
+     * other controllers and the observers are not part of the snapshot.
+     * <p>
+     * The snapshot takes {@link #getSnapshotSize()} bytes and can be restored into any game on a board with the same
+     * layout, e.g. a game on a {@link Board#copy() copy} of the board.
+     *
+     * @param buffer the buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer has not enough space left.
+     */
+    public synchronized void snapshot(final ByteBuffer buffer) {
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.put(SNAPSHOT_VERSION);
+        buffer.putInt(board.getNumberOfRows());
+        buffer.putInt(board.getNumberOfColumns());
+        buffer.putInt(ghosts.size());
+        buffer.put((byte) ((gameOver ? GAME_OVER_FLAG : 0) | (powerPelletMode ? POWER_PELLET_MODE_FLAG : 0)));
+        buffer.putLong(pacManMoveDuration);
+        buffer.putLong(ghostMoveDuration);
+        buffer.putLong(powerPelletDuration);
+        buffer.putLong(extraItemDuration);
+        buffer.putLong(newExtraItemDuration);
+        buffer.putInt(extraItemPosition == null ? -1 : board.indexOf(extraItemPosition));
+        buffer.putLong(score);
+        buffer.putInt(stageCounter);
+        buffer.putInt(pacDotCounter);
+        buffer.putInt(lives);
+        buffer.putLong(random.getState());
+        buffer.putInt(board.indexOf(pacMan.getPosition()));
+        buffer.put((byte) pacMan.getDirection().ordinal());
+        buffer.putLong(getControllerState(pacMan));
+        for (int i = 0; i < ghosts.size(); i++) {
+            final Ghost ghost = ghosts.get(i);
+            buffer.putInt(board.indexOf(ghost.getPosition()));
+            buffer.put((byte) (ghost.getDirection() == null ? -1 : ghost.getDirection().ordinal()));
+            buffer.putLong(getControllerState(ghost));
+        }
+        board.getCells().writeItems(buffer);
+    }
+
+    /**
+     * Creates an independent copy of this game on a copy of its board. The copy is in the same state as this game,
+     * but its actors are driven by the controllers of the given factory and it has no observers.
+     *
+     * @param factory the factory of the controllers of the copy.
+     * @return the copy of this game.
+     * @throws IllegalArgumentException if the factory is null.
+     */
+    public synchronized PacManGame fork(final ControllerFactory factory) {
+        final PacManGame copy = new PacManGame(board.copy(), seed, factory);
+        copy.restore(snapshot());
+        return copy;
+    }
+
+    /**
+     * Restores the state of a snapshot written by {@link #snapshot(ByteBuffer)}, starting at the position of the
+     * buffer. The observers are not notified about the changes. The game is left unchanged if the snapshot is invalid.
+     *
+     * @param buffer the buffer to read from.
+     * @throws IllegalArgumentException if the buffer does not hold a snapshot of a game on the same layout.
+     */
+    public synchronized void restore(final ByteBuffer buffer) {
+        if (buffer.remaining() < getSnapshotSize() || buffer.getInt() != SNAPSHOT_MAGIC
+                || buffer.get() != SNAPSHOT_VERSION) {
+            throw new IllegalArgumentException("invalid snapshot");
+        }
+        if (buffer.getInt() != board.getNumberOfRows() || buffer.getInt() != board.getNumberOfColumns()
+                || buffer.getInt() != ghosts.size()) {
+            throw new IllegalArgumentException("snapshot does not match the board of this game");
+        }
+        // read and check everything before the first change, so an invalid snapshot leaves the game as it was
+        final int flags = buffer.get();
+        final long restoredPacManMoveDuration = buffer.getLong();
+        final long restoredGhostMoveDuration = buffer.getLong();
+        final long restoredPowerPelletDuration = buffer.getLong();
+        final long restoredExtraItemDuration = buffer.getLong();
+        final long restoredNewExtraItemDuration = buffer.getLong();
+        final int extraItemIndex = buffer.getInt();
+        final long restoredScore = buffer.getLong();
+        final int restoredStageCounter = buffer.getInt();
+        final int restoredPacDotCounter = buffer.getInt();
+        final int restoredLives = buffer.getInt();
+        final long randomState = buffer.getLong();
+        final int pacManIndex = buffer.getInt();
+        final int pacManDirection = buffer.get();
+        final long pacManState = buffer.getLong();
+        final int ghostsStart = buffer.position();
+        final int itemsStart = ghostsStart + ghosts.size() * SNAPSHOT_GHOST_SIZE;
+        final int fields = board.getNumberOfFields();
+        boolean valid = extraItemIndex >= -1 && extraItemIndex < fields && pacManIndex >= 0 && pacManIndex < fields
+                && pacManDirection >= 0 && pacManDirection < DIRECTIONS.length;
+        for (int i = 0; i < ghosts.size(); i++) {
+            final int index = buffer.getInt(ghostsStart + i * SNAPSHOT_GHOST_SIZE);
+            final int direction = buffer.get(ghostsStart + i * SNAPSHOT_GHOST_SIZE + 4);
+            valid &= index >= 0 && index < fields && direction >= -1 && direction < DIRECTIONS.length;
+        }
+        final CellStore cells = board.getCells();
+        if (!valid || !cells.matchesItems(buffer, itemsStart)) {
+            throw new IllegalArgumentException("snapshot does not match the board of this game");
+        }
+        gameOver = (flags & GAME_OVER_FLAG) != 0;
+        powerPelletMode = (flags & POWER_PELLET_MODE_FLAG) != 0;
+        pacManMoveDuration = restoredPacManMoveDuration;
+        ghostMoveDuration = restoredGhostMoveDuration;
+        powerPelletDuration = restoredPowerPelletDuration;
+        extraItemDuration = restoredExtraItemDuration;
+        newExtraItemDuration = restoredNewExtraItemDuration;
+        extraItemPosition = extraItemIndex < 0 ? null : board.pointAt(extraItemIndex);
+        score = restoredScore;
+        stageCounter = restoredStageCounter;
+        pacDotCounter = restoredPacDotCounter;
+        lives = restoredLives;
+        random.setState(randomState);
+        pacMan.setPosition(board.pointAt(pacManIndex));
+        pacMan.setDirection(DIRECTIONS[pacManDirection]);
+        setControllerState(pacMan, pacManState);
+        buffer.position(itemsStart);
+        cells.readItems(buffer);
+        final int end = buffer.position();
+        // the actors of a game that is over were removed from the board
+        if (!gameOver) {
+            cells.setOccupant(pacManIndex, pacMan);
+        }
+        buffer.position(ghostsStart);
+        for (int i = 0; i < ghosts.size(); i++) {
+            final Ghost ghost = ghosts.get(i);
+            final int index = buffer.getInt();
+            final int direction = buffer.get();
+            ghost.setPosition(board.pointAt(index));
+            ghost.setDirection(direction < 0 ? null : DIRECTIONS[direction]);
+            setControllerState(ghost, buffer.getLong());
+            if (!gameOver) {
+                cells.setOccupant(index, ghost);
+            }
+        }
+        buffer.position(end);
+        started = true;
+        stepInvoked = false;
+        eventBatch.clear();
+    }
+
+    /**
+     * Sets the recorder that receives the inputs of this game. The inputs can only be recorded from the start of the
+     * game, so the recorder has to be set before the first step.
+     *
+     * @param recorder the recorder, null to stop recording.
+     * @throws IllegalStateException if a recorder is set after the first step.
+     */
+    public synchronized void setInputRecorder(final InputRecorder recorder) {
+        if (recorder != null && started) {
+            throw new IllegalStateException("inputs can only be recorded from the start of a game");
+        }
+        inputRecorder = recorder;
+        if (recorder != null) {
+            recorder.gameStarted(this);
+        }
+    }
+
+    /**
+     * Sets the metrics this game records its steps, moves, collisions and observers into. The metrics are recorded on
+     * the thread that steps the game, so they must not be shared with another game.
+     *
+     * @param metrics the metrics, null to stop recording.
+     */
+    public synchronized void setMetrics(final GameMetrics metrics) {
+        this.metrics = metrics;
+        observerLatencies.clear();
+        batchObserverLatencies.clear();
+        if (metrics != null) {
+            for (GameObserver observer : observers) {
+                observerLatencies.add(metrics.addListener(observer));
+            }
+            observerTimes = new long[observers.size()];
+            for (BatchGameObserver observer : batchObservers) {
+                batchObserverLatencies.add(metrics.addListener(observer));
+            }
+        }
+    }
+
+    /**
+     * Reseeds the random number generator of this game and of the controllers implementing
+     * {@link RestorableController}, e.g. to play an episode from a restored snapshot with new randomness. The game is
+     * in the state it would be in if it had been created with this seed, except for the state of the board and the
+     * actors. {@link #getSeed()} keeps returning the seed the game was created with.
+     *
+     * @param seed the new seed.
+     */
+    public synchronized void reseed(final long seed) {
+        random.setSeed(seed);
+        reseedController(pacMan, seed);
+        for (int i = 0; i < ghosts.size(); i++) {
+            reseedController(ghosts.get(i), seed);
+        }
+    }
+
+    private static void reseedController(final Actor actor, final long seed) {
+        final ActorController controller = actor.getController();
+        if (controller instanceof RestorableController) {
+            ((RestorableController) controller).reseed(seed);
+        }
+    }
+
+    private static long getControllerState(final Actor actor) {
+        final ActorController controller = actor.getController();
+        return controller instanceof RestorableController ? ((RestorableController) controller).getState() : 0;
+    }
+
+    private static void setControllerState(final Actor actor, final long state) {
+        final ActorController controller = actor.getController();
+        if (controller instanceof RestorableController) {
+            ((RestorableController) controller).setState(state);
+        }
+    }
+
+    /**
+     * Performs one step in the game, passing the time elapsed since the previous invocation. For a steady pace use a
+     * {@link GameLoop}, which steps the game with a fixed duration.
+     */
     public synchronized void step() {
+        final long now = System.nanoTime();
         long duration = 1;
-        if (lastStepInvocation != 0) {
-            duration = System.currentTimeMillis() - lastStepInvocation;
+        if (stepInvoked) {
+            duration = NANOSECONDS.toMillis(now - lastStepInvocation);
+            lastStepInvocation += MILLISECONDS.toNanos(duration);
+        } else {
+            lastStepInvocation = now;
+            stepInvoked = true;
         }
-        lastStepInvocation = System.currentTimeMillis();
         step(duration);
     }
 
@@ -177,6 +619,16 @@ public class PacManGame {
         if (gameOver) {
             return;
         }
+        final long start = metrics == null ? 0 : System.nanoTime();
+        final StepEvent stepEvent = FlightRecorder.isInitialized() && Events.STEP.isEnabled()
+                ? new StepEvent() : null;
+        if (stepEvent != null) {
+            stepEvent.begin();
+        }
+        started = true;
+        if (inputRecorder != null) {
+            inputRecorder.stepStarted(duration);
+        }
         if (powerPelletMode) {
             if (powerPelletDuration - duration <= 0) {
                 powerPelletMode = false;
@@ -188,10 +640,11 @@ public class PacManGame {
         }
         if (extraItemPosition != null) {
             if (extraItemDuration - duration <= 0) {
-                board.getField(extraItemPosition).setExtraItem(null);
+                final Point vanished = extraItemPosition;
+                board.getCells().setExtraItem(board.indexOf(vanished), null);
                 extraItemDuration = EXTRA_ITEM_TIME;
                 extraItemPosition = null;
-                notifyObserversExtraItemVanished();
+                notifyObserversExtraItemVanished(vanished);
             } else {
                 extraItemDuration -= duration;
             }
@@ -203,17 +656,70 @@ public class PacManGame {
         } else {
             newExtraItemDuration += duration;
         }
-        int stage = stageCounter;
+        final int stage = stageCounter;
+        final int livesBefore = lives;
         if (pacManMoveDuration - duration <= 0) {
-            Direction pacmanDirection = pacMan.getMove();
+            Direction pacmanDirection = getMove(pacMan);
+            if (inputRecorder != null) {
+                inputRecorder.moveChosen(pacmanDirection);
+            }
             if (move(pacMan, pacmanDirection)) {
                 pacMan.setDirection(pacmanDirection);
             }
-
-
+            pacManMoveDuration = PACMAN_MOVE_TIME;
+        } else {
+            pacManMoveDuration -= duration;
         }
+        if (pacDotCounter == board.getPacDotsOnStart()) {
+            nextStage();
+        }
+        if (ghostMoveDuration - duration <= 0) {
+            for (int i = 0; i < ghosts.size() && lives == livesBefore && stageCounter == stage && !gameOver; i++) {
+                final Ghost ghost = ghosts.get(i);
+                final Direction ghostDirection = getMove(ghost);
+                if (inputRecorder != null) {
+                    inputRecorder.moveChosen(ghostDirection);
+                }
+                if (move(ghost, ghostDirection)) {
+                    ghost.setDirection(ghostDirection);
+                }
+            }
+            ghostMoveDuration = GHOST_MOVE_TIME;
+        } else {
+            ghostMoveDuration -= duration;
+        }
+        if (inputRecorder != null) {
+            inputRecorder.stepDone();
+        }
+        notifyObserversStepDone();
+        if (metrics != null) {
+            metrics.getSteps().increment();
+            metrics.getStepLatency().record(System.nanoTime() - start);
+        }
+        if (stepEvent != null) {
+            stepEvent.end();
+            if (stepEvent.shouldCommit()) {
+                stepEvent.gameId = id;
+                stepEvent.stepDuration = duration;
+                stepEvent.stage = stageCounter;
+                stepEvent.score = score;
+                stepEvent.commit();
+            }
+        }
+    }
 
-
+    /**
+     * Asks the controller of the actor for its move and records the time it took, if metrics are set.
+     */
+    private Direction getMove(final Actor actor) {
+        if (metrics == null) {
+            return actor.getMove();
+        }
+        final long start = System.nanoTime();
+        final Direction move = actor.getMove();
+        metrics.getMoves().increment();
+        metrics.getMoveLatency().record(System.nanoTime() - start);
+        return move;
     }
 
     private boolean move(final Actor actor, final Direction direction) {
@@ -224,79 +730,59 @@ public class PacManGame {
             return false;
         }
 
-        int newX = actor.getPosition().x;
-        int newY = actor.getPosition().y;
-        switch (direction) {
-            case UP:
-                if (newX - 1 < 0) {
-                    newX = board.getBoard().length - 1;
-                } else {
-                    newX--;
-                }
-                break;
-            case DOWN:
-                if (newX + 1 == board.getBoard().length) {
-                    newX = 0;
-                } else {
-                    newX++;
-                }
-                break;
-            case LEFT:
-                if (newY - 1 < 0) {
-                    newY = board.getBoard()[0].length - 1;
-                } else {
-                    newY--;
-                }
-                break;
-            case RIGHT:
-                if (newY + 1 == board.getBoard()[0].length) {
-                    newY = 0;
-                } else {
-                    newY++;
-                }
-                break;
+        final int newIndex = board.getNeighbour(board.indexOf(actor.getPosition()), direction);
+        if (newIndex == Board.BLOCKED) {
+            return false;
         }
-        return turn(actor, newX, newY);
+        return turn(actor, newIndex);
     }
 
     public boolean turn(final Actor actor, final int newX, final int newY) {
-        Point currentPos = actor.getPosition();
-        final Field newField = board.getField(newX, newY);
-        switch (newField.checkActor(actor)) {
+        return turn(actor, board.indexOf(newX, newY));
+    }
+
+    private boolean turn(final Actor actor, final int newIndex) {
+        final CellStore cells = board.getCells();
+        final Point currentPos = actor.getPosition();
+        final int currentIndex = board.indexOf(currentPos);
+        final int newX = board.getRow(newIndex);
+        final int newY = board.getColumn(newIndex);
+        switch (cells.checkActor(newIndex, actor)) {
             case MOVE_IMPOSSIBLE:
                 return false;
             case MOVE_POSSIBLE:
                 if (actor instanceof PacMan) {
-                    if (newField.hasPacDot()) {
-                        handlePacManEatsPacDot(newField);
+                    if (cells.hasPacDot(newIndex)) {
+                        handlePacManEatsPacDot(newIndex);
                     }
-                    if (newField.hasPowerPellet()) {
-                        handlePacManEatsPowerPellet(newField);
+                    if (cells.hasPowerPellet(newIndex)) {
+                        handlePacManEatsPowerPellet(newIndex);
                     }
-                    if (newField.hasExtraItem()) {
-                        handlePacManEatsExtraItem(newField);
+                    if (cells.hasExtraItem(newIndex)) {
+                        handlePacManEatsExtraItem(newIndex);
                     }
                 }
-                board.getField(currentPos).removeActor();
+                cells.removeActor(currentIndex);
                 notifyObserversActorRemoved(actor.getActorType(), currentPos.x, currentPos.y);
-                actor.setPosition(newX, newY);
-                board.getField(newX, newY).placeActor(actor);
+                actor.setPosition(board.pointAt(newIndex));
+                cells.placeActor(newIndex, actor);
                 notifyObserversActorSet(actor.getActorType(), newX, newY);
+                commitActorMoveEvent(actor, currentPos, newX, newY);
                 return true;
             case PACMAN_GHOST_COLLISION:
+                if (metrics != null) {
+                    metrics.getCollisions().increment();
+                }
+                commitCollisionEvent(actor, newX, newY);
                 if (powerPelletMode) {
                     if (actor instanceof Ghost) {
-                        board.getField(currentPos.x, currentPos.y).removeActor();
-                        notifyObserversActorRemoved(actor.getActorType(), currentPos.x, currentPos.y);
-
-                        Point ghostStart = ((Ghost) actor).findStartingPosition(board);
-                        actor.setPosition(ghostStart);
-                        board.getField(ghostStart).placeActor(actor);
-                        notifyObserversActorSet(GHOST, ghostStart.x, ghostStart.y);
-                        score += 25 * stageCounter;
+                        handlePacManEatsGhost((Ghost) actor);
                     } else {
-
+                        handlePacManEatsGhost((Ghost) cells.getActor(newIndex));
+                        return turn(actor, newIndex);
                     }
+                } else {
+                    nextLife();
                 }
 
         }
@@ -304,74 +790,333 @@ public class PacManGame {
         return false;
     }
 
-    private void handlePacManEatsPacDot(final Field field) {
+    /**
+     * Sends the eaten ghost back to a free starting position.
+     */
+    private void handlePacManEatsGhost(final Ghost ghost) {
+        final CellStore cells = board.getCells();
+        final Point ghostPos = ghost.getPosition();
+        cells.removeActor(board.indexOf(ghostPos));
+        notifyObserversActorRemoved(GHOST, ghostPos.x, ghostPos.y);
+
+        Point ghostStart = ghost.findStartingPosition(board);
+        ghost.setPosition(ghostStart);
+        ghost.setDirection(null);
+        cells.placeActor(board.indexOf(ghostStart), ghost);
+        notifyObserversActorSet(GHOST, ghostStart.x, ghostStart.y);
+        score += 25 * stageCounter;
+    }
+
+    private void handlePacManEatsPacDot(final int index) {
         pacDotCounter++;
         score++;
-        field.setPacDot(false);
+        board.getCells().setPacDot(index, false);
     }
 
-    private void handlePacManEatsPowerPellet(final Field field) {
+    private void handlePacManEatsPowerPellet(final int index) {
         score += 30;
-        field.setPowerPellet(false);
+        board.getCells().setPowerPellet(index, false);
         powerPelletMode = true;
         powerPelletDuration = POWER_PELLET_TIME;
         notifyObserversStartPowerPelletMode();
     }
 
-    private void handlePacManEatsExtraItem(final Field field) {
-        score += field.getExtraItem().getPoints();
-        field.setExtraItem(null);
+    private void handlePacManEatsExtraItem(final int index) {
+        score += board.getCells().getExtraItem(index).getPoints();
+        board.getCells().setExtraItem(index, null);
         extraItemPosition = null;
-        notifyObserversExtraItemVanished();
+        notifyObserversExtraItemVanished(board.pointAt(index));
     }
 
+    /**
+     * Places a random extra item on a random field that is not occupied by an actor. If every field is occupied, no
+     * extra item is placed.
+     */
     private void placeExtraItem() {
-        Point possibleExtraItemField;
-        do {
-            possibleExtraItemField = getRandomExtraItemField();
-        } while (board.getField(possibleExtraItemField).hasActor());
-
-        board.getField(possibleExtraItemField).setExtraItem(ExtraItem.values()[random.nextInt(4)]);
-        extraItemPosition = possibleExtraItemField;
+        final int freeFields = board.getFreeExtraItemFieldCount();
+        if (freeFields == 0) {
+            return;
+        }
+        final int index = board.getFreeExtraItemField(random.nextInt(freeFields));
+        board.getCells().setExtraItem(index, EXTRA_ITEMS[random.nextInt(4)]);
+        extraItemPosition = board.pointAt(index);
         notifyObserversExtraItemPlaced(extraItemPosition);
     }
 
-    private Point getRandomExtraItemField() {
-        final int randomIdx = random.nextInt(board.getExtraItemFields().size());
-        return board.getExtraItemFields().get(randomIdx);
+    @Override
+    public synchronized void addObserver(final GameObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("invalid observer");
+        }
+        observers.add(observer);
+        if (metrics != null) {
+            observerLatencies.add(metrics.addListener(observer));
+            observerTimes = Arrays.copyOf(observerTimes, observers.size());
+        }
+    }
+
+    @Override
+    public synchronized void removeObserver(final GameObserver observer) {
+        final int index = observers.indexOf(observer);
+        if (index >= 0) {
+            observers.remove(index);
+            if (metrics != null) {
+                observerLatencies.remove(index);
+                System.arraycopy(observerTimes, index + 1, observerTimes, index, observers.size() - index);
+                observerTimes[observers.size()] = 0;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void addBatchObserver(final BatchGameObserver observer) {
+        if (observer == null) {
+            throw new IllegalArgumentException("invalid observer");
+        }
+        batchObservers.add(observer);
+        if (metrics != null) {
+            batchObserverLatencies.add(metrics.addListener(observer));
+        }
+    }
+
+    @Override
+    public synchronized void removeBatchObserver(final BatchGameObserver observer) {
+        final int index = batchObservers.indexOf(observer);
+        if (index >= 0) {
+            batchObservers.remove(index);
+            if (metrics != null) {
+                batchObserverLatencies.remove(index);
+            }
+        }
+        if (batchObservers.isEmpty()) {
+            eventBatch.clear();
+        }
+    }
+
+    private void commitActorMoveEvent(final Actor actor, final Point from, final int toRow, final int toColumn) {
+        if (!FlightRecorder.isInitialized() || !Events.ACTOR_MOVE.isEnabled()) {
+            return;
+        }
+        final ActorMoveEvent event = new ActorMoveEvent();
+        if (event.shouldCommit()) {
+            event.gameId = id;
+            event.actorType = actor.getActorType().name();
+            event.fromRow = from.x;
+            event.fromColumn = from.y;
+            event.toRow = toRow;
+            event.toColumn = toColumn;
+            event.commit();
+        }
+    }
+
+    private void commitCollisionEvent(final Actor actor, final int row, final int column) {
+        if (!FlightRecorder.isInitialized() || !Events.COLLISION.isEnabled()) {
+            return;
+        }
+        final CollisionEvent event = new CollisionEvent();
+        if (event.shouldCommit()) {
+            event.gameId = id;
+            event.actorType = actor.getActorType().name();
+            event.row = row;
+            event.column = column;
+            event.powerPelletMode = powerPelletMode;
+            event.commit();
+        }
     }
 
+    private void commitExtraItemEvent(final boolean placed, final Point p) {
+        if (!FlightRecorder.isInitialized() || !Events.EXTRA_ITEM.isEnabled()) {
+            return;
+        }
+        final ExtraItemEvent event = new ExtraItemEvent();
+        if (event.shouldCommit()) {
+            event.gameId = id;
+            event.placed = placed;
+            event.row = p.x;
+            event.column = p.y;
+            event.commit();
+        }
+    }
+
+    private void commitPowerPelletModeEvent(final boolean started) {
+        if (!FlightRecorder.isInitialized() || !Events.POWER_PELLET_MODE.isEnabled()) {
+            return;
+        }
+        final PowerPelletModeEvent event = new PowerPelletModeEvent();
+        if (event.shouldCommit()) {
+            event.gameId = id;
+            event.started = started;
+            event.commit();
+        }
+    }
+
+    private void commitStageEvent() {
+        if (!FlightRecorder.isInitialized() || !Events.STAGE.isEnabled()) {
+            return;
+        }
+        final StageEvent event = new StageEvent();
+        if (event.shouldCommit()) {
+            event.gameId = id;
+            event.stage = stageCounter;
+            event.score = score;
+            event.commit();
+        }
+    }
+
+    private void commitLifeEvent() {
+        if (!FlightRecorder.isInitialized() || !Events.LIFE.isEnabled()) {
+            return;
+        }
+        final LifeEvent event = new LifeEvent();
+        if (event.shouldCommit()) {
+            event.gameId = id;
+            event.livesLeft = lives;
+            event.gameOver = gameOver;
+            event.score = score;
+            event.commit();
+        }
+    }
 
     private void notifyObserversActorSet(final ActorType actorType, final int x, final int y) {
-        observers.forEach(observer -> observer.actorSet(actorType, x, y));
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).actorSet(actorType, x, y);
+            dispatched(i, start);
+        }
+        record(GameEventType.ACTOR_SET, actorType, x, y);
     }
 
     private void notifyObserversActorRemoved(final ActorType actorType, final int x, final int y) {
-        observers.forEach(observer -> observer.actorRemoved(actorType, x, y));
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).actorRemoved(actorType, x, y);
+            dispatched(i, start);
+        }
+        record(GameEventType.ACTOR_REMOVED, actorType, x, y);
     }
 
-    private void notifyObserversExtraItemVanished() {
-        observers.forEach(GameObserver::extraItemVanished);
+    private void notifyObserversExtraItemVanished(final Point p) {
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).extraItemVanished();
+            dispatched(i, start);
+        }
+        record(GameEventType.EXTRA_ITEM_VANISHED, null, p.x, p.y);
+        commitExtraItemEvent(false, p);
     }
 
     private void notifyObserversExtraItemPlaced(final Point p) {
-        observers.forEach(observer -> observer.extraItemPlaced(p));
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).extraItemPlaced(p);
+            dispatched(i, start);
+        }
+        record(GameEventType.EXTRA_ITEM_PLACED, null, p.x, p.y);
+        commitExtraItemEvent(true, p);
     }
 
     private void notifyObserversPacManDied() {
-        observers.forEach(GameObserver::pacManDied);
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).pacManDied();
+            dispatched(i, start);
+        }
+        record(GameEventType.PACMAN_DIED, null, 0, 0);
+    }
+
+    private void notifyObserversNextStage() {
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).nextStage();
+            dispatched(i, start);
+        }
+        record(GameEventType.NEXT_STAGE, null, 0, 0);
     }
 
     private void notifyObserversGameOver() {
-        observers.forEach(GameObserver::gameOver);
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).gameOver();
+            dispatched(i, start);
+        }
+        record(GameEventType.GAME_OVER, null, 0, 0);
     }
 
     private void notifyObserversStartPowerPelletMode() {
-        observers.forEach(GameObserver::startPowerPelletMode);
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).startPowerPelletMode();
+            dispatched(i, start);
+        }
+        record(GameEventType.START_POWER_PELLET_MODE, null, 0, 0);
+        commitPowerPelletModeEvent(true);
     }
 
     private void notifyObserversEndPowerPelletMode() {
-        observers.forEach(GameObserver::endPowerPelletMode);
+        for (int i = 0; i < observers.size(); i++) {
+            final long start = dispatchStart();
+            observers.get(i).endPowerPelletMode();
+            dispatched(i, start);
+        }
+        record(GameEventType.END_POWER_PELLET_MODE, null, 0, 0);
+        commitPowerPelletModeEvent(false);
+    }
+
+    /**
+     * Notifies the observers that the step is done and delivers the recorded events to the batch observers.
+     */
+    private void notifyObserversStepDone() {
+        try {
+            if (metrics == null) {
+                observers.forEach(GameObserver::stepDone);
+            } else {
+                for (int i = 0; i < observers.size(); i++) {
+                    final long start = System.nanoTime();
+                    observers.get(i).stepDone();
+                    observerLatencies.get(i).record(observerTimes[i] + System.nanoTime() - start);
+                    observerTimes[i] = 0;
+                }
+            }
+            for (int i = 0; i < batchObservers.size(); i++) {
+                if (metrics == null) {
+                    batchObservers.get(i).stepDone(eventBatch);
+                } else {
+                    final long start = System.nanoTime();
+                    batchObservers.get(i).stepDone(eventBatch);
+                    batchObserverLatencies.get(i).record(System.nanoTime() - start);
+                }
+            }
+        } finally {
+            // an observer that throws must not leave the events and changes of this step to the next one
+            eventBatch.clear();
+            board.getCells().getDirtyCells().clear();
+        }
+    }
+
+    /**
+     * Returns the start time of the delivery of an event to an observer, if metrics are set.
+     */
+    private long dispatchStart() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Adds the time the observer with the given index took for an event to the time of the current step, if metrics
+     * are set.
+     */
+    private void dispatched(final int index, final long start) {
+        if (metrics != null) {
+            observerTimes[index] += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Appends the event to the batch of the current step, if there is any batch observer.
+     */
+    private void record(final GameEventType type, final ActorType actorType, final int x, final int y) {
+        if (!batchObservers.isEmpty()) {
+            eventBatch.add(type, actorType, x, y);
+        }
     }
 
     /**
@@ -381,45 +1126,94 @@ public class PacManGame {
      * too.
      */
     private void nextLife() {
+        removeActorsAndExtraItem();
+
+        if (lives > 0) {
+            placeActorsOnStarts();
+            notifyObserversPacManDied();
+            lives--;
+        } else {
+            gameOver = true;
+            notifyObserversPacManDied();
+            notifyObserversGameOver();
+        }
+        commitLifeEvent();
+    }
+
+    /**
+     * This method should be called if Pac-Man has eaten all pac-dots. It restores the pac-dots and power pellets,
+     * places the actors on their start fields and starts the next stage. Only the fields that changed during the
+     * stage are reset.
+     */
+    private void nextStage() {
+        removeActorsAndExtraItem();
+        if (powerPelletMode) {
+            powerPelletMode = false;
+            notifyObserversEndPowerPelletMode();
+        }
+        board.getCells().resetItems();
+        pacDotCounter = 0;
+        stageCounter++;
+        placeActorsOnStarts();
+        notifyObserversNextStage();
+        commitStageEvent();
+    }
+
+    private void removeActorsAndExtraItem() {
         final Point oldPacPos = pacMan.getPosition();
-        board.getField(oldPacPos).removeActor();
+        board.getCells().removeActor(board.indexOf(oldPacPos));
         notifyObserversActorRemoved(PACMAN, oldPacPos.x, oldPacPos.y);
 
-        ghosts.forEach(ghost -> {
-            final Point oldGhostPos = ghost.getPosition();
-            board.getField(oldGhostPos).removeActor();
+        for (int i = 0; i < ghosts.size(); i++) {
+            final Point oldGhostPos = ghosts.get(i).getPosition();
+            board.getCells().removeActor(board.indexOf(oldGhostPos));
             notifyObserversActorRemoved(GHOST, oldGhostPos.x, oldGhostPos.y);
-        });
+        }
 
         if (extraItemPosition != null) {
-            board.getField(extraItemPosition).setExtraItem(null);
+            final Point vanished = extraItemPosition;
+            board.getCells().setExtraItem(board.indexOf(vanished), null);
             extraItemPosition = null;
-            notifyObserversExtraItemVanished();
+            notifyObserversExtraItemVanished(vanished);
         }
+    }
 
-        if (lives > 0) {
-            pacMan.setPosition(board.getPacManStart());
-            board.getField(board.getPacManStart()).placeActor(pacMan);
-            notifyObserversActorSet(PACMAN, board.getPacManStart().x, board.getPacManStart().y);
-            pacMan.setDirection(Direction.LEFT);
-
-            for (int i = 0; i < ghosts.size(); i++) {
-                final Point ghostStart = board.getGhostsStarts().get(i);
-                ghosts.get(i).setPosition(ghostStart);
-                board.getField(ghostStart).placeActor(ghosts.get(i));
-                notifyObserversActorSet(GHOST, ghostStart.x, ghostStart.y);
-            }
-            powerPelletDuration = POWER_PELLET_TIME;
-            pacManMoveDuration = 0;
-            ghostMoveDuration = 0;
-            newExtraItemDuration = 0;
-            extraItemDuration = NEW_EXTRA_ITEM_TIME;
-
-            notifyObserversPacManDied();
-            lives--;
-        } else {
-            notifyObserversPacManDied();
-            notifyObserversGameOver();
+    /**
+     * Places Pac-Man and the ghosts on their start fields and resets the timers.
+     */
+    private void placeActorsOnStarts() {
+        pacMan.setPosition(board.getPacManStart());
+        board.getCells().placeActor(board.indexOf(board.getPacManStart()), pacMan);
+        notifyObserversActorSet(PACMAN, board.getPacManStart().x, board.getPacManStart().y);
+        pacMan.setDirection(Direction.LEFT);
+
+        for (int i = 0; i < ghosts.size(); i++) {
+            final Point ghostStart = board.getGhostsStarts().get(i);
+            ghosts.get(i).setPosition(ghostStart);
+            ghosts.get(i).setDirection(null);
+            board.getCells().placeActor(board.indexOf(ghostStart), ghosts.get(i));
+            notifyObserversActorSet(GHOST, ghostStart.x, ghostStart.y);
         }
+        powerPelletDuration = POWER_PELLET_TIME;
+        pacManMoveDuration = 0;
+        ghostMoveDuration = 0;
+        newExtraItemDuration = 0;
+        extraItemDuration = NEW_EXTRA_ITEM_TIME;
+    }
+
+    /**
+     * Events only used to check whether an event is enabled. The JIT cannot remove the allocation of an unused event in
+     * code as large as a step, so events are only created if they are enabled. Creating the first event initializes the
+     * flight recorder, which takes hundreds of milliseconds, so the holder is only loaded once a recording started.
+     */
+    private static final class Events {
+
+        static final StepEvent STEP = new StepEvent();
+        static final ActorMoveEvent ACTOR_MOVE = new ActorMoveEvent();
+        static final CollisionEvent COLLISION = new CollisionEvent();
+        static final ExtraItemEvent EXTRA_ITEM = new ExtraItemEvent();
+        static final PowerPelletModeEvent POWER_PELLET_MODE = new PowerPelletModeEvent();
+        static final StageEvent STAGE = new StageEvent();
+        static final LifeEvent LIFE = new LifeEvent();
     }
 }
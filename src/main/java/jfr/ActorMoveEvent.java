@@ -0,0 +1,37 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An actor moved from one field to a neighbouring one.
+ */
+@Name("pacman.ActorMove")
+@Label("Actor Move")
+@Category("Pac-Man")
+@Enabled(false)
+@StackTrace(false)
+public final class ActorMoveEvent extends Event {
+
+    @Label("Game Id")
+    public long gameId;
+
+    @Label("Actor Type")
+    public String actorType;
+
+    @Label("From Row")
+    public int fromRow;
+
+    @Label("From Column")
+    public int fromColumn;
+
+    @Label("To Row")
+    public int toRow;
+
+    @Label("To Column")
+    public int toColumn;
+}
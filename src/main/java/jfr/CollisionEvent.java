@@ -0,0 +1,36 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Pac-Man and a ghost met on a field. In power pellet mode Pac-Man eats the ghost, otherwise he loses a life.
+ */
+@Name("pacman.Collision")
+@Label("Collision")
+@Category("Pac-Man")
+@Enabled(false)
+@StackTrace(false)
+public final class CollisionEvent extends Event {
+
+    @Label("Game Id")
+    public long gameId;
+
+    @Label("Actor Type")
+    @Description("The actor that moved onto the field of the other one")
+    public String actorType;
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int column;
+
+    @Label("Power Pellet Mode")
+    public boolean powerPelletMode;
+}
@@ -0,0 +1,31 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An extra item was placed on the board or vanished from it.
+ */
+@Name("pacman.ExtraItem")
+@Label("Extra Item")
+@Category("Pac-Man")
+@Enabled(false)
+@StackTrace(false)
+public final class ExtraItemEvent extends Event {
+
+    @Label("Game Id")
+    public long gameId;
+
+    @Label("Placed")
+    public boolean placed;
+
+    @Label("Row")
+    public int row;
+
+    @Label("Column")
+    public int column;
+}
@@ -0,0 +1,31 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Pac-Man lost a life.
+ */
+@Name("pacman.Life")
+@Label("Life Lost")
+@Category("Pac-Man")
+@Enabled(false)
+@StackTrace(false)
+public final class LifeEvent extends Event {
+
+    @Label("Game Id")
+    public long gameId;
+
+    @Label("Lives Left")
+    public int livesLeft;
+
+    @Label("Game Over")
+    public boolean gameOver;
+
+    @Label("Score")
+    public long score;
+}
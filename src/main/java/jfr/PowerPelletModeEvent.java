@@ -0,0 +1,25 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The power pellet mode of a game started or ended.
+ */
+@Name("pacman.PowerPelletMode")
+@Label("Power Pellet Mode")
+@Category("Pac-Man")
+@Enabled(false)
+@StackTrace(false)
+public final class PowerPelletModeEvent extends Event {
+
+    @Label("Game Id")
+    public long gameId;
+
+    @Label("Started")
+    public boolean started;
+}
@@ -0,0 +1,28 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Pac-Man ate all pac-dots and the next stage of a game started.
+ */
+@Name("pacman.Stage")
+@Label("Next Stage")
+@Category("Pac-Man")
+@Enabled(false)
+@StackTrace(false)
+public final class StageEvent extends Event {
+
+    @Label("Game Id")
+    public long gameId;
+
+    @Label("Stage")
+    public int stage;
+
+    @Label("Score")
+    public long score;
+}
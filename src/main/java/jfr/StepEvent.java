@@ -0,0 +1,45 @@
+package jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A step of a game, from the start of {@code PacManGame.step(long)} to the notification of the observers. Together
+ * with the GC events of the recording it shows which pauses delayed the game loop.
+ * <p>
+ * Like all events of the engine it is disabled by default and has to be enabled in the settings of a recording:
+ * <pre>
+ *  &lt;event name="pacman.Step"&gt;
+ *    &lt;setting name="enabled"&gt;true&lt;/setting&gt;
+ *    &lt;setting name="threshold"&gt;0 ms&lt;/setting&gt;
+ *  &lt;/event&gt;
+ * </pre>
+ * The engine only creates an event if {@link #isEnabled()} returns true and only fills it in if
+ * {@link #shouldCommit()} returns true, so a disabled event costs a check of a flag and no allocation.
+ */
+@Name("pacman.Step")
+@Label("Game Step")
+@Category("Pac-Man")
+@Description("A step of a game, including the controllers and the observers")
+@Enabled(false)
+public final class StepEvent extends Event {
+
+    @Label("Game Id")
+    public long gameId;
+
+    @Label("Step Duration")
+    @Description("The simulated time passed to the step")
+    @Timespan(Timespan.MILLISECONDS)
+    public long stepDuration;
+
+    @Label("Stage")
+    public int stage;
+
+    @Label("Score")
+    public long score;
+}
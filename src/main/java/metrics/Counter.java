@@ -0,0 +1,35 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * A counter that is written by a single thread and read by any thread. Updates are plain increments published with an
+ * ordered store, so counting costs neither a lock nor an atomic read-modify-write.
+ */
+public final class Counter {
+
+    private static final AtomicLongFieldUpdater<Counter> VALUE =
+            AtomicLongFieldUpdater.newUpdater(Counter.class, "value");
+
+    private volatile long value;
+
+    /**
+     * Adds one. Must only be called by the thread owning the counter.
+     */
+    public void increment() {
+        VALUE.lazySet(this, value + 1);
+    }
+
+    /**
+     * Adds the given amount. Must only be called by the thread owning the counter.
+     *
+     * @param amount the amount to add.
+     */
+    public void add(final long amount) {
+        VALUE.lazySet(this, value + amount);
+    }
+
+    public long get() {
+        return value;
+    }
+}
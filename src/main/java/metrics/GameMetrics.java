@@ -0,0 +1,154 @@
+package metrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The metrics of a single game: steps, moves chosen by the controllers, collisions of Pac-Man and a ghost, the
+ * overruns of asynchronous observers, and the time spent in steps, in controllers and in every observer. A game records its metrics on the thread that steps it, so
+ * games on different threads never contend. Set it with {@code PacManGame.setMetrics(GameMetrics)} and add it to a
+ * {@link MetricsRegistry} to export it.
+ */
+public final class GameMetrics {
+
+    private final Counter steps = new Counter();
+    private final Counter moves = new Counter();
+    private final Counter collisions = new Counter();
+    private final Counter droppedEvents = new Counter();
+    private final Counter droppedSteps = new Counter();
+    private final Counter coalescedSteps = new Counter();
+    private final Counter producerWaits = new Counter();
+    private final Counter failedObservers = new Counter();
+    private final LatencyHistogram stepLatency = new LatencyHistogram();
+    private final LatencyHistogram moveLatency = new LatencyHistogram();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public Counter getSteps() {
+        return steps;
+    }
+
+    /**
+     * Returns the number of moves chosen by the controllers of Pac-Man and the ghosts.
+     *
+     * @return the counter of the moves.
+     */
+    public Counter getMoves() {
+        return moves;
+    }
+
+    /**
+     * Returns the number of collisions of Pac-Man and a ghost, whether Pac-Man died or ate the ghost.
+     *
+     * @return the counter of the collisions.
+     */
+    public Counter getCollisions() {
+        return collisions;
+    }
+
+    /**
+     * Returns the number of events an asynchronous observable dropped because an observer did not keep up.
+     *
+     * @return the counter of the dropped events.
+     */
+    public Counter getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    /**
+     * Returns the number of steps an asynchronous observable dropped as a whole.
+     *
+     * @return the counter of the dropped steps.
+     */
+    public Counter getDroppedSteps() {
+        return droppedSteps;
+    }
+
+    /**
+     * Returns the number of steps an asynchronous observable merged into a later step.
+     *
+     * @return the counter of the coalesced steps.
+     */
+    public Counter getCoalescedSteps() {
+        return coalescedSteps;
+    }
+
+    /**
+     * Returns how often the game thread waited for an observer of an asynchronous observable.
+     *
+     * @return the counter of the waits.
+     */
+    public Counter getProducerWaits() {
+        return producerWaits;
+    }
+
+    /**
+     * Returns the number of observers of an asynchronous observable that were removed because their thread died.
+     *
+     * @return the counter of the failed observers.
+     */
+    public Counter getFailedObservers() {
+        return failedObservers;
+    }
+
+    /**
+     * Returns the time (in nanoseconds) a step took, including the controllers and the observers.
+     *
+     * @return the histogram of the step latencies.
+     */
+    public LatencyHistogram getStepLatency() {
+        return stepLatency;
+    }
+
+    /**
+     * Returns the time (in nanoseconds) a controller took to choose a move.
+     *
+     * @return the histogram of the move latencies.
+     */
+    public LatencyHistogram getMoveLatency() {
+        return moveLatency;
+    }
+
+    /**
+     * Creates the histogram of the time (in nanoseconds) an observer takes to handle the events of a step, including
+     * the end of the step. The histogram is named after the class of the observer.
+     *
+     * @param observer the observer.
+     * @return a new histogram for the observer.
+     */
+    public LatencyHistogram addListener(final Object observer) {
+        final Listener listener = new Listener(observer.getClass().getName());
+        listeners.add(listener);
+        return listener.latency;
+    }
+
+    /**
+     * Returns the observers that were added to this game, including removed ones.
+     *
+     * @return the observers, read-only.
+     */
+    public List<Listener> getListeners() {
+        return Collections.unmodifiableList(listeners);
+    }
+
+    /**
+     * The time an observer takes to handle the events of a step.
+     */
+    public static final class Listener {
+
+        private final String name;
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Listener(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
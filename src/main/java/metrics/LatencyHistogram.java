@@ -0,0 +1,146 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies (in nanoseconds) with logarithmic buckets, in the style of an HDR histogram. Every power of
+ * two is split into {@value #SUB_BUCKETS} linear buckets, so a recorded value is off by at most 1/16 of its magnitude.
+ * Values up to about 18 minutes are distinguished, larger values fall into the last bucket.
+ * <p>
+ * Like a {@link Counter}, a histogram is written by a single thread, e.g. the thread stepping a game, and read by any
+ * thread. Recording does not allocate. Readers aggregate the histograms of several writers with
+ * {@link #add(LatencyHistogram)} into a histogram of their own.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Number of bits of the largest value that has a bucket of its own.
+     */
+    private static final int MAX_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final Counter total = new Counter();
+    private final Counter max = new Counter();
+
+    /**
+     * Records a value. Must only be called by the thread owning the histogram.
+     *
+     * @param value the value to record, negative values are recorded as 0.
+     */
+    public void record(final long value) {
+        final long v = Math.max(0, value);
+        final int index = indexOf(v);
+        counts.lazySet(index, counts.get(index) + 1);
+        total.add(v);
+        if (v > max.get()) {
+            max.add(v - max.get());
+        }
+    }
+
+    /**
+     * Adds the values of another histogram to this one. Must only be called by the thread owning this histogram.
+     *
+     * @param other the histogram to add.
+     */
+    public void add(final LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            final long count = other.counts.get(i);
+            if (count != 0) {
+                counts.lazySet(i, counts.get(i) + count);
+            }
+        }
+        total.add(other.total.get());
+        final long otherMax = other.max.get();
+        if (otherMax > max.get()) {
+            max.add(otherMax - max.get());
+        }
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of values.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return the sum of the values.
+     */
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean or 0 if no value was recorded.
+     */
+    public double getMean() {
+        final long count = getCount();
+        return count == 0 ? 0 : (double) getTotal() / count;
+    }
+
+    /**
+     * Returns the value below or equal to which the given percentage of the recorded values fall, rounded up to the
+     * upper end of its bucket.
+     *
+     * @param percentile the percentage, between 0 and 100.
+     * @return the value at the percentile or 0 if no value was recorded.
+     * @throws IllegalArgumentException if the percentile is out of range.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("invalid percentile");
+        }
+        final long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    static int indexOf(long value) {
+        if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long highestValueOf(final int index) {
+        if (index < 2 * SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        final long top = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,53 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * The metrics of all games of a {@link MetricsRegistry}, exported over JMX. Latencies are in nanoseconds.
+ */
+public interface MetricsMXBean {
+
+    int getGames();
+
+    long getSteps();
+
+    long getMoves();
+
+    long getCollisions();
+
+    long getDroppedEvents();
+
+    long getDroppedSteps();
+
+    long getCoalescedSteps();
+
+    long getProducerWaits();
+
+    long getFailedObservers();
+
+    double getStepsPerSecond();
+
+    double getMovesPerSecond();
+
+    long getStepLatencyP50();
+
+    long getStepLatencyP99();
+
+    long getStepLatencyP999();
+
+    long getStepLatencyMax();
+
+    long getMoveLatencyP50();
+
+    long getMoveLatencyP99();
+
+    long getMoveLatencyMax();
+
+    /**
+     * Returns the total time every kind of observer spent handling the events of the steps, including their ends, by
+     * class name.
+     *
+     * @return the time per observer class.
+     */
+    Map<String, Long> getObserverTimes();
+}
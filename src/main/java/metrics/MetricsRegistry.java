@@ -0,0 +1,341 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Collects the {@link GameMetrics} of many games and exports their sum, over JMX as a {@link MetricsMXBean} and as text
+ * in the exposition format of Prometheus, see {@link #writeText(Appendable)}. The metrics are only summed up when they
+ * are read, recording never touches the registry.
+ * <p>
+ * The metrics of removed games are kept in the totals, so counters never decrease.
+ */
+public class MetricsRegistry implements MetricsMXBean {
+
+    /**
+     * Minimum time (in nanoseconds) between two samples of the rates.
+     */
+    private static final long RATE_INTERVAL = SECONDS.toNanos(1);
+
+    private final List<GameMetrics> games = new CopyOnWriteArrayList<>();
+    private final Totals retired = new Totals();
+
+    private long rateSampleTime;
+    private long rateSampleSteps;
+    private long rateSampleMoves;
+    private double stepsPerSecond;
+    private double movesPerSecond;
+
+    /**
+     * Adds the metrics of a game.
+     *
+     * @param metrics the metrics of the game.
+     * @throws IllegalArgumentException if the metrics are null.
+     */
+    public void add(final GameMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("invalid metrics");
+        }
+        games.add(metrics);
+    }
+
+    /**
+     * Removes the metrics of a game, e.g. because it is over. Its metrics stay part of the totals.
+     *
+     * @param metrics the metrics of the game.
+     */
+    public synchronized void remove(final GameMetrics metrics) {
+        if (games.remove(metrics)) {
+            retired.add(metrics);
+        }
+    }
+
+    /**
+     * Registers this registry with the platform MBean server.
+     *
+     * @param name the value of the name key of the object name.
+     * @return the object name of the MBean.
+     * @throws IllegalStateException if the MBean cannot be registered, e.g. because the name is taken.
+     */
+    public ObjectName registerMBean(final String name) {
+        try {
+            final ObjectName objectName = new ObjectName("pacman:type=Metrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register metrics " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters an MBean registered with {@link #registerMBean(String)}.
+     *
+     * @param objectName the object name of the MBean.
+     */
+    public void unregisterMBean(final ObjectName objectName) {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot unregister metrics " + objectName, e);
+        }
+    }
+
+    @Override
+    public int getGames() {
+        return games.size();
+    }
+
+    @Override
+    public long getSteps() {
+        return collectCounters().steps;
+    }
+
+    @Override
+    public long getMoves() {
+        return collectCounters().moves;
+    }
+
+    @Override
+    public long getCollisions() {
+        return collectCounters().collisions;
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        return collectCounters().droppedEvents;
+    }
+
+    @Override
+    public long getDroppedSteps() {
+        return collectCounters().droppedSteps;
+    }
+
+    @Override
+    public long getCoalescedSteps() {
+        return collectCounters().coalescedSteps;
+    }
+
+    @Override
+    public long getProducerWaits() {
+        return collectCounters().producerWaits;
+    }
+
+    @Override
+    public long getFailedObservers() {
+        return collectCounters().failedObservers;
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        sampleRates();
+        return stepsPerSecond;
+    }
+
+    @Override
+    public double getMovesPerSecond() {
+        sampleRates();
+        return movesPerSecond;
+    }
+
+    @Override
+    public long getStepLatencyP50() {
+        return collect().stepLatency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getStepLatencyP99() {
+        return collect().stepLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getStepLatencyP999() {
+        return collect().stepLatency.getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getStepLatencyMax() {
+        return collect().stepLatency.getMax();
+    }
+
+    @Override
+    public long getMoveLatencyP50() {
+        return collect().moveLatency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getMoveLatencyP99() {
+        return collect().moveLatency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getMoveLatencyMax() {
+        return collect().moveLatency.getMax();
+    }
+
+    @Override
+    public Map<String, Long> getObserverTimes() {
+        final Map<String, Long> times = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : collect().listeners.entrySet()) {
+            times.put(entry.getKey(), entry.getValue().getTotal());
+        }
+        return times;
+    }
+
+    /**
+     * Writes the current metrics in the text exposition format of Prometheus, latencies in seconds.
+     *
+     * @param out the target to write to.
+     * @throws IOException if writing fails.
+     */
+    public void writeText(final Appendable out) throws IOException {
+        final Totals totals = collect();
+        writeMetric(out, "pacman_games", "gauge", games.size());
+        writeMetric(out, "pacman_steps_total", "counter", totals.steps);
+        writeMetric(out, "pacman_moves_total", "counter", totals.moves);
+        writeMetric(out, "pacman_collisions_total", "counter", totals.collisions);
+        writeMetric(out, "pacman_dropped_events_total", "counter", totals.droppedEvents);
+        writeMetric(out, "pacman_dropped_steps_total", "counter", totals.droppedSteps);
+        writeMetric(out, "pacman_coalesced_steps_total", "counter", totals.coalescedSteps);
+        writeMetric(out, "pacman_producer_waits_total", "counter", totals.producerWaits);
+        writeMetric(out, "pacman_failed_observers_total", "counter", totals.failedObservers);
+        writeSummary(out, "pacman_step_latency_seconds", "", totals.stepLatency, true);
+        writeSummary(out, "pacman_move_latency_seconds", "", totals.moveLatency, true);
+        boolean first = true;
+        for (Map.Entry<String, LatencyHistogram> entry : totals.listeners.entrySet()) {
+            writeSummary(out, "pacman_observer_latency_seconds", "observer=\"" + entry.getKey() + "\",",
+                    entry.getValue(), first);
+            first = false;
+        }
+    }
+
+    private static void writeMetric(final Appendable out, final String name, final String type, final long value)
+            throws IOException {
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ').append(Long.toString(value)).append('\n');
+    }
+
+    private static void writeSummary(final Appendable out, final String name, final String labels,
+                                     final LatencyHistogram histogram, final boolean withType) throws IOException {
+        if (withType) {
+            out.append("# TYPE ").append(name).append(" summary\n");
+        }
+        for (String quantile : new String[]{"0.5", "0.9", "0.99", "0.999"}) {
+            final long value = histogram.getValueAtPercentile(Double.parseDouble(quantile) * 100);
+            out.append(name).append('{').append(labels).append("quantile=\"").append(quantile).append("\"} ")
+                    .append(Double.toString(value / 1e9)).append('\n');
+        }
+        final String suffixLabels = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        out.append(name).append("_sum").append(suffixLabels).append(' ')
+                .append(Double.toString(histogram.getTotal() / 1e9)).append('\n');
+        out.append(name).append("_count").append(suffixLabels).append(' ')
+                .append(Long.toString(histogram.getCount())).append('\n');
+    }
+
+    private synchronized void sampleRates() {
+        final long now = System.nanoTime();
+        if (rateSampleTime != 0 && now - rateSampleTime < RATE_INTERVAL) {
+            return;
+        }
+        final Totals totals = collectCounters();
+        if (rateSampleTime != 0) {
+            final double seconds = (now - rateSampleTime) / 1e9;
+            stepsPerSecond = (totals.steps - rateSampleSteps) / seconds;
+            movesPerSecond = (totals.moves - rateSampleMoves) / seconds;
+        }
+        rateSampleTime = now;
+        rateSampleSteps = totals.steps;
+        rateSampleMoves = totals.moves;
+    }
+
+    /**
+     * Sums up the counters of all games, without the histograms.
+     */
+    private synchronized Totals collectCounters() {
+        final Totals totals = new Totals();
+        totals.addCounters(retired);
+        for (GameMetrics metrics : games) {
+            totals.addCounters(metrics);
+        }
+        return totals;
+    }
+
+    private synchronized Totals collect() {
+        final Totals totals = new Totals();
+        totals.add(retired);
+        for (GameMetrics metrics : games) {
+            totals.add(metrics);
+        }
+        return totals;
+    }
+
+    /**
+     * The sum of the metrics of several games, owned by the reading thread.
+     */
+    private static final class Totals {
+
+        long steps;
+        long moves;
+        long collisions;
+        long droppedEvents;
+        long droppedSteps;
+        long coalescedSteps;
+        long producerWaits;
+        long failedObservers;
+        final LatencyHistogram stepLatency = new LatencyHistogram();
+        final LatencyHistogram moveLatency = new LatencyHistogram();
+        final Map<String, LatencyHistogram> listeners = new TreeMap<>();
+
+        void addCounters(final GameMetrics metrics) {
+            steps += metrics.getSteps().get();
+            moves += metrics.getMoves().get();
+            collisions += metrics.getCollisions().get();
+            droppedEvents += metrics.getDroppedEvents().get();
+            droppedSteps += metrics.getDroppedSteps().get();
+            coalescedSteps += metrics.getCoalescedSteps().get();
+            producerWaits += metrics.getProducerWaits().get();
+            failedObservers += metrics.getFailedObservers().get();
+        }
+
+        void add(final GameMetrics metrics) {
+            addCounters(metrics);
+            stepLatency.add(metrics.getStepLatency());
+            moveLatency.add(metrics.getMoveLatency());
+            for (GameMetrics.Listener listener : metrics.getListeners()) {
+                listeners.computeIfAbsent(listener.getName(), name -> new LatencyHistogram())
+                        .add(listener.getLatency());
+            }
+        }
+
+        void addCounters(final Totals other) {
+            steps += other.steps;
+            moves += other.moves;
+            collisions += other.collisions;
+            droppedEvents += other.droppedEvents;
+            droppedSteps += other.droppedSteps;
+            coalescedSteps += other.coalescedSteps;
+            producerWaits += other.producerWaits;
+            failedObservers += other.failedObservers;
+        }
+
+        void add(final Totals other) {
+            addCounters(other);
+            stepLatency.add(other.stepLatency);
+            moveLatency.add(other.moveLatency);
+            for (Map.Entry<String, LatencyHistogram> entry : other.listeners.entrySet()) {
+                listeners.computeIfAbsent(entry.getKey(), name -> new LatencyHistogram()).add(entry.getValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package replay;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The binary format of an input log. A log starts with a header:
+ * <pre>
+ *  int   magic
+ *  byte  version
+ *  long  seed of the game
+ *  int   number of rows of the board
+ *  int   number of columns of the board
+ * </pre>
+ * followed by one record per step:
+ * <pre>
+ *  varint  duration of the step
+ *  varint  number of moves times two, plus one if one of the moves is null
+ *  bytes   one bit per move, set if the move is null (only if one of the moves is null)
+ *  bytes   two bits per move with the ordinal of its direction, starting at the lowest bits
+ * </pre>
+ * Varints store seven bits per byte, least significant group first, the highest bit of a byte is set if another byte
+ * follows.
+ */
+final class InputLog {
+
+    static final int MAGIC = 0x50414352;
+    static final byte VERSION = 1;
+
+    private InputLog() {
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        return readVarLong(in, in.readUnsignedByte());
+    }
+
+    /**
+     * Reads a varint whose first byte was already read.
+     */
+    static long readVarLong(DataInput in, int first) throws IOException {
+        long value = first & 0x7F;
+        int b = first;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            if (shift >= 64) {
+                throw new IOException("malformed varint");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,169 @@
+package replay;
+
+import enums.Direction;
+import game.Board;
+import game.GameInfo;
+import game.GhostInfo;
+import game.PacManGame;
+import view.ActorController;
+import view.ControllerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Plays a game again from an {@link InputLog}, as fast as possible. The replayer creates a new {@link PacManGame} with
+ * the recorded seed, whose controllers return the recorded moves, and steps it with the recorded durations. The log is
+ * read step by step, so logs of long sessions are streamed instead of loaded into memory.
+ */
+public class InputLogReplayer implements Closeable {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataInputStream in;
+    private final PacManGame game;
+
+    /**
+     * The moves of the current step, as direction ordinal or -1 for null.
+     */
+    private byte[] moves = new byte[8];
+    private int moveCount;
+    private int nextMove;
+    private long steps;
+
+    /**
+     * Creates a new replayer and reads the header of the log.
+     *
+     * @param board the board the game was recorded on, the replayed game is played on it.
+     * @param in    the stream to read the log from. The stream is buffered by the replayer.
+     * @throws IllegalArgumentException if the board or the stream is null or the log was recorded on a board of
+     *                                  another size.
+     * @throws IOException              if the header can not be read or is not the header of an input log.
+     */
+    public InputLogReplayer(Board board, InputStream in) throws IOException {
+        if (board == null || in == null) {
+            throw new IllegalArgumentException("invalid board or input stream");
+        }
+        this.in = new DataInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+        if (this.in.readInt() != InputLog.MAGIC || this.in.readByte() != InputLog.VERSION) {
+            throw new IOException("not an input log");
+        }
+        final long seed = this.in.readLong();
+        if (this.in.readInt() != board.getNumberOfRows() || this.in.readInt() != board.getNumberOfColumns()) {
+            throw new IllegalArgumentException("the log was recorded on a board of another size");
+        }
+        this.game = new PacManGame(board, seed, new ReplayControllerFactory());
+    }
+
+    public PacManGame getGame() {
+        return game;
+    }
+
+    /**
+     * Returns the number of replayed steps.
+     *
+     * @return the number of steps.
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * Replays the next step of the log.
+     *
+     * @return false if the end of the log is reached, true otherwise.
+     * @throws IOException           if the log can not be read or ends in the middle of a step.
+     * @throws IllegalStateException if the game asks for other moves than recorded, e.g. because the board differs.
+     */
+    public boolean step() throws IOException {
+        final int first = in.read();
+        if (first < 0) {
+            return false;
+        }
+        final long duration = InputLog.readVarLong(in, first);
+        readMoves();
+        game.step(duration);
+        if (nextMove != moveCount) {
+            throw new IllegalStateException("replay diverged from the recording in step " + steps);
+        }
+        steps++;
+        return true;
+    }
+
+    /**
+     * Replays all remaining steps of the log.
+     *
+     * @return the number of replayed steps.
+     * @throws IOException if the log can not be read.
+     */
+    public long replayAll() throws IOException {
+        final long before = steps;
+        while (step()) {
+        }
+        return steps - before;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readMoves() throws IOException {
+        final long header = InputLog.readVarLong(in);
+        if (header >>> 1 > Integer.MAX_VALUE - 8) {
+            throw new IOException("invalid number of moves");
+        }
+        moveCount = (int) (header >>> 1);
+        nextMove = 0;
+        if (moves.length < moveCount) {
+            moves = new byte[Math.max(moveCount, moves.length * 2)];
+        }
+        final boolean hasNull = (header & 1) != 0;
+        for (int i = 0; i < moveCount; i += 8) {
+            final int mask = hasNull ? in.readUnsignedByte() : 0;
+            for (int j = i; j < Math.min(i + 8, moveCount); j++) {
+                moves[j] = (byte) ((mask >>> (j - i) & 1) == 0 ? 0 : -1);
+            }
+        }
+        for (int i = 0; i < moveCount; i += 4) {
+            final int packed = in.readUnsignedByte();
+            for (int j = i; j < Math.min(i + 4, moveCount); j++) {
+                if (moves[j] == 0) {
+                    moves[j] = (byte) (packed >>> (2 * (j - i)) & 0x3);
+                }
+            }
+        }
+    }
+
+    private Direction nextMove() {
+        if (nextMove == moveCount) {
+            throw new IllegalStateException("replay diverged from the recording in step " + steps);
+        }
+        final int move = moves[nextMove++];
+        return move < 0 ? null : DIRECTIONS[move];
+    }
+
+    /**
+     * Provides controllers that return the recorded moves. The game asks its controllers in a fixed order, so all
+     * controllers share the moves of the current step.
+     */
+    private class ReplayControllerFactory implements ControllerFactory {
+
+        private final ActorController controller = InputLogReplayer.this::nextMove;
+
+        @Override
+        public ActorController getGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+            return controller;
+        }
+
+        @Override
+        public ActorController getPacManController(final GameInfo gameInfo) {
+            return controller;
+        }
+    }
+}
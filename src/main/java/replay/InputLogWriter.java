@@ -0,0 +1,133 @@
+package replay;
+
+import enums.Direction;
+import game.GameInfo;
+import game.InputRecorder;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Records the inputs of a game into an append-only {@link InputLog}. Set it with
+ * {@link game.PacManGame#setInputRecorder(InputRecorder)} before the first step.
+ * <p>
+ * Write errors of the underlying stream are thrown as {@link UncheckedIOException}s from the game thread.
+ */
+public class InputLogWriter implements InputRecorder, Closeable, Flushable {
+
+    private final DataOutputStream out;
+    private boolean gameStarted;
+
+    /**
+     * The moves of the current step, as direction ordinal or -1 for null.
+     */
+    private byte[] moves = new byte[8];
+    private int moveCount;
+    private long duration;
+    private long steps;
+
+    /**
+     * Creates a new writer. The stream is buffered by the writer.
+     *
+     * @param out the stream to write the log to.
+     * @throws IllegalArgumentException if the stream is null.
+     */
+    public InputLogWriter(OutputStream out) {
+        if (out == null) {
+            throw new IllegalArgumentException("invalid output stream");
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+    }
+
+    /**
+     * Writes the header of the log.
+     *
+     * @throws IllegalStateException if the writer already recorded a game.
+     */
+    @Override
+    public void gameStarted(final GameInfo game) {
+        if (gameStarted) {
+            throw new IllegalStateException("the writer already recorded a game");
+        }
+        gameStarted = true;
+        try {
+            out.writeInt(InputLog.MAGIC);
+            out.writeByte(InputLog.VERSION);
+            out.writeLong(game.getSeed());
+            out.writeInt(game.getBoardInfo().getNumberOfRows());
+            out.writeInt(game.getBoardInfo().getNumberOfColumns());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void stepStarted(final long duration) {
+        this.duration = duration;
+        moveCount = 0;
+    }
+
+    @Override
+    public void moveChosen(final Direction direction) {
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+        moves[moveCount++] = (byte) (direction == null ? -1 : direction.ordinal());
+    }
+
+    @Override
+    public void stepDone() {
+        try {
+            InputLog.writeVarLong(out, duration);
+            boolean hasNull = false;
+            for (int i = 0; i < moveCount; i++) {
+                hasNull |= moves[i] < 0;
+            }
+            InputLog.writeVarLong(out, (long) moveCount << 1 | (hasNull ? 1 : 0));
+            if (hasNull) {
+                for (int i = 0; i < moveCount; i += 8) {
+                    int mask = 0;
+                    for (int j = i; j < Math.min(i + 8, moveCount); j++) {
+                        mask |= (moves[j] < 0 ? 1 : 0) << (j - i);
+                    }
+                    out.writeByte(mask);
+                }
+            }
+            for (int i = 0; i < moveCount; i += 4) {
+                int packed = 0;
+                for (int j = i; j < Math.min(i + 4, moveCount); j++) {
+                    packed |= (moves[j] & 0x3) << (2 * (j - i));
+                }
+                out.writeByte(packed);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        steps++;
+    }
+
+    /**
+     * Returns the number of recorded steps.
+     *
+     * @return the number of steps.
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,105 @@
+package server;
+
+import game.PacManGame;
+
+import java.util.function.Consumer;
+
+/**
+ * A game hosted by a {@link SessionManager}. The game is stepped by the worker thread of its shard only, so the state
+ * of the game must not be accessed directly from other threads. Use {@link #execute(Consumer)} to run code on the
+ * worker, e.g. to add an observer or to take a snapshot.
+ */
+public class GameSession {
+
+    private final long id;
+    private final PacManGame game;
+    private final SessionManager.Shard shard;
+
+    /**
+     * Position of this session in the list of its shard, only accessed by the worker of the shard.
+     */
+    int slot = -1;
+
+    private volatile RuntimeException failure;
+    private volatile boolean closed;
+
+    GameSession(long id, PacManGame game, SessionManager.Shard shard) {
+        this.id = id;
+        this.game = game;
+        this.shard = shard;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the index of the shard the session is pinned to.
+     *
+     * @return the index of the shard.
+     */
+    public int getShard() {
+        return shard.index;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the exception that closed the session, thrown by its game while stepping or by an action passed to
+     * {@link #execute(Consumer)}.
+     *
+     * @return the exception or null if the session is open or was destroyed by
+     * {@link SessionManager#destroySession(long)}.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Runs the action with the game on the worker of the shard, before the next tick. The action must not block. If
+     * the action throws an exception, the session is closed with the exception as its {@link #getFailure() failure} and
+     * the failure is counted in the metrics of the shard, see {@link ShardMetrics#getFailedCommands()} and
+     * {@link ShardMetrics#getFailedSessions()}; the other sessions of the shard are not affected.
+     *
+     * @param action the action to run.
+     * @throws IllegalArgumentException if the action is null.
+     * @throws IllegalStateException    if the session is closed.
+     */
+    public void execute(final Consumer<? super PacManGame> action) {
+        if (action == null) {
+            throw new IllegalArgumentException("invalid action");
+        }
+        if (closed) {
+            throw new IllegalStateException("session closed");
+        }
+        shard.submit(() -> shard.execute(this, action));
+    }
+
+    PacManGame getGame() {
+        return game;
+    }
+
+    /**
+     * Marks the session as closed.
+     *
+     * @param failure the exception that closed the session, null if it was destroyed.
+     * @return false if it was closed before.
+     */
+    boolean markClosed(final RuntimeException failure) {
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            this.failure = failure;
+            closed = true;
+            return true;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[session: " + id + ", shard: " + shard.index + "]";
+    }
+}
@@ -0,0 +1,425 @@
+package server;
+
+import game.Board;
+import game.GameLoop;
+import game.PacManGame;
+import view.ControllerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Hosts many {@link PacManGame}s in a single JVM. The games are spread over a small number of shards, each with a
+ * worker thread of its own. A session is pinned to its shard for its whole life, so a game is only ever stepped by one
+ * thread and the lock of {@link PacManGame#step(long)} is never contended.
+ * <p>
+ * A single scheduler thread measures the time and advances the tick of all shards at once. On every tick a worker
+ * steps each of its games with the same duration. If a worker falls behind, it catches up by running up to
+ * {@code maxCatchUpTicks} ticks in a row and drops the rest of the backlog, so its games slow down for a moment like
+ * in a {@link GameLoop}. New sessions are placed on the shard with the fewest sessions that keeps up; if every shard is
+ * loaded above {@code maxLoad} or behind, new sessions are rejected.
+ */
+public class SessionManager implements AutoCloseable {
+
+    /**
+     * Default maximum load of a shard that still accepts new sessions, see {@link ShardMetrics#getLoad()}.
+     */
+    public static final double DEFAULT_MAX_LOAD = 0.8;
+
+    /**
+     * Weight of the latest tick in the average load of a shard.
+     */
+    private static final double LOAD_SMOOTHING = 0.1;
+
+    private final long tick;
+    private final long tickNanos;
+    private final int maxCatchUpTicks;
+    private final double maxLoad;
+    private final Shard[] shards;
+
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextSessionId = new AtomicLong(1);
+
+    private Thread scheduler;
+    private volatile boolean running;
+
+    /**
+     * The number of ticks the scheduler has advanced, only written by the scheduler thread.
+     */
+    private volatile long currentTick;
+
+    public SessionManager(int numberOfShards) {
+        this(numberOfShards, GameLoop.DEFAULT_TICK, GameLoop.DEFAULT_MAX_CATCH_UP_TICKS, DEFAULT_MAX_LOAD);
+    }
+
+    /**
+     * Creates a new session manager. No game is stepped before {@link #start()} is called.
+     *
+     * @param numberOfShards  the number of shards, i.e. of worker threads.
+     * @param tick            the duration (in milliseconds) of a tick.
+     * @param maxCatchUpTicks the maximum number of ticks a shard runs in a row if it is behind.
+     * @param maxLoad         the maximum load of a shard that still accepts new sessions.
+     * @throws IllegalArgumentException if one of the numbers is not positive.
+     */
+    public SessionManager(int numberOfShards, long tick, int maxCatchUpTicks, double maxLoad) {
+        if (numberOfShards <= 0 || tick <= 0 || maxCatchUpTicks <= 0 || !(maxLoad > 0)) {
+            throw new IllegalArgumentException("shards, tick, catch-up ticks and maximum load must be positive");
+        }
+        this.tick = tick;
+        this.tickNanos = MILLISECONDS.toNanos(tick);
+        this.maxCatchUpTicks = maxCatchUpTicks;
+        this.maxLoad = maxLoad;
+        shards = new Shard[numberOfShards];
+        for (int i = 0; i < numberOfShards; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    /**
+     * Starts the scheduler and the workers of the shards.
+     *
+     * @throws IllegalStateException if the manager was already started.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("session manager already started");
+        }
+        running = true;
+        for (Shard shard : shards) {
+            shard.thread = new Thread(shard::run, "session-shard-" + shard.index);
+            shard.thread.setDaemon(true);
+            shard.thread.start();
+        }
+        scheduler = new Thread(this::schedule, "session-scheduler");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+
+    /**
+     * Stops the scheduler and the workers and waits for their threads to finish. The sessions are not stepped any
+     * more. If the calling thread is interrupted while waiting, it stops waiting and keeps its interrupt status; the
+     * threads finish on their own.
+     */
+    @Override
+    public void close() {
+        final Thread current;
+        synchronized (this) {
+            running = false;
+            current = scheduler;
+        }
+        if (current == null) {
+            return;
+        }
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+        }
+        try {
+            current.join();
+            for (Shard shard : shards) {
+                LockSupport.unpark(shard.thread);
+                shard.thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Creates a new session with a game on a copy of the board and pins it to the shard with the fewest sessions that
+     * keeps up. The game is created on the calling thread and stepped from the next tick on.
+     *
+     * @param board             the board of the game, the game gets its own copy of it.
+     * @param seed              the seed of the game.
+     * @param controllerFactory the factory providing the controllers of the actors.
+     * @return the new session.
+     * @throws IllegalArgumentException   if the board or the factory is null.
+     * @throws IllegalStateException      if the manager is not running.
+     * @throws RejectedExecutionException if every shard is overloaded.
+     */
+    public GameSession createSession(final Board board, final long seed, final ControllerFactory controllerFactory) {
+        if (board == null || controllerFactory == null) {
+            throw new IllegalArgumentException("invalid board or controllerFactory");
+        }
+        if (!running) {
+            throw new IllegalStateException("session manager not running");
+        }
+        Shard target = null;
+        for (Shard shard : shards) {
+            if (shard.load < maxLoad && getBacklog(shard) <= maxCatchUpTicks
+                    && (target == null || shard.sessionCount.get() < target.sessionCount.get())) {
+                target = shard;
+            }
+        }
+        if (target == null) {
+            throw new RejectedExecutionException("all shards are overloaded");
+        }
+        final GameSession session = new GameSession(nextSessionId.getAndIncrement(),
+                new PacManGame(board.copy(), seed, controllerFactory), target);
+        sessions.put(session.getId(), session);
+        target.sessionCount.incrementAndGet();
+        final Shard shard = target;
+        shard.submit(() -> shard.add(session));
+        return session;
+    }
+
+    /**
+     * Closes the session with the given id. Its game is not stepped any more.
+     *
+     * @param id the id of the session.
+     * @return false if there is no session with this id.
+     */
+    public boolean destroySession(final long id) {
+        final GameSession session = sessions.remove(id);
+        if (session == null) {
+            return false;
+        }
+        close(session, null);
+        return true;
+    }
+
+    /**
+     * Closes a session and removes it from its shard.
+     *
+     * @param session the session.
+     * @param failure the exception that closed the session, null if it was destroyed.
+     * @return false if the session was closed before.
+     */
+    private boolean close(final GameSession session, final RuntimeException failure) {
+        if (!session.markClosed(failure)) {
+            return false;
+        }
+        final Shard shard = shards[session.getShard()];
+        shard.sessionCount.decrementAndGet();
+        shard.submit(() -> shard.remove(session));
+        return true;
+    }
+
+    /**
+     * Returns the session with the given id.
+     *
+     * @param id the id of the session.
+     * @return the session or null if there is no open session with this id.
+     */
+    public GameSession getSession(final long id) {
+        return sessions.get(id);
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public int getNumberOfShards() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the current load of a shard.
+     *
+     * @param shard the index of the shard.
+     * @return the metrics of the shard.
+     * @throws IllegalArgumentException if there is no shard with this index.
+     */
+    public ShardMetrics getShardMetrics(final int shard) {
+        if (shard < 0 || shard >= shards.length) {
+            throw new IllegalArgumentException("invalid shard");
+        }
+        final Shard s = shards[shard];
+        return new ShardMetrics(shard, s.sessionCount.get(), s.ticks, s.overruns, s.droppedTicks, getBacklog(s),
+                s.load, s.failedCommands, s.failedSessions);
+    }
+
+    /**
+     * Returns the current load of all shards.
+     *
+     * @return the metrics of the shards, ordered by index.
+     */
+    public List<ShardMetrics> getShardMetrics() {
+        final List<ShardMetrics> metrics = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            metrics.add(getShardMetrics(i));
+        }
+        return metrics;
+    }
+
+    private long getBacklog(final Shard shard) {
+        return Math.max(0, currentTick - shard.doneTick);
+    }
+
+    /**
+     * The loop of the scheduler thread: advances the tick and wakes up the workers.
+     */
+    private void schedule() {
+        long nextTick = System.nanoTime() + tickNanos;
+        while (running) {
+            final long now = System.nanoTime();
+            if (now - nextTick >= 0) {
+                final long due = (now - nextTick) / tickNanos + 1;
+                currentTick += due;
+                nextTick += due * tickNanos;
+                for (Shard shard : shards) {
+                    LockSupport.unpark(shard.thread);
+                }
+            }
+            final long wait = nextTick - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    /**
+     * A worker thread together with the sessions pinned to it. The list of sessions is only accessed by the worker,
+     * other threads hand over their changes as commands.
+     */
+    final class Shard {
+
+        final int index;
+        private Thread thread;
+        private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+        private final List<GameSession> games = new ArrayList<>();
+        private final AtomicInteger sessionCount = new AtomicInteger();
+
+        private volatile long doneTick;
+        private volatile long ticks;
+        private volatile long overruns;
+        private volatile long droppedTicks;
+        private volatile double load;
+        private volatile long failedCommands;
+        private volatile long failedSessions;
+
+        Shard(int index) {
+            this.index = index;
+        }
+
+        /**
+         * Runs the command on the worker before the next tick.
+         */
+        void submit(final Runnable command) {
+            commands.add(command);
+            LockSupport.unpark(thread);
+        }
+
+        private void add(final GameSession session) {
+            if (!session.isClosed()) {
+                session.slot = games.size();
+                games.add(session);
+            }
+        }
+
+        private void remove(final GameSession session) {
+            final int slot = session.slot;
+            if (slot < 0) {
+                return;
+            }
+            final GameSession last = games.remove(games.size() - 1);
+            if (last != session) {
+                games.set(slot, last);
+                last.slot = slot;
+            }
+            session.slot = -1;
+        }
+
+        private void run() {
+            doneTick = currentTick;
+            while (running) {
+                Runnable command;
+                while ((command = commands.poll()) != null) {
+                    runCommand(command);
+                }
+                final long target = currentTick;
+                final long due = target - doneTick;
+                if (due > 0) {
+                    runTicks(due);
+                    doneTick = target;
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        }
+
+        /**
+         * Runs a command. A failing command is counted and does not stop the worker, the other games of the shard go
+         * on.
+         */
+        private void runCommand(final Runnable command) {
+            try {
+                command.run();
+            } catch (RuntimeException e) {
+                failedCommands++;
+            }
+        }
+
+        /**
+         * Runs the action of a session with its game. A session whose action throws an exception is closed, like a
+         * session whose game fails to step, since its game may be left in an inconsistent state.
+         */
+        void execute(final GameSession session, final Consumer<? super PacManGame> action) {
+            if (session.isClosed()) {
+                return;
+            }
+            try {
+                action.accept(session.getGame());
+            } catch (RuntimeException e) {
+                fail(session, e);
+                throw e;
+            }
+        }
+
+        /**
+         * Closes a session whose game or action threw an exception and keeps the exception in the session.
+         */
+        private void fail(final GameSession session, final RuntimeException failure) {
+            sessions.remove(session.getId(), session);
+            if (close(session, failure)) {
+                failedSessions++;
+            }
+        }
+
+        /**
+         * Runs the ticks that are due, at most {@code maxCatchUpTicks}, and updates the load.
+         */
+        private void runTicks(final long due) {
+            final long start = System.nanoTime();
+            if (due > 1) {
+                overruns++;
+            }
+            final long run = Math.min(due, maxCatchUpTicks);
+            for (long i = 0; i < run; i++) {
+                for (int g = 0; g < games.size(); g++) {
+                    step(games.get(g));
+                }
+            }
+            ticks += run;
+            if (due > run) {
+                droppedTicks += due - run;
+            }
+            final double sample = (double) (System.nanoTime() - start) / (run * tickNanos);
+            load += LOAD_SMOOTHING * (sample - load);
+        }
+
+        /**
+         * Steps the game of the session. A session whose game throws an exception is closed with the exception as its
+         * failure, so it does not affect the other games of the shard.
+         */
+        private void step(final GameSession session) {
+            if (session.isClosed()) {
+                return;
+            }
+            try {
+                session.getGame().step(tick);
+            } catch (RuntimeException e) {
+                fail(session, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package server;
+
+/**
+ * The load of a single shard of a {@link SessionManager} at the time it was requested.
+ */
+public class ShardMetrics {
+
+    private final int shard;
+    private final int sessions;
+    private final long ticks;
+    private final long overruns;
+    private final long droppedTicks;
+    private final long backlog;
+    private final double load;
+    private final long failedCommands;
+    private final long failedSessions;
+
+    public ShardMetrics(int shard, int sessions, long ticks, long overruns, long droppedTicks, long backlog,
+                        double load, long failedCommands, long failedSessions) {
+        this.shard = shard;
+        this.sessions = sessions;
+        this.ticks = ticks;
+        this.overruns = overruns;
+        this.droppedTicks = droppedTicks;
+        this.backlog = backlog;
+        this.load = load;
+        this.failedCommands = failedCommands;
+        this.failedSessions = failedSessions;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Returns the number of ticks the shard has run, every tick steps all of its games once.
+     *
+     * @return the number of ticks.
+     */
+    public long getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Returns how often the shard was more than one tick behind the scheduler and had to catch up.
+     *
+     * @return the number of overruns.
+     */
+    public long getOverruns() {
+        return overruns;
+    }
+
+    /**
+     * Returns the number of ticks the shard skipped because it was too far behind.
+     *
+     * @return the number of dropped ticks.
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * Returns the number of ticks the shard is currently behind the scheduler.
+     *
+     * @return the backlog in ticks.
+     */
+    public long getBacklog() {
+        return backlog;
+    }
+
+    /**
+     * Returns the share of the tick time the shard is busy stepping its games, averaged over the recent ticks. A load
+     * of 1 or more means the shard does not keep up.
+     *
+     * @return the load of the shard.
+     */
+    public double getLoad() {
+        return load;
+    }
+
+    /**
+     * Returns the number of commands that failed with an exception on the worker of the shard, e.g. actions passed to
+     * {@link GameSession#execute(java.util.function.Consumer)}.
+     *
+     * @return the number of failed commands.
+     */
+    public long getFailedCommands() {
+        return failedCommands;
+    }
+
+    /**
+     * Returns the number of sessions of the shard that were closed because their game failed to step or an action
+     * failed, see {@link GameSession#getFailure()}.
+     *
+     * @return the number of failed sessions.
+     */
+    public long getFailedSessions() {
+        return failedSessions;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        sb.append("shard: ").append(shard);
+        sb.append(", sessions: ").append(sessions);
+        sb.append(", ticks: ").append(ticks);
+        sb.append(", overruns: ").append(overruns);
+        sb.append(", droppedTicks: ").append(droppedTicks);
+        sb.append(", backlog: ").append(backlog);
+        sb.append(", load: ").append(String.format("%.3f", load));
+        sb.append(", failedCommands: ").append(failedCommands);
+        sb.append(", failedSessions: ").append(failedSessions);
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package simulation;
+
+import java.util.Collections;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * The aggregated outcome of a {@link BatchSimulator} run.
+ */
+public class BatchResult {
+
+    private final List<GameResult> gameResults;
+    private final long elapsedNanos;
+    private final long totalSteps;
+
+    public BatchResult(List<GameResult> gameResults, long elapsedNanos) {
+        if (gameResults == null || elapsedNanos < 0) {
+            throw new IllegalArgumentException("invalid game results or elapsed time");
+        }
+        this.gameResults = Collections.unmodifiableList(gameResults);
+        this.elapsedNanos = elapsedNanos;
+        long steps = 0;
+        for (GameResult result : gameResults) {
+            steps += result.getSteps();
+        }
+        this.totalSteps = steps;
+    }
+
+    /**
+     * Returns the results of the single games, ordered by their index.
+     *
+     * @return the results of the single games.
+     */
+    public List<GameResult> getGameResults() {
+        return gameResults;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public long getTotalSteps() {
+        return totalSteps;
+    }
+
+    /**
+     * Returns the number of steps performed per second over all games.
+     *
+     * @return the steps per second.
+     */
+    public double getStepsPerSecond() {
+        return perSecond(totalSteps);
+    }
+
+    /**
+     * Returns the number of games simulated per second.
+     *
+     * @return the games per second.
+     */
+    public double getGamesPerSecond() {
+        return perSecond(gameResults.size());
+    }
+
+    public double getAverageScore() {
+        return gameResults.stream().mapToLong(GameResult::getScore).average().orElse(0);
+    }
+
+    private double perSecond(long count) {
+        if (elapsedNanos == 0) {
+            return 0;
+        }
+        return count * (double) SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[games: %d, steps: %d, elapsed: %.3f s, steps/s: %.0f, games/s: %.1f, avg score: %.1f]",
+                gameResults.size(), totalSteps, elapsedNanos / (double) SECONDS.toNanos(1), getStepsPerSecond(),
+                getGamesPerSecond(), getAverageScore());
+    }
+}
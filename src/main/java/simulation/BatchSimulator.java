@@ -0,0 +1,129 @@
+package simulation;
+
+import game.Board;
+import game.PacManGame;
+import view.ControllerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a batch of independent, headless {@link PacManGame}s. Every game gets its own copy of the board and its own
+ * seed and is driven by {@link PacManGame#step(long)} with a fixed, simulated duration, so the results do not depend on
+ * the wall-clock time. The games are spread over the workers of a {@link ForkJoinPool}.
+ */
+public class BatchSimulator {
+
+    /**
+     * Number of games a single task simulates before it is not split any further.
+     */
+    private static final int GAMES_PER_TASK = 4;
+
+    private final Board board;
+    private final ControllerFactory controllerFactory;
+    private final int numberOfGames;
+    private final long maxSteps;
+    private final long stepDuration;
+    private final long seed;
+    private final int parallelism;
+
+    public BatchSimulator(Board board, ControllerFactory controllerFactory, int numberOfGames, long maxSteps,
+                          long stepDuration, long seed) {
+        this(board, controllerFactory, numberOfGames, maxSteps, stepDuration, seed,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new simulator.
+     *
+     * @param board             the board every game is played on. Each game gets its own copy of it.
+     * @param controllerFactory the factory providing the controllers of the actors.
+     * @param numberOfGames     the number of games to simulate.
+     * @param maxSteps          the maximum number of steps per game, a game stops earlier if it is over.
+     * @param stepDuration      the simulated time (in milliseconds) passed to every step.
+     * @param seed              the seed of the first game, the following games use the next seeds.
+     * @param parallelism       the number of worker threads.
+     * @throws IllegalArgumentException if the board or the factory is null or one of the numbers is not positive.
+     */
+    public BatchSimulator(Board board, ControllerFactory controllerFactory, int numberOfGames, long maxSteps,
+                          long stepDuration, long seed, int parallelism) {
+        if (board == null || controllerFactory == null) {
+            throw new IllegalArgumentException("invalid board or controllerFactory");
+        }
+        if (numberOfGames <= 0 || maxSteps <= 0 || stepDuration <= 0 || parallelism <= 0) {
+            throw new IllegalArgumentException("number of games, steps, step duration and parallelism must be positive");
+        }
+        this.board = board;
+        this.controllerFactory = controllerFactory;
+        this.numberOfGames = numberOfGames;
+        this.maxSteps = maxSteps;
+        this.stepDuration = stepDuration;
+        this.seed = seed;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Simulates all games and blocks until they are finished.
+     *
+     * @return the results of the games together with the measured throughput.
+     */
+    public BatchResult run() {
+        final GameResult[] results = new GameResult[numberOfGames];
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            final long start = System.nanoTime();
+            pool.invoke(new SimulationTask(results, 0, numberOfGames));
+            final long elapsed = System.nanoTime() - start;
+            return new BatchResult(new ArrayList<>(Arrays.asList(results)), elapsed);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays a single game until it is over or the maximum number of steps is reached.
+     *
+     * @param gameIndex the index of the game within the batch.
+     * @return the result of the game.
+     */
+    private GameResult simulate(final int gameIndex) {
+        final long gameSeed = seed + gameIndex;
+        final PacManGame game = new PacManGame(board.copy(), gameSeed, controllerFactory);
+        long steps = 0;
+        while (steps < maxSteps && !game.isGameOver()) {
+            game.step(stepDuration);
+            steps++;
+        }
+        return new GameResult(gameIndex, gameSeed, game.getScore(), game.getStageCounter(), game.getLives(),
+                game.isGameOver(), steps);
+    }
+
+    private class SimulationTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final GameResult[] results;
+        private final int from;
+        private final int to;
+
+        SimulationTask(GameResult[] results, int from, int to) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = simulate(i);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new SimulationTask(results, from, middle), new SimulationTask(results, middle, to));
+            }
+        }
+    }
+}
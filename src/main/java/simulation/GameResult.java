@@ -0,0 +1,67 @@
+package simulation;
+
+/**
+ * The outcome of a single game run by the {@link BatchSimulator}.
+ */
+public class GameResult {
+
+    private final int gameIndex;
+    private final long seed;
+    private final long score;
+    private final int stage;
+    private final int lives;
+    private final boolean gameOver;
+    private final long steps;
+
+    public GameResult(int gameIndex, long seed, long score, int stage, int lives, boolean gameOver, long steps) {
+        this.gameIndex = gameIndex;
+        this.seed = seed;
+        this.score = score;
+        this.stage = stage;
+        this.lives = lives;
+        this.gameOver = gameOver;
+        this.steps = steps;
+    }
+
+    public int getGameIndex() {
+        return gameIndex;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public int getStage() {
+        return stage;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public long getSteps() {
+        return steps;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        sb.append("game: ").append(gameIndex);
+        sb.append(", seed: ").append(seed);
+        sb.append(", score: ").append(score);
+        sb.append(", stage: ").append(stage);
+        sb.append(", lives: ").append(lives);
+        sb.append(", gameOver: ").append(gameOver);
+        sb.append(", steps: ").append(steps);
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,327 @@
+package simulation;
+
+import enums.Direction;
+import game.Board;
+import game.GameInfo;
+import game.GhostInfo;
+import game.PacManGame;
+import view.ActorController;
+import view.ControllerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A vectorised environment for training agents that control Pac-Man, in the style of the environments of reinforcement
+ * learning libraries. It holds a number of independent, headless {@link PacManGame}s and steps all of them at once,
+ * every game by one move of Pac-Man, spread over the workers of a {@link ForkJoinPool}.
+ * <p>
+ * The results of a step are written to arrays that are created once and reused for every step, and the workers wait for
+ * each other by spinning, so stepping does not allocate unless a step takes unusually long:
+ * <ul>
+ * <li>{@link #getObservations()}: the {@link PacManGame#BIT_PLANES} bit planes of every game as written by
+ * {@link PacManGame#writeBitPlanes(long[], int)}, the planes of game {@code i} start at
+ * {@code i * getObservationSize()}.</li>
+ * <li>{@link #getRewards()}: the points Pac-Man earned in the step.</li>
+ * <li>{@link #getDones()}: whether the episode ended in the step, because the game is over or the maximum number of
+ * steps was reached.</li>
+ * </ul>
+ * A game whose episode ended is reset automatically: its observation already shows the start of the next episode, while
+ * its reward and done flag belong to the last step of the ended episode. A reset restores a snapshot of the game taken
+ * when it was created, so every episode of a game starts on the same board, and reseeds the game, see
+ * {@link PacManGame#reseed(long)}. Episode {@code e} of game {@code i} uses the seed
+ * {@code seed + i + e * numberOfGames}, so the episodes of all games get different random numbers, the same ones for
+ * the same seed of the environment.
+ * <p>
+ * An environment is not thread-safe, {@link #reset()} and {@link #step(int[])} must not be invoked concurrently.
+ */
+public class VectorEnvironment {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The number of times {@link #await(ForkJoinTask)} spins while waiting for a task before it blocks.
+     */
+    private static final int SPINS = 1 << 16;
+
+    private final int numberOfGames;
+    private final long maxEpisodeSteps;
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    private final PacManGame[] games;
+    private final ActionController[] controllers;
+    private final ByteBuffer[] starts;
+    private final long[] episodeSteps;
+
+    /**
+     * The number of episodes every game started.
+     */
+    private final long[] episodes;
+    private final int observationSize;
+
+    private final long[] observations;
+    private final float[] rewards;
+    private final boolean[] dones;
+
+    private final StepTask[] tasks;
+    private final RecursiveAction stepAll;
+    private boolean resetting;
+
+    public VectorEnvironment(Board board, ControllerFactory ghostControllers, int numberOfGames, long maxEpisodeSteps,
+                             long seed) {
+        this(board, ghostControllers, numberOfGames, maxEpisodeSteps, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a new environment.
+     *
+     * @param board            the board every game is played on. Each game gets its own copy of it.
+     * @param ghostControllers the factory providing the controllers of the ghosts, Pac-Man is controlled by the
+     *                         actions passed to {@link #step(int[])}.
+     * @param numberOfGames    the number of games.
+     * @param maxEpisodeSteps  the maximum number of steps of an episode.
+     * @param seed             the seed of the first game, the following games use the next seeds.
+     * @param pool             the pool that steps the games.
+     * @throws IllegalArgumentException if the board, the factory or the pool is null or one of the numbers is not
+     *                                  positive.
+     */
+    public VectorEnvironment(Board board, ControllerFactory ghostControllers, int numberOfGames, long maxEpisodeSteps,
+                             long seed, ForkJoinPool pool) {
+        if (board == null || ghostControllers == null || pool == null) {
+            throw new IllegalArgumentException("invalid board, ghostControllers or pool");
+        }
+        if (numberOfGames <= 0 || maxEpisodeSteps <= 0) {
+            throw new IllegalArgumentException("number of games and episode steps must be positive");
+        }
+        this.numberOfGames = numberOfGames;
+        this.maxEpisodeSteps = maxEpisodeSteps;
+        this.seed = seed;
+        this.pool = pool;
+        games = new PacManGame[numberOfGames];
+        controllers = new ActionController[numberOfGames];
+        starts = new ByteBuffer[numberOfGames];
+        episodeSteps = new long[numberOfGames];
+        episodes = new long[numberOfGames];
+        for (int i = 0; i < numberOfGames; i++) {
+            final ActionController controller = new ActionController();
+            controllers[i] = controller;
+            games[i] = new PacManGame(board.copy(), seed + i, new ControllerFactory() {
+                @Override
+                public ActorController getGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+                    return ghostControllers.getGhostController(gameInfo, ghostInfo);
+                }
+
+                @Override
+                public ActorController getPacManController(final GameInfo gameInfo) {
+                    return controller;
+                }
+            });
+            starts[i] = games[i].snapshot();
+        }
+        observationSize = PacManGame.BIT_PLANES * games[0].getBitPlaneWords();
+        observations = new long[numberOfGames * observationSize];
+        rewards = new float[numberOfGames];
+        dones = new boolean[numberOfGames];
+
+        final int numberOfTasks = Math.min(numberOfGames, pool.getParallelism());
+        tasks = new StepTask[numberOfTasks];
+        for (int t = 0; t < numberOfTasks; t++) {
+            tasks[t] = new StepTask((int) ((long) numberOfGames * t / numberOfTasks),
+                    (int) ((long) numberOfGames * (t + 1) / numberOfTasks));
+        }
+        stepAll = new RecursiveAction() {
+            @Override
+            protected void compute() {
+                for (int t = tasks.length - 1; t > 0; t--) {
+                    tasks[t].reinitialize();
+                    tasks[t].fork();
+                }
+                tasks[0].reinitialize();
+                tasks[0].invoke();
+                for (int t = 1; t < tasks.length; t++) {
+                    if (tasks[t].tryUnfork()) {
+                        tasks[t].invoke();
+                    } else {
+                        await(tasks[t]);
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Resets every game to the start of a new episode and writes the observations.
+     *
+     * @return the observations, see {@link #getObservations()}.
+     */
+    public long[] reset() {
+        resetting = true;
+        runAll();
+        return observations;
+    }
+
+    /**
+     * Performs one move of Pac-Man in every game and writes the observations, rewards and done flags. Games whose
+     * episode ended are reset.
+     *
+     * @param actions the ordinal of the {@link Direction} of Pac-Man for every game.
+     * @throws IllegalArgumentException if the number of actions does not match the number of games or an action is
+     *                                  not the ordinal of a direction.
+     */
+    public void step(final int[] actions) {
+        if (actions == null || actions.length != numberOfGames) {
+            throw new IllegalArgumentException("one action per game expected");
+        }
+        for (int i = 0; i < numberOfGames; i++) {
+            if (actions[i] < 0 || actions[i] >= DIRECTIONS.length) {
+                throw new IllegalArgumentException("invalid action of game " + i + ": " + actions[i]);
+            }
+            controllers[i].action = actions[i];
+        }
+        resetting = false;
+        runAll();
+    }
+
+    private void runAll() {
+        stepAll.reinitialize();
+        pool.execute(stepAll);
+        await(stepAll);
+    }
+
+    /**
+     * Waits for a task that runs on another thread. Blocking in {@link ForkJoinTask#join()} allocates a node for the
+     * waiting thread, so the usual short steps are awaited by spinning and only long ones block.
+     *
+     * @param task the task.
+     */
+    private static void await(final ForkJoinTask<?> task) {
+        for (int i = 0; i < SPINS && !task.isDone(); i++) {
+            Thread.onSpinWait();
+        }
+        task.join();
+    }
+
+    private void reset(final int game) {
+        final ByteBuffer start = starts[game];
+        start.clear();
+        games[game].restore(start);
+        games[game].reseed(seed + game + episodes[game]++ * numberOfGames);
+        episodeSteps[game] = 0;
+    }
+
+    private void step(final int game) {
+        final PacManGame pacManGame = games[game];
+        if (resetting) {
+            reset(game);
+            rewards[game] = 0;
+            dones[game] = false;
+        } else {
+            final long score = pacManGame.getScore();
+            pacManGame.step(PacManGame.PACMAN_MOVE_TIME);
+            rewards[game] = pacManGame.getScore() - score;
+            dones[game] = pacManGame.isGameOver() || ++episodeSteps[game] >= maxEpisodeSteps;
+            if (dones[game]) {
+                reset(game);
+            }
+        }
+        pacManGame.writeBitPlanes(observations, game * observationSize);
+    }
+
+    public int getNumberOfGames() {
+        return numberOfGames;
+    }
+
+    /**
+     * Returns the number of {@code long}s of the observation of a single game.
+     *
+     * @return the size of an observation.
+     */
+    public int getObservationSize() {
+        return observationSize;
+    }
+
+    /**
+     * Returns the number of {@code long}s of a single bit plane, see {@link PacManGame#getBitPlaneWords()}.
+     *
+     * @return the number of words per plane.
+     */
+    public int getBitPlaneWords() {
+        return observationSize / PacManGame.BIT_PLANES;
+    }
+
+    /**
+     * Returns the observations of the games after the last step or reset. The array is reused.
+     *
+     * @return the observations.
+     */
+    public long[] getObservations() {
+        return observations;
+    }
+
+    /**
+     * Returns the rewards of the games in the last step. The array is reused.
+     *
+     * @return the rewards.
+     */
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    /**
+     * Returns the done flags of the games in the last step. The array is reused.
+     *
+     * @return the done flags.
+     */
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    /**
+     * Returns the game with the given index, e.g. to observe it. The game must not be stepped or restored directly.
+     *
+     * @param game the index of the game.
+     * @return the game.
+     */
+    public PacManGame getGame(final int game) {
+        return games[game];
+    }
+
+    /**
+     * The controller of Pac-Man in a game: returns the action of the current step.
+     */
+    private static class ActionController implements ActorController {
+
+        private int action;
+
+        @Override
+        public Direction getMove() {
+            return DIRECTIONS[action];
+        }
+    }
+
+    /**
+     * Steps or resets a contiguous range of games.
+     */
+    private class StepTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        StepTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = from; i < to; i++) {
+                step(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package spectator;
+
+import enums.ActorType;
+import enums.ExtraItem;
+import enums.GameEventType;
+import game.PacManGame;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * A blocking client of a {@link SpectatorServer}, e.g. for tests or tools on the same host. It watches a single feed
+ * and applies the received frames to a copy of the state of the game, which can be compared with the game itself.
+ * The client is not thread-safe.
+ */
+public class SpectatorClient implements Closeable {
+
+    private static final GameEventType[] EVENT_TYPES = GameEventType.values();
+    private static final ActorType[] ACTOR_TYPES = ActorType.values();
+    private static final ExtraItem[] EXTRA_ITEMS = ExtraItem.values();
+
+    private final SocketChannel channel;
+    private final ByteBuffer header = ByteBuffer.allocate(SpectatorProtocol.LENGTH_SIZE);
+    private ByteBuffer frame = ByteBuffer.allocate(1024);
+
+    private boolean synced;
+    private long step;
+    private long score;
+    private int lives;
+    private int stage;
+    private boolean gameOver;
+    private boolean powerPelletMode;
+    private int rows;
+    private int columns;
+    private int words;
+    private long[] planes = new long[0];
+    private int extraItemIndex = -1;
+    private ExtraItem extraItem;
+
+    private long keyframes;
+    private long deltas;
+
+    /**
+     * Connects to a server and subscribes to a feed.
+     *
+     * @param address the address of the server.
+     * @param feedId  the id of the feed to watch.
+     * @throws IOException if the server cannot be reached.
+     */
+    public SpectatorClient(InetSocketAddress address, long feedId) throws IOException {
+        if (address == null) {
+            throw new IllegalArgumentException("invalid address");
+        }
+        channel = SocketChannel.open(address);
+        final ByteBuffer subscription = ByteBuffer.allocate(8);
+        subscription.putLong(0, feedId);
+        while (subscription.hasRemaining()) {
+            channel.write(subscription);
+        }
+    }
+
+    /**
+     * Reads the next frame and applies it. Blocks until a frame is received.
+     *
+     * @return false if the server closed the connection.
+     * @throws IOException           if the connection fails or the frame is malformed.
+     * @throws IllegalStateException if a delta is received before the first keyframe.
+     */
+    public boolean readFrame() throws IOException {
+        header.clear();
+        if (!readFully(header, true)) {
+            return false;
+        }
+        final int length = header.getInt(0);
+        if (length <= 0 || length > SpectatorProtocol.MAX_FRAME_SIZE) {
+            throw new IOException("invalid frame length: " + length);
+        }
+        if (frame.capacity() < length) {
+            frame = ByteBuffer.allocate(Math.max(length, frame.capacity() * 2));
+        }
+        frame.clear();
+        frame.limit(length);
+        readFully(frame, false);
+        frame.flip();
+        try {
+            apply(frame);
+        } catch (RuntimeException e) {
+            throw new IOException("malformed frame", e);
+        }
+        return true;
+    }
+
+    private boolean readFully(final ByteBuffer buffer, final boolean eofAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (eofAllowed && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("connection closed in the middle of a frame");
+            }
+        }
+        return true;
+    }
+
+    private void apply(final ByteBuffer in) {
+        final byte type = in.get();
+        step = SpectatorProtocol.getVarLong(in);
+        score = SpectatorProtocol.getVarLong(in);
+        lives = SpectatorProtocol.getVarInt(in);
+        stage = SpectatorProtocol.getVarInt(in);
+        final int flags = in.get();
+        gameOver = (flags & SpectatorProtocol.GAME_OVER_FLAG) != 0;
+        powerPelletMode = (flags & SpectatorProtocol.POWER_PELLET_MODE_FLAG) != 0;
+        if (type == SpectatorProtocol.KEYFRAME) {
+            applyKeyframe(in);
+            keyframes++;
+        } else if (type == SpectatorProtocol.DELTA) {
+            if (!synced) {
+                throw new IllegalStateException("delta before the first keyframe");
+            }
+            applyDelta(in);
+            deltas++;
+        } else {
+            throw new IllegalStateException("unknown frame type: " + type);
+        }
+    }
+
+    private void applyKeyframe(final ByteBuffer in) {
+        rows = SpectatorProtocol.getVarInt(in);
+        columns = SpectatorProtocol.getVarInt(in);
+        extraItemIndex = SpectatorProtocol.getVarInt(in) - 1;
+        extraItem = extraItemIndex >= 0 ? EXTRA_ITEMS[in.get()] : null;
+        words = (rows * columns + 63) >>> 6;
+        if (planes.length != PacManGame.BIT_PLANES * words) {
+            planes = new long[PacManGame.BIT_PLANES * words];
+        }
+        for (int i = 0; i < planes.length; i++) {
+            planes[i] = in.getLong();
+        }
+        synced = true;
+    }
+
+    private void applyDelta(final ByteBuffer in) {
+        final int count = SpectatorProtocol.getVarInt(in);
+        for (int e = 0; e < count; e++) {
+            switch (EVENT_TYPES[in.get()]) {
+                case ACTOR_SET: {
+                    final ActorType actor = ACTOR_TYPES[in.get()];
+                    final int index = SpectatorProtocol.getVarInt(in);
+                    if (actor == ActorType.PACMAN) {
+                        set(PacManGame.PACMAN_PLANE, index, true);
+                        set(PacManGame.PAC_DOT_PLANE, index, false);
+                        set(PacManGame.POWER_PELLET_PLANE, index, false);
+                        if (index == extraItemIndex) {
+                            extraItemIndex = -1;
+                            extraItem = null;
+                        }
+                    } else {
+                        set(PacManGame.GHOST_PLANE, index, true);
+                    }
+                    break;
+                }
+                case ACTOR_REMOVED: {
+                    final ActorType actor = ACTOR_TYPES[in.get()];
+                    final int index = SpectatorProtocol.getVarInt(in);
+                    set(actor == ActorType.PACMAN ? PacManGame.PACMAN_PLANE : PacManGame.GHOST_PLANE, index, false);
+                    break;
+                }
+                case EXTRA_ITEM_PLACED:
+                    extraItemIndex = SpectatorProtocol.getVarInt(in);
+                    extraItem = EXTRA_ITEMS[in.get()];
+                    break;
+                case EXTRA_ITEM_VANISHED:
+                    extraItemIndex = -1;
+                    extraItem = null;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void set(final int plane, final int index, final boolean value) {
+        final int word = plane * words + (index >>> 6);
+        if (value) {
+            planes[word] |= 1L << index;
+        } else {
+            planes[word] &= ~(1L << index);
+        }
+    }
+
+    private boolean get(final int plane, final int index) {
+        return (planes[plane * words + (index >>> 6)] & 1L << index) != 0;
+    }
+
+    /**
+     * Returns whether a keyframe was received, i.e. whether the state of the client is complete.
+     *
+     * @return true if the client is in sync with the game.
+     */
+    public boolean isSynced() {
+        return synced;
+    }
+
+    /**
+     * Returns the number of the step of the last frame, counted by the feed.
+     *
+     * @return the number of the step.
+     */
+    public long getStep() {
+        return step;
+    }
+
+    public long getScore() {
+        return score;
+    }
+
+    public int getLives() {
+        return lives;
+    }
+
+    public int getStage() {
+        return stage;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isPowerPelletMode() {
+        return powerPelletMode;
+    }
+
+    public int getNumberOfRows() {
+        return rows;
+    }
+
+    public int getNumberOfColumns() {
+        return columns;
+    }
+
+    public boolean isWall(final int index) {
+        return get(PacManGame.WALL_PLANE, index);
+    }
+
+    public boolean hasPacDot(final int index) {
+        return get(PacManGame.PAC_DOT_PLANE, index);
+    }
+
+    public boolean hasPowerPellet(final int index) {
+        return get(PacManGame.POWER_PELLET_PLANE, index);
+    }
+
+    public boolean hasGhost(final int index) {
+        return get(PacManGame.GHOST_PLANE, index);
+    }
+
+    public boolean hasPacMan(final int index) {
+        return get(PacManGame.PACMAN_PLANE, index);
+    }
+
+    /**
+     * Returns the index of the field with the extra item.
+     *
+     * @return the index of the field or -1 if there is no extra item.
+     */
+    public int getExtraItemIndex() {
+        return extraItemIndex;
+    }
+
+    public ExtraItem getExtraItem() {
+        return extraItem;
+    }
+
+    /**
+     * Returns a copy of the bit planes of the board, in the layout of
+     * {@link PacManGame#writeBitPlanes(long[], int)}.
+     *
+     * @return the bit planes.
+     */
+    public long[] getBitPlanes() {
+        return Arrays.copyOf(planes, planes.length);
+    }
+
+    public long getKeyframes() {
+        return keyframes;
+    }
+
+    public long getDeltas() {
+        return deltas;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,177 @@
+package spectator;
+
+import enums.ExtraItem;
+import enums.GameEventType;
+import game.BatchGameObserver;
+import game.BoardInfo;
+import game.GameEventBatch;
+import game.PacManGame;
+import game.Point;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Publishes the steps of a game to the spectators of a {@link SpectatorServer}. The feed is a {@link BatchGameObserver}
+ * and has to be added to the game on the thread that steps it, e.g. with
+ * {@code session.execute(game -> game.addBatchObserver(feed))} for a session of a {@code SessionManager}.
+ * <p>
+ * Every step is encoded once into a frame of the {@link SpectatorProtocol} on the game thread, the frame is shared by
+ * all clients watching the feed. Sending the frames is left to the thread of the server, so slow clients never hold up
+ * the game.
+ */
+public final class SpectatorFeed implements BatchGameObserver, Closeable {
+
+    private static final ExtraItem[] EXTRA_ITEMS = ExtraItem.values();
+
+    private final SpectatorServer server;
+    private final long id;
+    private final PacManGame game;
+    private final BoardInfo board;
+    private final int keyframeInterval;
+
+    private final long[] planes;
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+    private long step;
+    private boolean keyframeDue = true;
+
+    /**
+     * The extra item on the board at the end of the current step, read from the game.
+     */
+    private int extraItemIndex = -1;
+    private ExtraItem extraItem;
+
+    private volatile boolean closed;
+
+    /**
+     * Client states of this feed, only accessed by the thread of the server.
+     */
+    final List<SpectatorServer.Client> clients = new ArrayList<>();
+
+    /**
+     * The last keyframe and the deltas published after it, only accessed by the thread of the server. A client that
+     * joins gets all of them, so it is in sync at once. The next keyframe bounds the number of deltas.
+     */
+    byte[] lastKeyframe;
+    final List<byte[]> deltasSinceKeyframe = new ArrayList<>();
+
+    SpectatorFeed(SpectatorServer server, long id, PacManGame game, int keyframeInterval) {
+        this.server = server;
+        this.id = id;
+        this.game = game;
+        this.board = game.getBoardInfo();
+        this.keyframeInterval = keyframeInterval;
+        this.planes = new long[PacManGame.BIT_PLANES * game.getBitPlaneWords()];
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops publishing the game and disconnects its clients. The feed should be removed from the game as well.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            server.removeFeed(this);
+        }
+    }
+
+    @Override
+    public void stepDone(final GameEventBatch events) {
+        if (closed) {
+            return;
+        }
+        step++;
+        boolean forced = keyframeDue || game.getDirtyCells().isAll();
+        for (int i = 0; i < events.size() && !forced; i++) {
+            forced = events.getType(i) == GameEventType.NEXT_STAGE;
+        }
+        final Point extraItemPosition = game.getExtraItemPosition();
+        extraItemIndex = extraItemPosition == null ? -1 : board.indexOf(extraItemPosition);
+        extraItem = game.getExtraItem();
+        if (forced) {
+            keyframeDue = false;
+            server.publish(this, encodeKeyframe(), true, true);
+        } else {
+            server.publish(this, encodeDelta(events), false, false);
+            if (step % keyframeInterval == 0) {
+                server.publish(this, encodeKeyframe(), true, false);
+            }
+        }
+    }
+
+    private byte[] encodeKeyframe() {
+        ensureCapacity(64 + planes.length * 8);
+        startFrame(SpectatorProtocol.KEYFRAME);
+        SpectatorProtocol.putVarLong(buffer, board.getNumberOfRows());
+        SpectatorProtocol.putVarLong(buffer, board.getNumberOfColumns());
+        SpectatorProtocol.putVarLong(buffer, extraItemIndex + 1);
+        if (extraItemIndex >= 0) {
+            buffer.put((byte) extraItem.ordinal());
+        }
+        game.writeBitPlanes(planes, 0);
+        for (long word : planes) {
+            buffer.putLong(word);
+        }
+        return finishFrame();
+    }
+
+    private byte[] encodeDelta(final GameEventBatch events) {
+        ensureCapacity(64 + events.size() * 12);
+        startFrame(SpectatorProtocol.DELTA);
+        SpectatorProtocol.putVarLong(buffer, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            final GameEventType type = events.getType(i);
+            buffer.put((byte) type.ordinal());
+            switch (type) {
+                case ACTOR_SET:
+                case ACTOR_REMOVED:
+                    buffer.put((byte) events.getActorType(i).ordinal());
+                    SpectatorProtocol.putVarLong(buffer, board.indexOf(events.getX(i), events.getY(i)));
+                    break;
+                case EXTRA_ITEM_PLACED:
+                    final int index = board.indexOf(events.getX(i), events.getY(i));
+                    SpectatorProtocol.putVarLong(buffer, index);
+                    buffer.put((byte) (index == extraItemIndex ? extraItem : EXTRA_ITEMS[0]).ordinal());
+                    break;
+                default:
+                    break;
+            }
+        }
+        return finishFrame();
+    }
+
+    private void startFrame(final byte type) {
+        buffer.clear();
+        buffer.position(SpectatorProtocol.LENGTH_SIZE);
+        buffer.put(type);
+        SpectatorProtocol.putVarLong(buffer, step);
+        SpectatorProtocol.putVarLong(buffer, game.getScore());
+        SpectatorProtocol.putVarLong(buffer, game.getLives());
+        SpectatorProtocol.putVarLong(buffer, game.getStageCounter());
+        buffer.put((byte) ((game.isGameOver() ? SpectatorProtocol.GAME_OVER_FLAG : 0)
+                | (game.isPowerPelletMode() ? SpectatorProtocol.POWER_PELLET_MODE_FLAG : 0)));
+    }
+
+    private byte[] finishFrame() {
+        buffer.putInt(0, buffer.position() - SpectatorProtocol.LENGTH_SIZE);
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (buffer.capacity() < capacity) {
+            buffer = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package spectator;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary protocol between a {@link SpectatorServer} and its clients. After connecting, a client sends the id of
+ * the feed it wants to watch as a {@code long}. From then on the server sends frames, all numbers big-endian:
+ * <pre>
+ *  int     length of the rest of the frame
+ *  byte    type, KEYFRAME or DELTA
+ *  varint  number of the step
+ *  varint  score
+ *  varint  lives
+ *  varint  stage
+ *  byte    flags, GAME_OVER_FLAG and POWER_PELLET_MODE_FLAG
+ * </pre>
+ * A keyframe holds the complete state of the board:
+ * <pre>
+ *  varint  number of rows
+ *  varint  number of columns
+ *  varint  index of the field with the extra item + 1, 0 if there is no extra item
+ *  byte    ordinal of the extra item (only if there is one)
+ *  longs   the bit planes, see {@link game.PacManGame#writeBitPlanes(long[], int)}
+ * </pre>
+ * A delta holds the events of one step, applied to the state of the previous frame:
+ * <pre>
+ *  varint  number of events
+ *  events  byte ordinal of the {@link enums.GameEventType}, followed for
+ *          ACTOR_SET and ACTOR_REMOVED by: byte ordinal of the actor type, varint index of the field
+ *          EXTRA_ITEM_PLACED by: varint index of the field, byte ordinal of the extra item
+ * </pre>
+ * Pac-Man eats the pac-dot, power pellet and extra item of every field he is set on. A new client, and a client that
+ * fell too far behind, receives the next keyframe before any delta. Keyframes that cannot be expressed by a delta, e.g.
+ * after the next stage started, are sent to all clients.
+ * <p>
+ * Varints store seven bits per byte, least significant group first, the highest bit of a byte is set if another byte
+ * follows.
+ */
+final class SpectatorProtocol {
+
+    static final byte KEYFRAME = 1;
+    static final byte DELTA = 2;
+
+    static final int GAME_OVER_FLAG = 1;
+    static final int POWER_PELLET_MODE_FLAG = 2;
+
+    /**
+     * Size (in bytes) of the length of a frame.
+     */
+    static final int LENGTH_SIZE = 4;
+
+    /**
+     * Maximum size (in bytes) of a frame a client accepts.
+     */
+    static final int MAX_FRAME_SIZE = 64 << 20;
+
+    private SpectatorProtocol() {
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("malformed varint");
+    }
+
+    static int getVarInt(ByteBuffer buffer) {
+        final long value = getVarLong(buffer);
+        if (value > Integer.MAX_VALUE) {
+            throw new IllegalStateException("malformed varint");
+        }
+        return (int) value;
+    }
+}
@@ -0,0 +1,533 @@
+package spectator;
+
+import game.PacManGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Streams live games to spectators over TCP, see {@link SpectatorProtocol}. A single thread serves all connections with
+ * a non-blocking {@link Selector}, the frames are encoded by the {@link SpectatorFeed}s on the game threads.
+ * <p>
+ * A client that subscribes to a feed gets its last keyframe and the deltas published since, so it is in sync right
+ * away. Every client has a queue of frames that were not sent yet. The current keyframe of a feed and the deltas since
+ * it are always queued, whatever their size, since a client needs all of them to get in sync; on a large board a
+ * keyframe alone may exceed the backlog. If a client is still busy with an older keyframe when a new one is published
+ * and its queue exceeds {@code maxClientBacklog} bytes, the frames it did not start yet are dropped and it continues
+ * with the new keyframe. A client that does not accept any data for {@code writeTimeout} milliseconds is disconnected.
+ * Neither ever blocks a game.
+ */
+public class SpectatorServer implements Closeable {
+
+    /**
+     * Default number of steps between two keyframes.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 100;
+
+    /**
+     * Default maximum number of bytes queued for a client.
+     */
+    public static final int DEFAULT_MAX_CLIENT_BACKLOG = 256 * 1024;
+
+    /**
+     * Default time (in milliseconds) after which a client that does not accept data is disconnected.
+     */
+    public static final long DEFAULT_WRITE_TIMEOUT = 5000;
+
+    /**
+     * Time (in milliseconds) between two checks of the write timeouts.
+     */
+    private static final long TIMEOUT_CHECK_INTERVAL = 250;
+
+    /**
+     * Maximum number of frames written to a client at once.
+     */
+    private static final int MAX_GATHER = 64;
+
+    private final InetSocketAddress address;
+    private final int maxClientBacklog;
+    private final long writeTimeoutNanos;
+
+    private final Map<Long, SpectatorFeed> feeds = new ConcurrentHashMap<>();
+    private final Queue<Frame> frames = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * Clients with queued frames, only accessed by the thread of the server.
+     */
+    private final List<Client> writers = new ArrayList<>();
+    private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+    private final ByteBuffer discard = ByteBuffer.allocate(256);
+
+    private volatile int clientCount;
+    private volatile long framesSent;
+    private volatile long framesCoalesced;
+    private volatile long clientsDropped;
+
+    public SpectatorServer(InetSocketAddress address) {
+        this(address, DEFAULT_MAX_CLIENT_BACKLOG, DEFAULT_WRITE_TIMEOUT);
+    }
+
+    /**
+     * Creates a new server. It does not accept connections before {@link #start()} is called.
+     *
+     * @param address          the address to listen on, port 0 selects a free port.
+     * @param maxClientBacklog the maximum number of bytes queued for a client before its deltas are dropped, not
+     *                         counting the current keyframe and the deltas since it.
+     * @param writeTimeout     the time (in milliseconds) after which a client that does not accept data is
+     *                         disconnected.
+     * @throws IllegalArgumentException if the address is null or one of the numbers is not positive.
+     */
+    public SpectatorServer(InetSocketAddress address, int maxClientBacklog, long writeTimeout) {
+        if (address == null) {
+            throw new IllegalArgumentException("invalid address");
+        }
+        if (maxClientBacklog <= 0 || writeTimeout <= 0) {
+            throw new IllegalArgumentException("client backlog and write timeout must be positive");
+        }
+        this.address = address;
+        this.maxClientBacklog = maxClientBacklog;
+        this.writeTimeoutNanos = MILLISECONDS.toNanos(writeTimeout);
+    }
+
+    /**
+     * Binds the server to its address and starts its thread.
+     *
+     * @throws IOException           if the address cannot be bound.
+     * @throws IllegalStateException if the server was already started.
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            throw new IllegalStateException("spectator server already started");
+        }
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        running = true;
+        thread = new Thread(this::run, "spectator-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the server, disconnects all clients and waits for its thread to finish.
+     */
+    @Override
+    public void close() throws IOException {
+        final Thread current;
+        synchronized (this) {
+            running = false;
+            current = thread;
+        }
+        if (current == null) {
+            return;
+        }
+        selector.wakeup();
+        try {
+            current.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the local port.
+     * @throws IllegalStateException if the server was not started.
+     */
+    public int getPort() {
+        if (serverChannel == null) {
+            throw new IllegalStateException("spectator server not started");
+        }
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public SpectatorFeed createFeed(final long id, final PacManGame game) {
+        return createFeed(id, game, DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    /**
+     * Creates a feed that publishes a game under the given id. The feed starts publishing when it is added as a batch
+     * observer to the game, see {@link SpectatorFeed}.
+     *
+     * @param id               the id clients use to watch the game.
+     * @param game             the game to publish.
+     * @param keyframeInterval the number of steps between two keyframes.
+     * @return the new feed.
+     * @throws IllegalArgumentException if the game is null, the interval is not positive or there already is a feed
+     *                                  with this id.
+     * @throws IllegalStateException    if the server is not running.
+     */
+    public SpectatorFeed createFeed(final long id, final PacManGame game, final int keyframeInterval) {
+        if (game == null || keyframeInterval <= 0) {
+            throw new IllegalArgumentException("invalid game or keyframe interval");
+        }
+        if (!running) {
+            throw new IllegalStateException("spectator server not running");
+        }
+        final SpectatorFeed feed = new SpectatorFeed(this, id, game, keyframeInterval);
+        if (feeds.putIfAbsent(id, feed) != null) {
+            throw new IllegalArgumentException("feed " + id + " already exists");
+        }
+        return feed;
+    }
+
+    public int getClientCount() {
+        return clientCount;
+    }
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    /**
+     * Returns the number of frames that were dropped because a client did not keep up.
+     *
+     * @return the number of coalesced frames.
+     */
+    public long getFramesCoalesced() {
+        return framesCoalesced;
+    }
+
+    /**
+     * Returns the number of clients that were disconnected because of the write timeout.
+     *
+     * @return the number of dropped clients.
+     */
+    public long getClientsDropped() {
+        return clientsDropped;
+    }
+
+    void removeFeed(final SpectatorFeed feed) {
+        if (feeds.remove(feed.getId(), feed)) {
+            publish(feed, null, false, false);
+        }
+    }
+
+    /**
+     * Hands a frame of a feed over to the thread of the server. A frame without data closes the feed.
+     */
+    void publish(final SpectatorFeed feed, final byte[] data, final boolean keyframe, final boolean forced) {
+        if (!running) {
+            return;
+        }
+        frames.add(new Frame(feed, data, keyframe, forced));
+        if (wakeupPending.compareAndSet(false, true)) {
+            selector.wakeup();
+        }
+    }
+
+    private void run() {
+        long nextTimeoutCheck = System.nanoTime();
+        while (running) {
+            try {
+                selector.select(TIMEOUT_CHECK_INTERVAL);
+            } catch (IOException e) {
+                break;
+            }
+            wakeupPending.set(false);
+            final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                final SelectionKey key = keys.next();
+                keys.remove();
+                if (!key.isValid()) {
+                    continue;
+                }
+                if (key.isAcceptable()) {
+                    accept();
+                } else {
+                    final Client client = (Client) key.attachment();
+                    if (key.isReadable()) {
+                        read(client);
+                    }
+                    if (key.isValid() && key.isWritable()) {
+                        flush(client);
+                    }
+                }
+            }
+            Frame frame;
+            while ((frame = frames.poll()) != null) {
+                dispatch(frame);
+            }
+            for (int i = 0; i < writers.size(); i++) {
+                flush(writers.get(i));
+            }
+            final long now = System.nanoTime();
+            if (now - nextTimeoutCheck >= 0) {
+                checkTimeouts(now);
+                nextTimeoutCheck = now + MILLISECONDS.toNanos(TIMEOUT_CHECK_INTERVAL);
+            }
+            for (int i = writers.size() - 1; i >= 0; i--) {
+                final Client client = writers.get(i);
+                if (client.queue.isEmpty() || client.closed) {
+                    client.writing = false;
+                    writers.set(i, writers.get(writers.size() - 1));
+                    writers.remove(writers.size() - 1);
+                }
+            }
+        }
+    }
+
+    private void accept() {
+        try {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                final Client client = new Client(channel);
+                client.key = channel.register(selector, SelectionKey.OP_READ, client);
+                clientCount++;
+            }
+        } catch (IOException e) {
+            // the connection is lost, the client has to reconnect
+        }
+    }
+
+    /**
+     * Reads the id of the feed the client subscribes to. Anything after the id is ignored.
+     */
+    private void read(final Client client) {
+        try {
+            final ByteBuffer in = client.subscription;
+            discard.clear();
+            final int read = client.channel.read(in.hasRemaining() ? in : discard);
+            if (read < 0) {
+                disconnect(client);
+                return;
+            }
+            if (client.feed == null && !in.hasRemaining()) {
+                final SpectatorFeed feed = feeds.get(in.getLong(0));
+                if (feed == null) {
+                    disconnect(client);
+                    return;
+                }
+                client.feed = feed;
+                feed.clients.add(client);
+                if (feed.lastKeyframe != null) {
+                    enqueue(client, feed.lastKeyframe, true);
+                    client.waitingForKeyframe = false;
+                    for (int i = 0; i < feed.deltasSinceKeyframe.size() && !client.waitingForKeyframe; i++) {
+                        enqueue(client, feed.deltasSinceKeyframe.get(i), false);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            disconnect(client);
+        }
+    }
+
+    private void dispatch(final Frame frame) {
+        final SpectatorFeed feed = frame.feed;
+        if (frame.data == null) {
+            while (!feed.clients.isEmpty()) {
+                disconnect(feed.clients.get(feed.clients.size() - 1));
+            }
+            feed.lastKeyframe = null;
+            feed.deltasSinceKeyframe.clear();
+            return;
+        }
+        if (frame.keyframe) {
+            feed.lastKeyframe = frame.data;
+            feed.deltasSinceKeyframe.clear();
+        } else if (feed.lastKeyframe != null) {
+            feed.deltasSinceKeyframe.add(frame.data);
+        }
+        for (int i = 0; i < feed.clients.size(); i++) {
+            final Client client = feed.clients.get(i);
+            if (frame.keyframe) {
+                if (frame.forced || client.waitingForKeyframe || client.queuedBytes > maxClientBacklog) {
+                    enqueue(client, frame.data, true);
+                    client.waitingForKeyframe = false;
+                } else {
+                    // the client keeps following the deltas of its older keyframe
+                    client.inSync = false;
+                }
+            } else if (!client.waitingForKeyframe) {
+                enqueue(client, frame.data, false);
+            }
+        }
+    }
+
+    /**
+     * Appends a frame to the queue of the client. A keyframe, which must be the current keyframe of the feed, and the
+     * deltas following it are always queued, the frames queued before a keyframe are dropped if there are too many of
+     * them. If the queue of a client that follows an older keyframe grows too large, the frames that were not started
+     * yet are dropped and the client waits for the next keyframe.
+     */
+    private void enqueue(final Client client, final byte[] data, final boolean keyframe) {
+        if (keyframe) {
+            client.inSync = true;
+            if (client.queuedBytes > maxClientBacklog) {
+                dropUnstarted(client);
+            }
+        } else if (!client.inSync && client.queuedBytes + data.length > maxClientBacklog) {
+            dropUnstarted(client);
+            client.waitingForKeyframe = true;
+            framesCoalesced++;
+            return;
+        }
+        if (client.queue.isEmpty()) {
+            client.lastProgress = System.nanoTime();
+        }
+        if (!client.writing) {
+            client.writing = true;
+            writers.add(client);
+        }
+        client.queue.addLast(ByteBuffer.wrap(data));
+        client.queuedBytes += data.length;
+    }
+
+    /**
+     * Drops the queued frames of the client, except the one that is partly written.
+     */
+    private void dropUnstarted(final Client client) {
+        final ByteBuffer head = client.queue.peekFirst();
+        final boolean started = head != null && head.position() > 0;
+        while (client.queue.size() > (started ? 1 : 0)) {
+            client.queuedBytes -= client.queue.pollLast().remaining();
+            framesCoalesced++;
+        }
+    }
+
+    /**
+     * Writes as many queued frames as the socket accepts.
+     */
+    private void flush(final Client client) {
+        if (client.closed || client.queue.isEmpty()) {
+            return;
+        }
+        try {
+            int count = 0;
+            for (ByteBuffer buffer : client.queue) {
+                if (count == MAX_GATHER) {
+                    break;
+                }
+                gather[count++] = buffer;
+            }
+            final long written = client.channel.write(gather, 0, count);
+            if (written > 0) {
+                client.lastProgress = System.nanoTime();
+                client.queuedBytes -= written;
+            }
+            while (!client.queue.isEmpty() && !client.queue.peekFirst().hasRemaining()) {
+                client.queue.pollFirst();
+                framesSent++;
+            }
+            client.key.interestOps(client.queue.isEmpty()
+                    ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            disconnect(client);
+        } finally {
+            for (int i = 0; i < MAX_GATHER && gather[i] != null; i++) {
+                gather[i] = null;
+            }
+        }
+    }
+
+    private void checkTimeouts(final long now) {
+        for (int i = 0; i < writers.size(); i++) {
+            final Client client = writers.get(i);
+            if (!client.closed && !client.queue.isEmpty() && now - client.lastProgress > writeTimeoutNanos) {
+                clientsDropped++;
+                disconnect(client);
+            }
+        }
+    }
+
+    private void disconnect(final Client client) {
+        if (client.closed) {
+            return;
+        }
+        client.closed = true;
+        client.queue.clear();
+        client.queuedBytes = 0;
+        if (client.feed != null) {
+            client.feed.clients.remove(client);
+        }
+        client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            // the channel is gone anyway
+        }
+        clientCount--;
+    }
+
+    /**
+     * A frame of a feed on its way to the thread of the server.
+     */
+    private static final class Frame {
+
+        final SpectatorFeed feed;
+        final byte[] data;
+        final boolean keyframe;
+        final boolean forced;
+
+        Frame(SpectatorFeed feed, byte[] data, boolean keyframe, boolean forced) {
+            this.feed = feed;
+            this.data = data;
+            this.keyframe = keyframe;
+            this.forced = forced;
+        }
+    }
+
+    /**
+     * The state of a connection, only accessed by the thread of the server.
+     */
+    static final class Client {
+
+        final SocketChannel channel;
+        SelectionKey key;
+        final ByteBuffer subscription = ByteBuffer.allocate(8);
+        SpectatorFeed feed;
+        boolean waitingForKeyframe = true;
+
+        /**
+         * Whether the client follows the current keyframe of its feed, then its deltas are not limited by the backlog.
+         */
+        boolean inSync;
+        boolean closed;
+
+        /**
+         * Whether the client is in the list of clients with queued frames.
+         */
+        boolean writing;
+
+        final ArrayDeque<ByteBuffer> queue = new ArrayDeque<>();
+        long queuedBytes;
+        long lastProgress;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+}
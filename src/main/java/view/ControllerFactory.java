@@ -1,10 +1,11 @@
 package view;
 
+import game.GameInfo;
 import game.GhostInfo;
 
 public interface ControllerFactory {
 
-//   ActorController getGhostController(GameInfo gameInfo, GhostInfo ghostInfo);
+    ActorController getGhostController(GameInfo gameInfo, GhostInfo ghostInfo);
 
- //   ActorController getPacManController(GameInfo gameInfo);
+    ActorController getPacManController(GameInfo gameInfo);
 }
@@ -0,0 +1,17 @@
+package view;
+
+/**
+ * A FrameRenderer draws the game. It is called by a {@code GameLoop} independently of the simulation ticks, so the
+ * frame rate and the tick rate do not have to match.
+ */
+public interface FrameRenderer {
+
+    /**
+     * Draws a frame.
+     *
+     * @param alpha how far the time of the frame lies between the last tick and the next one, from 0 (inclusive) to
+     *              1 (exclusive). Renderers can use it to interpolate the positions of the actors.
+     */
+    void render(double alpha);
+
+}
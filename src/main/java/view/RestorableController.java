@@ -0,0 +1,32 @@
+package view;
+
+/**
+ * An ActorController whose decisions depend on a state of its own, e.g. a random number generator. The game includes
+ * the state in its snapshots, so a restored game makes the same decisions again.
+ */
+public interface RestorableController extends ActorController {
+
+    /**
+     * Returns the current state of this controller.
+     *
+     * @return the state.
+     */
+    long getState();
+
+    /**
+     * Sets the state of this controller to a value returned by {@link #getState()}.
+     *
+     * @param state the state to restore.
+     */
+    void setState(long state);
+
+    /**
+     * Resets the state of this controller as if it had been created for a game with the given seed. The default
+     * implementation keeps the state.
+     *
+     * @param seed the seed of the game.
+     */
+    default void reseed(long seed) {
+    }
+
+}
@@ -0,0 +1,48 @@
+package ai;
+
+import enums.Direction;
+import enums.GhostCharacter;
+import game.Board;
+import game.GameInfo;
+import game.GhostInfo;
+import game.PacManGame;
+import org.junit.Test;
+import view.ActorController;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class GhostControllerTest {
+
+    /**
+     * The ghost is two moves away from Pac-Man through the tunnel on the left, but three moves around the wall below,
+     * which is closer by straight-line distance.
+     */
+    private static final String[] TUNNEL = {
+            "#####",
+            "-G#P-",
+            "#---#",
+            "#####"};
+
+    @Test
+    public void chaseFollowsTheShortestPathThroughTheTunnel() {
+        final Map<GhostCharacter, ActorController> controllers = new EnumMap<>(GhostCharacter.class);
+        new PacManGame(Board.parse(TUNNEL), 1, new GhostControllerFactory() {
+            @Override
+            public ActorController getGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+                final ActorController controller = super.getGhostController(gameInfo, ghostInfo);
+                controllers.put(ghostInfo.getCharacter(), controller);
+                return controller;
+            }
+
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                return () -> Direction.LEFT;
+            }
+        });
+
+        assertEquals(Direction.LEFT, controllers.get(GhostCharacter.OIKAKE).getMove());
+    }
+}
@@ -0,0 +1,77 @@
+package ai;
+
+import enums.Direction;
+import game.Board;
+import game.GameInfo;
+import game.GhostInfo;
+import game.PacManGame;
+import org.junit.After;
+import org.junit.Test;
+import view.ActorController;
+import view.ControllerFactory;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class MctsPacManControllerTest {
+
+    private static final long MOVE_BUDGET = 50;
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Pac-Man can only move right, the field below him is the start of a ghost that does not move. The other ghost
+     * moves up to the field on his right, so a move into the ghost start, which leaves him where he is, would keep him
+     * alive for longer, but the game does not allow it.
+     */
+    @Test
+    public void neverMovesIntoAGhostStart() {
+        final ControllerFactory ghosts = new ControllerFactory() {
+            @Override
+            public ActorController getGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+                final Direction move = ghostInfo.getPosition().y == 2 ? Direction.UP : null;
+                return () -> move;
+            }
+
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                return null;
+            }
+        };
+        final PacManGame game = new PacManGame(Board.parse(new String[]{
+                "#####",
+                "#P--#",
+                "#GG##",
+                "#####"}), 1, ghosts);
+        final ActorController controller = new MctsPacManController(game, ghosts, pool, MOVE_BUDGET);
+
+        assertEquals(Direction.RIGHT, controller.getMove());
+    }
+
+    /**
+     * Both directions lead along a corridor of pac-dots, too long to finish the stage during the search, but only the
+     * right one starts with a power pellet.
+     */
+    @Test
+    public void takesTheAdjacentPowerPellet() {
+        final ControllerFactory noGhosts = new GhostControllerFactory() {
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                return null;
+            }
+        };
+        final PacManGame game = new PacManGame(Board.parse(new String[]{
+                "###########################################",
+                "#--------------------PX-------------------#",
+                "###########################################"}), 1, noGhosts);
+        final ActorController controller = new MctsPacManController(game, noGhosts, pool, MOVE_BUDGET, 1);
+
+        assertEquals(Direction.RIGHT, controller.getMove());
+    }
+}
@@ -0,0 +1,201 @@
+package game;
+
+import enums.OverrunPolicy;
+import enums.WaitStrategy;
+import metrics.GameMetrics;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AsyncGameObservableTest {
+
+    private static final long STEP_DURATION = 100;
+
+    @Test(timeout = 10000)
+    public void batchObserverReceivesEveryStep() throws InterruptedException {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 6, TestBoards.randomPacMan());
+        final List<List<String>> expected = record(game);
+        final List<List<String>> actual = new ArrayList<>();
+        try (AsyncGameObservable async = new AsyncGameObservable(game, 64, WaitStrategy.YIELD,
+                OverrunPolicy.BLOCK)) {
+            async.addBatchObserver(events -> {
+                synchronized (actual) {
+                    actual.add(eventsOf(events));
+                }
+            });
+            for (int i = 0; i < 300 && !game.isGameOver(); i++) {
+                game.step(STEP_DURATION);
+            }
+            awaitSteps(actual, expected.size());
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test(timeout = 10000)
+    public void coalescedStepsKeepAllEventsInOrder() throws InterruptedException {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 6, TestBoards.randomPacMan());
+        final List<List<String>> expected = record(game);
+        final List<List<String>> actual = new ArrayList<>();
+        final CountDownLatch released = new CountDownLatch(1);
+        final int capacity = 64;
+        try (AsyncGameObservable async = new AsyncGameObservable(game, capacity, WaitStrategy.YIELD,
+                OverrunPolicy.COALESCE)) {
+            async.addBatchObserver(events -> {
+                awaitUninterruptibly(released);
+                synchronized (actual) {
+                    actual.add(eventsOf(events));
+                }
+            });
+            // fill the ring buffer and keep about half of its capacity in steps that do not fit
+            while (events(expected) < capacity * 3 / 2) {
+                assertFalse(game.isGameOver());
+                game.step(STEP_DURATION);
+            }
+            released.countDown();
+            // every step that was not kept ends a batch, wait until the ring buffer is empty
+            awaitSteps(actual, expected.size() - (int) async.getCoalescedSteps());
+            // the kept steps are published with the next step that fits
+            game.step(STEP_DURATION);
+            awaitSteps(actual, expected.size() - (int) async.getCoalescedSteps());
+
+            assertEquals(0, async.getDroppedEvents());
+            assertTrue(async.getCoalescedSteps() > 0);
+        }
+        // every batch holds one or more complete steps
+        int step = 0;
+        for (List<String> batch : actual) {
+            final List<String> merged = new ArrayList<>();
+            while (merged.size() < batch.size()) {
+                merged.addAll(expected.get(step++));
+            }
+            assertEquals(merged, batch);
+        }
+        assertEquals(expected.size(), step);
+    }
+
+    @Test(timeout = 10000)
+    public void droppedStepsAreDroppedAsAWhole() throws InterruptedException {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 6, TestBoards.randomPacMan());
+        final GameMetrics metrics = new GameMetrics();
+        final List<List<String>> expected = record(game);
+        final List<List<String>> actual = new ArrayList<>();
+        final CountDownLatch released = new CountDownLatch(1);
+        try (AsyncGameObservable async = new AsyncGameObservable(game, 64, WaitStrategy.YIELD,
+                OverrunPolicy.DROP)) {
+            async.setMetrics(metrics);
+            async.addBatchObserver(events -> {
+                awaitUninterruptibly(released);
+                synchronized (actual) {
+                    actual.add(eventsOf(events));
+                }
+            });
+            while (events(expected) < 64 * 2) {
+                assertFalse(game.isGameOver());
+                game.step(STEP_DURATION);
+            }
+            released.countDown();
+            awaitSteps(actual, expected.size() - (int) async.getDroppedSteps());
+            // a step after the observer caught up is delivered again
+            game.step(STEP_DURATION);
+            awaitSteps(actual, expected.size() - (int) async.getDroppedSteps());
+
+            assertTrue(async.getDroppedSteps() > 0);
+            assertEquals(async.getDroppedSteps(), metrics.getDroppedSteps().get());
+            assertEquals(async.getDroppedEvents(), metrics.getDroppedEvents().get());
+            assertEquals(0, async.getCoalescedSteps());
+        }
+        // every batch is a complete step, in the order of the game
+        int step = 0;
+        for (List<String> batch : actual) {
+            while (!expected.get(step).equals(batch)) {
+                step++;
+            }
+            step++;
+        }
+        assertEquals(expected.get(expected.size() - 1), actual.get(actual.size() - 1));
+    }
+
+    @Test(timeout = 10000)
+    public void observerWhoseThreadDiedIsRemoved() throws InterruptedException {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 6, TestBoards.randomPacMan());
+        final GameMetrics metrics = new GameMetrics();
+        final Error error = new Error("observer broke");
+        final List<List<String>> expected = record(game);
+        final List<List<String>> actual = new ArrayList<>();
+        try (AsyncGameObservable async = new AsyncGameObservable(game, 16, WaitStrategy.YIELD,
+                OverrunPolicy.BLOCK)) {
+            async.setMetrics(metrics);
+            async.addObserver(new GameObserverAdapter() {
+                @Override
+                public void stepDone() {
+                    throw error;
+                }
+            });
+            async.addBatchObserver(events -> {
+                synchronized (actual) {
+                    actual.add(eventsOf(events));
+                }
+            });
+            for (int i = 0; i < 100 && !game.isGameOver(); i++) {
+                game.step(STEP_DURATION);
+            }
+            awaitSteps(actual, expected.size());
+
+            assertEquals(1, async.getFailedObservers());
+            assertEquals(1, metrics.getFailedObservers().get());
+            assertSame(error, async.getObserverFailure());
+        }
+        assertEquals(expected, actual);
+    }
+
+    private static List<List<String>> record(final PacManGame game) {
+        final List<List<String>> steps = new ArrayList<>();
+        game.addBatchObserver(events -> steps.add(eventsOf(events)));
+        return steps;
+    }
+
+    private static List<String> eventsOf(final GameEventBatch events) {
+        final List<String> result = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            result.add(events.getType(i) + " " + events.getActorType(i) + " " + events.getX(i) + " " + events.getY(i));
+        }
+        return result;
+    }
+
+    private static int events(final List<List<String>> steps) {
+        int events = 0;
+        for (List<String> step : steps) {
+            events += step.size();
+        }
+        return events;
+    }
+
+    private static void awaitSteps(final List<List<String>> steps, final int count) throws InterruptedException {
+        while (true) {
+            synchronized (steps) {
+                if (steps.size() >= count) {
+                    return;
+                }
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private static void awaitUninterruptibly(final CountDownLatch latch) {
+        while (true) {
+            try {
+                latch.await();
+                return;
+            } catch (InterruptedException e) {
+                // keep waiting, the test releases the latch
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package game;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class BoardLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadsTheBoardOfParse() throws IOException {
+        assertSameBoard(Board.parse(TestBoards.MAZE), BoardLoader.load(write(TestBoards.MAZE, "\n")));
+        assertSameBoard(Board.parse(TestBoards.MAZE), BoardLoader.load(write(TestBoards.MAZE, "\r\n")));
+    }
+
+    @Test
+    public void loadsBoardsLargerThanAChunk() throws IOException {
+        final String[] rows = new String[301];
+        for (int i = 0; i < rows.length; i++) {
+            final char[] row = new char[299];
+            Arrays.fill(row, i == 0 || i == rows.length - 1 ? '#' : '-');
+            row[0] = '#';
+            row[row.length - 1] = '#';
+            rows[i] = new String(row);
+        }
+        rows[1] = "#P" + rows[1].substring(2);
+        rows[150] = rows[150].substring(0, 150) + "GG" + rows[150].substring(152);
+
+        assertSameBoard(Board.parse(rows), BoardLoader.load(write(rows, "\r\n")));
+    }
+
+    @Test
+    public void reportsTheRowAndColumnOfAnInvalidCharacter() throws IOException {
+        final String[] rows = TestBoards.MAZE.clone();
+        rows[2] = rows[2].substring(0, 5) + 'Z' + rows[2].substring(6);
+        final Path path = write(rows, "\n");
+
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> BoardLoader.load(path));
+        assertTrue(e.getMessage(), e.getMessage().contains("row 2, column 5"));
+    }
+
+    @Test
+    public void reportsRowsOfAnotherLength() throws IOException {
+        final String[] rows = TestBoards.MAZE.clone();
+        rows[6] = rows[6].substring(1);
+        final Path path = write(rows, "\n");
+
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> BoardLoader.load(path));
+        assertTrue(e.getMessage(), e.getMessage().contains("row 6, column " + rows[6].length()));
+    }
+
+    private Path write(final String[] rows, final String lineBreak) throws IOException {
+        final Path path = folder.newFile().toPath();
+        Files.write(path, (String.join(lineBreak, rows) + lineBreak).getBytes(StandardCharsets.US_ASCII));
+        return path;
+    }
+
+    private static void assertSameBoard(final Board expected, final Board actual) {
+        assertEquals(expected.getNumberOfRows(), actual.getNumberOfRows());
+        assertEquals(expected.getNumberOfColumns(), actual.getNumberOfColumns());
+        assertArrayEquals(expected.getCells().cells, actual.getCells().cells);
+        assertEquals(expected.getPacManStart(), actual.getPacManStart());
+        assertEquals(expected.getGhostsStarts(), actual.getGhostsStarts());
+        assertEquals(expected.getPacDotsOnStart(), actual.getPacDotsOnStart());
+    }
+}
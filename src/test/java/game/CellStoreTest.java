@@ -0,0 +1,131 @@
+package game;
+
+import enums.ActorType;
+import enums.ExtraItem;
+import enums.FieldType;
+import enums.GhostCharacter;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CellStoreTest {
+
+    @Test
+    public void itemsAndOccupantRoundTrip() {
+        final Board board = TestBoards.maze();
+        board.initBoard();
+        final CellStore cells = board.getCells();
+        final int index = board.indexOf(1, 1);
+        final Ghost ghost = new Ghost(board.pointAt(index), GhostCharacter.KIMAGURE);
+        final int[] before = cells.cells.clone();
+
+        for (boolean pacDot : new boolean[]{false, true}) {
+            for (ExtraItem extraItem : withNull(ExtraItem.values())) {
+                cells.setPacDot(index, pacDot);
+                cells.setExtraItem(index, extraItem);
+                cells.placeActor(index, ghost);
+
+                assertEquals(FieldType.FREE, cells.getType(index));
+                assertEquals(pacDot, cells.hasPacDot(index));
+                assertFalse(cells.hasPowerPellet(index));
+                assertEquals(extraItem != null, cells.hasExtraItem(index));
+                assertEquals(extraItem, cells.getExtraItem(index));
+                assertEquals(ActorType.GHOST, cells.getActorType(index));
+                assertSame(ghost, cells.getActor(index));
+
+                cells.removeActor(index);
+                assertFalse(cells.hasActor(index));
+                assertNull(cells.getActor(index));
+                assertEquals(pacDot, cells.hasPacDot(index));
+                assertEquals(extraItem, cells.getExtraItem(index));
+            }
+        }
+        for (int i = 0; i < before.length; i++) {
+            if (i != index) {
+                assertEquals("field " + i, before[i], cells.cells[i]);
+            }
+        }
+    }
+
+    @Test
+    public void pacManEatsTheItemsOfHisField() {
+        final Board board = TestBoards.maze();
+        board.initBoard();
+        final CellStore cells = board.getCells();
+        final int index = board.indexOf(3, 1);
+        final PacMan pacMan = new PacMan(board.pointAt(index));
+        cells.setExtraItem(index, ExtraItem.STRAWBERRY);
+        assertTrue(cells.hasPowerPellet(index));
+
+        cells.placeActor(index, pacMan);
+
+        assertEquals(FieldType.POWER_PELLET, cells.getType(index));
+        assertFalse(cells.hasPowerPellet(index));
+        assertFalse(cells.hasExtraItem(index));
+        assertEquals(ActorType.PACMAN, cells.getActorType(index));
+        assertSame(pacMan, cells.getActor(index));
+    }
+
+    @Test
+    public void standaloneFieldKeepsItsOwnState() {
+        final Field field = new Field(FieldType.FREE);
+        final Field other = new Field(FieldType.FREE);
+        final Ghost ghost = new Ghost(new Point(0, 0), GhostCharacter.KIMAGURE);
+
+        field.setPacDot(true);
+        field.setExtraItem(ExtraItem.CHERRY);
+        field.placeActor(ghost);
+        assertTrue(field.hasPacDot());
+        assertEquals(ExtraItem.CHERRY, field.getExtraItem());
+        assertSame(ghost, field.getActor());
+        assertFalse(other.hasPacDot());
+        assertFalse(other.hasActor());
+
+        field.removeActor();
+        field.placeActor(new PacMan(new Point(0, 0)));
+        assertFalse(field.hasPacDot());
+        assertFalse(field.hasExtraItem());
+        field.removeActor();
+        assertFalse(field.hasActor());
+    }
+
+    @Test
+    public void writtenItemsAreReadBackWithoutActors() {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 5, TestBoards.randomPacMan());
+        for (int i = 0; i < 200; i++) {
+            game.step(100);
+        }
+        final CellStore played = ((Board) game.getBoardInfo()).getCells();
+        final ByteBuffer buffer = ByteBuffer.allocate(played.size());
+        played.writeItems(buffer);
+        buffer.flip();
+        final Board board = TestBoards.maze();
+        board.initBoard();
+        final CellStore cells = board.getCells();
+
+        assertTrue(cells.matchesItems(buffer, 0));
+        cells.readItems(buffer);
+
+        final int[] expected = new int[played.size()];
+        final int[] actual = new int[played.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = played.cells[i] & CellStore.ITEM_MASK;
+            actual[i] = cells.cells[i];
+        }
+        assertArrayEquals(expected, actual);
+        assertTrue(board.getCells().getDirtyCells().isAll());
+    }
+
+    private static ExtraItem[] withNull(final ExtraItem[] items) {
+        final ExtraItem[] result = new ExtraItem[items.length + 1];
+        System.arraycopy(items, 0, result, 1, items.length);
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package game;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DirtyCellsTest {
+
+    /**
+     * A corridor with three pac-dots. The ghost is walled in, so Pac-Man finishes a stage after a few random moves.
+     */
+    private static final String[] CORRIDOR = {
+            "######",
+            "#P---#",
+            "######",
+            "#G####"};
+
+    @Test
+    public void everyChangedFieldIsDirty() {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 9, TestBoards.randomPacMan());
+        final int words = game.getBitPlaneWords();
+        final long[] previous = new long[PacManGame.BIT_PLANES * words];
+        final long[] current = new long[previous.length];
+        final int[] checkedSteps = new int[1];
+        game.writeBitPlanes(previous, 0);
+        game.addBatchObserver(events -> {
+            game.writeBitPlanes(current, 0);
+            final DirtyCells dirty = game.getDirtyCells();
+            if (!dirty.isAll()) {
+                for (int word = 0; word < previous.length; word++) {
+                    long changed = previous[word] ^ current[word];
+                    while (changed != 0) {
+                        final int index = (word % words << 6) + Long.numberOfTrailingZeros(changed);
+                        changed &= changed - 1;
+                        assertTrue("field " + index, dirty.contains(index));
+                    }
+                }
+                checkedSteps[0]++;
+            }
+            System.arraycopy(current, 0, previous, 0, current.length);
+        });
+
+        for (int i = 0; i < 1000 && !game.isGameOver(); i++) {
+            game.step(100);
+        }
+        assertTrue(checkedSteps[0] > 0);
+    }
+
+    @Test
+    public void nextStageRestoresTheItemsOfTheFirstStage() {
+        final PacManGame game = new PacManGame(Board.parse(CORRIDOR), 4, TestBoards.randomPacMan());
+        final int[] initial = itemsOf(game);
+
+        for (int stage = 2; stage <= 4; stage++) {
+            while (game.getStageCounter() < stage) {
+                game.step(100);
+            }
+            assertEquals(stage, game.getStageCounter());
+            assertArrayEquals(initial, itemsOf(game));
+        }
+    }
+
+    @Test
+    public void initBoardAfterPlayingMatchesANewBoard() {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 2, TestBoards.randomPacMan());
+        for (int i = 0; i < 300; i++) {
+            game.step(100);
+        }
+        final Board played = (Board) game.getBoardInfo();
+        final Board fresh = TestBoards.maze();
+
+        played.initBoard();
+        fresh.initBoard();
+
+        assertArrayEquals(fresh.getCells().cells, played.getCells().cells);
+        assertEquals(0, played.getCells().getActorCount());
+    }
+
+    private static int[] itemsOf(final PacManGame game) {
+        final int[] cells = ((Board) game.getBoardInfo()).getCells().cells;
+        final int[] items = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            items[i] = cells[i] & CellStore.ITEM_MASK;
+        }
+        return items;
+    }
+}
@@ -0,0 +1,119 @@
+package game;
+
+import enums.ActorType;
+import enums.FieldType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DistanceFieldsTest {
+
+    private static final int DIRECTIONS = 4;
+
+    @Test
+    public void evictedMapsAreComputedAgain() {
+        final Board board = TestBoards.maze();
+        final int fields = board.getNumberOfFields();
+        final DistanceFields reference = board.getDistanceFields();
+        final DistanceFields small = create(board, 3 * 2L * fields);
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < fields; i++) {
+                // visit the targets in a different order in every round, so keys collide and get evicted in between
+                final int target = round == 0 ? i : (int) ((i * 7L) % fields);
+                for (ActorType actorType : ActorType.values()) {
+                    assertArrayEquals(reference.getDistancesTo(target, actorType),
+                            small.getDistancesTo(target, actorType));
+                }
+            }
+        }
+        assertEquals(3, small.getCachedMaps());
+        assertEquals(2L * fields * ActorType.values().length, small.getMisses() + small.getHits());
+    }
+
+    @Test
+    public void concurrentReadersGetCorrectMapsWhileMapsAreEvicted() throws Exception {
+        final Board board = TestBoards.maze();
+        final int fields = board.getNumberOfFields();
+        final DistanceFields reference = board.getDistanceFields();
+        final DistanceFields small = create(board, 8 * 2L * fields);
+        final int threads = 4;
+        final int requests = 20000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> readers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final Random random = new Random(t);
+                readers.add(executor.submit(() -> {
+                    for (int i = 0; i < requests; i++) {
+                        // mostly a few hot targets, sometimes a cold one that evicts a map
+                        final int target = random.nextInt(8) == 0 ? random.nextInt(fields) : random.nextInt(4);
+                        final ActorType actorType = ActorType.values()[i & 1];
+                        assertArrayEquals(reference.getDistancesTo(target, actorType),
+                                small.getDistancesTo(target, actorType));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(8, small.getCachedMaps());
+        assertEquals((long) threads * requests, small.getMisses() + small.getHits());
+    }
+
+    @Test
+    public void distancesFollowTheTunnel() {
+        final Board board = TestBoards.maze();
+        final DistanceFields distances = board.getDistanceFields();
+        final int left = board.indexOf(8, 0);
+        final int right = board.indexOf(8, 27);
+
+        assertEquals(1, distances.getDistance(left, right, ActorType.GHOST));
+        assertEquals(0, distances.getDistance(left, left, ActorType.PACMAN));
+        assertEquals(DistanceFields.UNREACHABLE, distances.getDistance(board.indexOf(0, 0), left, ActorType.GHOST));
+    }
+
+    @Test
+    public void pacManDoesNotWalkThroughTheGhostStarts() {
+        final Board board = TestBoards.maze();
+        final DistanceFields distances = board.getDistanceFields();
+        final int ghostStart = board.indexOf(8, 13);
+
+        assertEquals(DistanceFields.UNREACHABLE,
+                distances.getDistance(board.indexOf(10, 13), ghostStart, ActorType.PACMAN));
+        assertEquals(2, distances.getDistance(board.indexOf(10, 13), ghostStart, ActorType.GHOST));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsBoardsWithTooManyFields() {
+        new DistanceFields(new int[0], new byte[DistanceFields.MAX_FIELDS + 1], DIRECTIONS,
+                DistanceFields.DEFAULT_MEMORY_BUDGET);
+    }
+
+    private static DistanceFields create(final Board board, final long memoryBudget) {
+        final int fields = board.getNumberOfFields();
+        final int[] neighbours = new int[fields * DIRECTIONS];
+        final byte[] types = new byte[fields];
+        for (int i = 0; i < fields; i++) {
+            for (int d = 0; d < DIRECTIONS; d++) {
+                neighbours[i * DIRECTIONS + d] = board.getNeighbour(i, d);
+            }
+            final FieldType type = board.getFieldInfo(board.getRow(i), board.getColumn(i)).getType();
+            types[i] = (byte) type.ordinal();
+        }
+        return new DistanceFields(neighbours, types, DIRECTIONS, memoryBudget);
+    }
+}
@@ -0,0 +1,126 @@
+package game;
+
+import ai.GhostControllerFactory;
+import enums.Direction;
+import enums.FieldType;
+import org.junit.Test;
+import view.ActorController;
+import view.ControllerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the selection of free extra item fields and ghost starts, {@link Board#getFreeExtraItemField(int)} and
+ * {@link Board#getFreeGhostStart()}.
+ */
+public class FreeFieldsTest {
+
+    private static final long STEP_DURATION = 100;
+
+    @Test
+    public void freeFieldsMatchAScanOfTheBoard() {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 5, TestBoards.randomPacMan());
+        final Board board = (Board) game.getBoardInfo();
+        for (int i = 0; i < 200 && !game.isGameOver(); i++) {
+            game.step(STEP_DURATION);
+            assertEquals(scanFreeExtraItemFields(board), freeExtraItemFields(board));
+        }
+    }
+
+    /**
+     * Pac-Man stays on the first extra item field, the ghost leaves its start for the last one.
+     */
+    @Test
+    public void occupiedFirstAndLastCandidatesAreSkipped() {
+        final PacManGame game = new PacManGame(Board.parse(new String[]{
+                "#####",
+                "#P--#",
+                "###G#",
+                "#####"}), 1, ghostsMoving(Direction.UP));
+        final Board board = (Board) game.getBoardInfo();
+        final int first = board.indexOf(1, 1);
+        final int middle = board.indexOf(1, 2);
+        final int last = board.indexOf(1, 3);
+        final int ghostStart = board.indexOf(2, 3);
+
+        assertEquals(List.of(middle, last), freeExtraItemFields(board));
+        assertEquals(-1, board.getFreeGhostStart());
+
+        for (int i = 0; i < 100 && board.getCells().getActor(last) == null; i++) {
+            game.step(STEP_DURATION);
+        }
+        assertEquals(first, board.indexOf(game.getPacManPosition()));
+        assertEquals(List.of(middle), freeExtraItemFields(board));
+        assertEquals(ghostStart, board.getFreeGhostStart());
+    }
+
+    /**
+     * The restored game registers its actors in a different order, the selection must not depend on it. The game of
+     * Pac-Man ends within these steps, a game that is over has no actors on the board.
+     */
+    @Test
+    public void snapshotAndRestoredGameSelectTheSameFields() {
+        final PacManGame original = new PacManGame(TestBoards.maze(), 9, TestBoards.restorablePacMan());
+        final Board originalBoard = (Board) original.getBoardInfo();
+        for (int i = 0; i < 30; i++) {
+            original.step(STEP_DURATION);
+            final PacManGame restored = new PacManGame(TestBoards.maze(), 9, TestBoards.restorablePacMan());
+            restored.restore(original.snapshot());
+            final Board restoredBoard = (Board) restored.getBoardInfo();
+
+            assertEquals(scanFreeExtraItemFields(originalBoard), freeExtraItemFields(restoredBoard));
+            assertEquals(originalBoard.getFreeGhostStart(), restoredBoard.getFreeGhostStart());
+        }
+        assertTrue(original.isGameOver());
+    }
+
+    @Test
+    public void rankOutsideOfTheFreeFieldsIsRejected() {
+        final Board board = (Board) new PacManGame(TestBoards.maze(), 1, TestBoards.randomPacMan()).getBoardInfo();
+        final int free = board.getFreeExtraItemFieldCount();
+
+        assertThrows(IllegalArgumentException.class, () -> board.getFreeExtraItemField(-1));
+        assertThrows(IllegalArgumentException.class, () -> board.getFreeExtraItemField(free));
+    }
+
+    private static List<Integer> freeExtraItemFields(final Board board) {
+        final List<Integer> fields = new ArrayList<>();
+        for (int rank = 0; rank < board.getFreeExtraItemFieldCount(); rank++) {
+            fields.add(board.getFreeExtraItemField(rank));
+        }
+        return fields;
+    }
+
+    /**
+     * Returns the fields that are neither walls nor ghost starts and not occupied, ordered by index.
+     */
+    private static List<Integer> scanFreeExtraItemFields(final Board board) {
+        final List<Integer> fields = new ArrayList<>();
+        for (int i = 0; i < board.getNumberOfFields(); i++) {
+            final FieldType type = board.getFieldInfo(board.getRow(i), board.getColumn(i)).getType();
+            if (type != FieldType.WALL && type != FieldType.GHOST_START && board.getCells().getActor(i) == null) {
+                fields.add(i);
+            }
+        }
+        return fields;
+    }
+
+    private static ControllerFactory ghostsMoving(final Direction move) {
+        return new GhostControllerFactory() {
+            @Override
+            public ActorController getGhostController(final GameInfo gameInfo, final GhostInfo ghostInfo) {
+                return () -> move;
+            }
+
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                return () -> null;
+            }
+        };
+    }
+}
@@ -0,0 +1,40 @@
+package game;
+
+import enums.GameEventType;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class GameEventBatchTest {
+
+    private static final int MAX_STEPS = 10000;
+
+    @Test
+    public void extraItemVanishedCarriesTheFieldOfTheItem() {
+        // without ghosts Pac-Man lives until the extra item vanishes
+        final PacManGame game = new PacManGame(Board.parse(new String[]{
+                "#########",
+                "#---P---#",
+                "#-#####-#",
+                "#-------#",
+                "#########"}), 3, TestBoards.randomPacMan());
+        final Point[] placed = new Point[1];
+        final Point[] vanished = new Point[1];
+        game.addBatchObserver(events -> {
+            for (int i = 0; i < events.size(); i++) {
+                if (events.getType(i) == GameEventType.EXTRA_ITEM_PLACED) {
+                    placed[0] = new Point(events.getX(i), events.getY(i));
+                } else if (events.getType(i) == GameEventType.EXTRA_ITEM_VANISHED && vanished[0] == null) {
+                    vanished[0] = new Point(events.getX(i), events.getY(i));
+                }
+            }
+        });
+        for (int i = 0; i < MAX_STEPS && vanished[0] == null; i++) {
+            game.step(PacManGame.PACMAN_MOVE_TIME);
+        }
+
+        assertNotNull("no extra item vanished", vanished[0]);
+        assertEquals(placed[0], vanished[0]);
+    }
+}
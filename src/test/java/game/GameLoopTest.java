@@ -0,0 +1,110 @@
+package game;
+
+import org.junit.Test;
+import view.FrameRenderer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameLoopTest {
+
+    private static final long TICK = 10;
+    private static final int MAX_CATCH_UP_TICKS = 5;
+    private static final long FRAME_TIME = MILLISECONDS.toNanos(16);
+
+    private long now;
+
+    @Test
+    public void ticksRunAtAFixedRate() {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 1, TestBoards.randomPacMan());
+        final GameLoop loop = create(game, null);
+
+        advanceTo(loop, 0);
+        assertEquals(1, loop.getTicks());
+        advanceTo(loop, 5);
+        assertEquals(1, loop.getTicks());
+        advanceTo(loop, 10);
+        assertEquals(2, loop.getTicks());
+        // 15 ms late: the tick at 20 ms and the one at 30 ms are run together
+        advanceTo(loop, 35);
+        assertEquals(4, loop.getTicks());
+        advanceTo(loop, 39);
+        assertEquals(4, loop.getTicks());
+        advanceTo(loop, 40);
+        assertEquals(5, loop.getTicks());
+
+        assertEquals(1, loop.getOverruns());
+        assertEquals(0, loop.getDroppedTicks());
+        assertEquals(MILLISECONDS.toNanos(15), loop.getMaxLag());
+    }
+
+    @Test
+    public void catchUpIsBoundedAndTheRestIsDropped() {
+        final GameLoop loop = create(new PacManGame(TestBoards.maze(), 1, TestBoards.randomPacMan()), null);
+
+        advanceTo(loop, 0);
+        // 10 ticks are due, only 5 are run
+        advanceTo(loop, 100);
+        assertEquals(1 + MAX_CATCH_UP_TICKS, loop.getTicks());
+        assertEquals(10 - MAX_CATCH_UP_TICKS, loop.getDroppedTicks());
+        assertEquals(1, loop.getOverruns());
+        // the dropped ticks are not run later
+        advanceTo(loop, 105);
+        assertEquals(1 + MAX_CATCH_UP_TICKS, loop.getTicks());
+        advanceTo(loop, 110);
+        assertEquals(2 + MAX_CATCH_UP_TICKS, loop.getTicks());
+    }
+
+    @Test
+    public void pausedTimeIsNotCaughtUp() {
+        final List<Double> alphas = new ArrayList<>();
+        final GameLoop loop = create(new PacManGame(TestBoards.maze(), 1, TestBoards.randomPacMan()), alphas::add);
+
+        advanceTo(loop, 0);
+        loop.pause();
+        advanceTo(loop, 20);
+        advanceTo(loop, 1000);
+        assertEquals(1, loop.getTicks());
+        // frames are rendered while paused, without interpolation
+        assertEquals(3, loop.getFrames());
+        assertEquals(0.0, alphas.get(2), 0);
+
+        loop.resume();
+        advanceTo(loop, 5000);
+        assertEquals(2, loop.getTicks());
+        advanceTo(loop, 5010);
+        assertEquals(3, loop.getTicks());
+        assertEquals(0, loop.getOverruns());
+        assertEquals(0, loop.getDroppedTicks());
+    }
+
+    @Test
+    public void framesInterpolateBetweenTheTicks() {
+        final List<Double> alphas = new ArrayList<>();
+        final GameLoop loop = create(new PacManGame(TestBoards.maze(), 1, TestBoards.randomPacMan()), alphas::add);
+
+        advanceTo(loop, 0);
+        advanceTo(loop, 16);
+        advanceTo(loop, 32);
+        assertEquals(3, loop.getFrames());
+        // at 16 ms the last tick ran at 10 ms, at 32 ms at 30 ms
+        assertEquals(0.6, alphas.get(1), 1e-9);
+        assertEquals(0.2, alphas.get(2), 1e-9);
+        for (double alpha : alphas) {
+            assertTrue(alpha >= 0 && alpha < 1);
+        }
+    }
+
+    private GameLoop create(final PacManGame game, final FrameRenderer renderer) {
+        return new GameLoop(game, renderer, TICK, MAX_CATCH_UP_TICKS, FRAME_TIME, () -> now);
+    }
+
+    private void advanceTo(final GameLoop loop, final long millis) {
+        now = MILLISECONDS.toNanos(millis);
+        loop.advance();
+    }
+}
@@ -0,0 +1,38 @@
+package game;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class GameRandomTest {
+
+    private static final int[] BOUNDS = {1, 2, 3, 4, 7, 64, 1000, Integer.MAX_VALUE};
+
+    @Test
+    public void producesTheNumbersOfJavaUtilRandom() {
+        for (long seed : new long[]{0, 1, 42, -7, Long.MAX_VALUE}) {
+            final Random expected = new Random(seed);
+            final GameRandom actual = new GameRandom(seed);
+            for (int i = 0; i < 10_000; i++) {
+                final int bound = BOUNDS[i % BOUNDS.length];
+                assertEquals("seed " + seed + ", number " + i, expected.nextInt(bound), actual.nextInt(bound));
+            }
+        }
+    }
+
+    @Test
+    public void restoredStateContinuesTheSequence() {
+        final GameRandom random = new GameRandom(3);
+        for (int i = 0; i < 100; i++) {
+            random.nextInt(10);
+        }
+        final GameRandom restored = new GameRandom(0);
+        restored.setState(random.getState());
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(random.nextInt(1000), restored.nextInt(1000));
+        }
+    }
+}
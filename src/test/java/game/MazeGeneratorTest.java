@@ -0,0 +1,110 @@
+package game;
+
+import enums.Direction;
+import enums.FieldType;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class MazeGeneratorTest {
+
+    @Test
+    public void sameSeedGeneratesTheSameMazeOnAnyNumberOfThreads() {
+        // more cell rows than a single task carves, so the rows are split between the threads
+        final MazeGenerator generator = new MazeGenerator(301, 101, 4, 0.05, 3, 0.1);
+        final ForkJoinPool single = new ForkJoinPool(1);
+        final ForkJoinPool several = new ForkJoinPool(4);
+        try {
+            final FieldType[] expected = types(generator.generate(7, single));
+
+            assertArrayEquals(expected, types(generator.generate(7, several)));
+            assertArrayEquals(expected, types(generator.generate(7)));
+            assertFalse(Arrays.equals(expected, types(generator.generate(8, several))));
+        } finally {
+            single.shutdown();
+            several.shutdown();
+        }
+    }
+
+    @Test
+    public void everyFieldIsReachableFromThePacManStart() {
+        for (final double loopRatio : new double[]{0, 0.3, 1}) {
+            for (final int[] size : new int[][]{{5, 5}, {41, 61}, {40, 60}}) {
+                final Board board = new MazeGenerator(size[0], size[1], 2, 0.1, 1, loopRatio).generate(3);
+                final boolean[] reached = reachableFromThePacManStart(board);
+                for (int i = 0; i < board.getNumberOfFields(); i++) {
+                    final FieldType type = board.getField(board.getRow(i), board.getColumn(i)).getType();
+                    if (type == FieldType.FREE || type == FieldType.POWER_PELLET) {
+                        assertTrue("field " + i + " of " + size[0] + "x" + size[1] + ", loop ratio " + loopRatio,
+                                reached[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void mazeHasTheRequestedNumberOfGhostStarts() {
+        for (final int[] size : new int[][]{{21, 31}, {20, 30}}) {
+            final int max = MazeGenerator.getMaxGhostStarts(size[0], size[1]);
+            for (final int ghostStarts : new int[]{0, 1, 4, size[1] - 2, max}) {
+                final Board board = new MazeGenerator(size[0], size[1], ghostStarts, 0, 0, 0).generate(1);
+
+                assertEquals(ghostStarts, board.getGhostsStarts().size());
+                assertEquals(ghostStarts, count(board, FieldType.GHOST_START));
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new MazeGenerator(21, 31, MazeGenerator.getMaxGhostStarts(21, 31) + 1, 0, 0, 0));
+    }
+
+    @Test
+    public void powerPelletsMatchTheDensity() {
+        final double density = 0.2;
+        final Board board = new MazeGenerator(201, 201, 4, density, 0, 0).generate(5);
+        // the cells of the grid, one of them is the start of Pac-Man instead
+        final int cells = 100 * 100;
+
+        assertEquals(density, count(board, FieldType.POWER_PELLET) / (double) cells, 0.02);
+        assertEquals(0, count(new MazeGenerator(201, 201, 4, 0, 0, 0).generate(5), FieldType.POWER_PELLET));
+    }
+
+    private static boolean[] reachableFromThePacManStart(final Board board) {
+        final boolean[] reached = new boolean[board.getNumberOfFields()];
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        final int start = board.indexOf(board.getPacManStart());
+        reached[start] = true;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            final int index = queue.poll();
+            for (int direction = 0; direction < Direction.values().length; direction++) {
+                final int neighbour = board.getNeighbour(index, direction);
+                if (neighbour != Board.BLOCKED && !reached[neighbour]) {
+                    reached[neighbour] = true;
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return reached;
+    }
+
+    private static FieldType[] types(final Board board) {
+        final FieldType[] types = new FieldType[board.getNumberOfFields()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = board.getField(board.getRow(i), board.getColumn(i)).getType();
+        }
+        return types;
+    }
+
+    private static int count(final Board board, final FieldType type) {
+        return (int) Arrays.stream(types(board)).filter(t -> t == type).count();
+    }
+}
@@ -0,0 +1,41 @@
+package game;
+
+import enums.ActorType;
+import metrics.GameMetrics;
+import metrics.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ObserverMetricsTest {
+
+    private static final long EVENT_NANOS = 2000000;
+
+    @Test
+    public void eventsOfAStepCountForTheObserver() {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 6, TestBoards.randomPacMan());
+        final GameMetrics metrics = new GameMetrics();
+        game.setMetrics(metrics);
+        game.addObserver(new GameObserverAdapter() {
+            private boolean slowed;
+
+            @Override
+            public void actorSet(final ActorType actorType, final int x, final int y) {
+                if (!slowed) {
+                    slowed = true;
+                    final long end = System.nanoTime() + EVENT_NANOS;
+                    while (System.nanoTime() < end) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }
+        });
+        game.step(100);
+        game.step(100);
+
+        final LatencyHistogram latency = metrics.getListeners().get(0).getLatency();
+        assertEquals(2, latency.getCount());
+        assertTrue(latency.getTotal() >= EVENT_NANOS);
+    }
+}
@@ -0,0 +1,83 @@
+package game;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+public class SnapshotTest {
+
+    private static final int STEPS = 300;
+    private static final long STEP_DURATION = 100;
+
+    /**
+     * Offset of the index of Pac-Man's field in a snapshot.
+     */
+    private static final int PACMAN_INDEX_OFFSET = 90;
+
+    @Test
+    public void restoredGameStepsLikeTheOriginal() {
+        final PacManGame original = new PacManGame(TestBoards.maze(), 7, TestBoards.restorablePacMan());
+        for (int i = 0; i < 40; i++) {
+            original.step(STEP_DURATION);
+        }
+        final ByteBuffer snapshot = original.snapshot();
+        final PacManGame restored = new PacManGame(TestBoards.maze(), 7, TestBoards.restorablePacMan());
+        restored.restore(snapshot);
+        final PacManGame fork = original.fork(TestBoards.restorablePacMan());
+
+        for (int i = 0; i < STEPS; i++) {
+            original.step(STEP_DURATION);
+            restored.step(STEP_DURATION);
+            fork.step(STEP_DURATION);
+            assertSameState(original, restored);
+            assertSameState(original, fork);
+        }
+    }
+
+    @Test
+    public void snapshotOfAnotherLayoutLeavesTheGameUnchanged() {
+        final String[] layout = TestBoards.MAZE.clone();
+        layout[4] = "#-------------#------------#";
+        final PacManGame other = new PacManGame(Board.parse(layout), 3, TestBoards.restorablePacMan());
+        final PacManGame game = new PacManGame(TestBoards.maze(), 7, TestBoards.restorablePacMan());
+        for (int i = 0; i < 20; i++) {
+            other.step(STEP_DURATION);
+            game.step(STEP_DURATION);
+        }
+        final ByteBuffer before = game.snapshot();
+
+        assertThrows(IllegalArgumentException.class, () -> game.restore(other.snapshot()));
+        assertEquals(before, game.snapshot());
+    }
+
+    @Test
+    public void snapshotWithFieldOutsideTheBoardLeavesTheGameUnchanged() {
+        final PacManGame game = new PacManGame(TestBoards.maze(), 7, TestBoards.restorablePacMan());
+        game.step(STEP_DURATION);
+        final ByteBuffer before = game.snapshot();
+        final ByteBuffer corrupt = game.snapshot();
+        corrupt.putInt(PACMAN_INDEX_OFFSET, game.getBoardInfo().getNumberOfFields());
+        for (int i = 0; i < 10; i++) {
+            game.step(STEP_DURATION);
+        }
+        final ByteBuffer stepped = game.snapshot();
+
+        assertThrows(IllegalArgumentException.class, () -> game.restore(corrupt));
+        assertEquals(stepped, game.snapshot());
+        game.restore(before.duplicate());
+        assertEquals(before, game.snapshot());
+    }
+
+    private static void assertSameState(final PacManGame expected, final PacManGame actual) {
+        final long[] expectedPlanes = new long[PacManGame.BIT_PLANES * expected.getBitPlaneWords()];
+        final long[] actualPlanes = new long[expectedPlanes.length];
+        expected.writeBitPlanes(expectedPlanes, 0);
+        actual.writeBitPlanes(actualPlanes, 0);
+        assertArrayEquals(expectedPlanes, actualPlanes);
+        assertEquals(expected.snapshot(), actual.snapshot());
+    }
+}
@@ -0,0 +1,93 @@
+package game;
+
+import ai.GhostControllerFactory;
+import enums.Direction;
+import view.ActorController;
+import view.ControllerFactory;
+import view.RestorableController;
+
+import java.util.Random;
+
+/**
+ * Boards and controllers shared by the tests.
+ */
+public final class TestBoards {
+
+    /**
+     * A small maze with a tunnel, four ghosts, four power pellets and the usual extra item fields.
+     */
+    public static final String[] MAZE = {
+            "############################",
+            "#------------##------------#",
+            "#-####-#####-##-#####-####-#",
+            "#X####-#####-##-#####-####X#",
+            "#--------------------------#",
+            "#-####-##-########-##-####-#",
+            "#------##----##----##------#",
+            "######-#####-##-#####-######",
+            "-------##----GG----##-------",
+            "######-##-###GG###-##-######",
+            "#------------P-------------#",
+            "#-####-#####-##-#####-####-#",
+            "#X-----------------------X-#",
+            "############################"};
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private TestBoards() {
+    }
+
+    public static Board maze() {
+        return Board.parse(MAZE);
+    }
+
+    /**
+     * Returns a factory whose Pac-Man moves at random, reproducibly for the seed of the game.
+     *
+     * @return the controller factory.
+     */
+    public static ControllerFactory randomPacMan() {
+        return new GhostControllerFactory() {
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                final Random random = new Random(gameInfo.getSeed());
+                return () -> DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+            }
+        };
+    }
+
+    /**
+     * Returns a factory whose Pac-Man moves at random with a state that is part of the snapshots of the game, so a
+     * restored game moves him the same way again.
+     *
+     * @return the controller factory.
+     */
+    public static ControllerFactory restorablePacMan() {
+        return new GhostControllerFactory() {
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                return new RestorableController() {
+                    private long state = gameInfo.getSeed() == 0 ? 1 : gameInfo.getSeed();
+
+                    @Override
+                    public long getState() {
+                        return state;
+                    }
+
+                    @Override
+                    public void setState(final long state) {
+                        this.state = state;
+                    }
+
+                    @Override
+                    public Direction getMove() {
+                        state ^= state << 13;
+                        state ^= state >>> 7;
+                        state ^= state << 17;
+                        return DIRECTIONS[(int) ((state >>> 33) % DIRECTIONS.length)];
+                    }
+                };
+            }
+        };
+    }
+}
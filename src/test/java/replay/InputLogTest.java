@@ -0,0 +1,79 @@
+package replay;
+
+import ai.GhostControllerFactory;
+import enums.Direction;
+import game.GameInfo;
+import game.PacManGame;
+import game.TestBoards;
+import org.junit.Test;
+import view.ActorController;
+import view.ControllerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class InputLogTest {
+
+    private static final int STEPS = 500;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    @Test
+    public void replayReproducesEveryStep() throws IOException {
+        final PacManGame recorded = new PacManGame(TestBoards.maze(), 11, sometimesIdlePacMan());
+        final ByteArrayOutputStream log = new ByteArrayOutputStream();
+        final List<long[]> states = new ArrayList<>();
+        try (InputLogWriter writer = new InputLogWriter(log)) {
+            recorded.setInputRecorder(writer);
+            for (int i = 0; i < STEPS && !recorded.isGameOver(); i++) {
+                recorded.step(30 + 20 * (i % 7));
+                states.add(stateOf(recorded));
+            }
+        }
+
+        try (InputLogReplayer replayer = new InputLogReplayer(TestBoards.maze(),
+                new ByteArrayInputStream(log.toByteArray()))) {
+            for (long[] state : states) {
+                replayer.step();
+                assertArrayEquals("step " + replayer.getSteps(), state, stateOf(replayer.getGame()));
+            }
+            assertFalse(replayer.step());
+            assertEquals(states.size(), replayer.getSteps());
+        }
+    }
+
+    /**
+     * Returns a factory whose Pac-Man moves at random and sometimes returns no move, reproducibly for the seed of
+     * the game.
+     */
+    private static ControllerFactory sometimesIdlePacMan() {
+        return new GhostControllerFactory() {
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                final Random random = new Random(gameInfo.getSeed());
+                return () -> {
+                    final int move = random.nextInt(DIRECTIONS.length + 1);
+                    return move == DIRECTIONS.length ? null : DIRECTIONS[move];
+                };
+            }
+        };
+    }
+
+    private static long[] stateOf(final PacManGame game) {
+        final int planes = PacManGame.BIT_PLANES * game.getBitPlaneWords();
+        final long[] state = new long[planes + 4];
+        game.writeBitPlanes(state, 0);
+        state[planes] = game.getScore();
+        state[planes + 1] = game.getLives();
+        state[planes + 2] = game.getStageCounter();
+        state[planes + 3] = game.isPowerPelletMode() ? 1 : 0;
+        return state;
+    }
+}
@@ -0,0 +1,108 @@
+package server;
+
+import ai.GhostControllerFactory;
+import game.BatchGameObserver;
+import game.GameInfo;
+import game.TestBoards;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import view.ActorController;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SessionManagerTest {
+
+    private SessionManager manager;
+
+    @Before
+    public void setUp() {
+        manager = new SessionManager(1, 1, 5, 10);
+        manager.start();
+    }
+
+    @After
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    public void failingActionClosesOnlyItsSession() throws InterruptedException {
+        final GameSession failing = manager.createSession(TestBoards.maze(), 1, TestBoards.randomPacMan());
+        final GameSession other = manager.createSession(TestBoards.maze(), 2, TestBoards.randomPacMan());
+        assertEquals(failing.getShard(), other.getShard());
+
+        failing.execute(game -> {
+            throw new IllegalStateException("broken action");
+        });
+        final AtomicInteger steps = new AtomicInteger();
+        final CountDownLatch stepping = new CountDownLatch(20);
+        final BatchGameObserver counter = events -> {
+            steps.incrementAndGet();
+            stepping.countDown();
+        };
+        other.execute(game -> game.addBatchObserver(counter));
+
+        assertTrue("the other session stopped stepping", stepping.await(5, TimeUnit.SECONDS));
+        assertTrue(failing.isClosed());
+        assertNull(manager.getSession(failing.getId()));
+        assertFalse(other.isClosed());
+        assertEquals(1, manager.getSessionCount());
+        assertEquals(1, manager.getShardMetrics(failing.getShard()).getFailedCommands());
+        assertEquals(1, manager.getShardMetrics(failing.getShard()).getFailedSessions());
+        assertEquals("broken action", failing.getFailure().getMessage());
+        assertNull(other.getFailure());
+    }
+
+    @Test
+    public void sessionWhoseGameFailsToStepKeepsTheCause() throws InterruptedException {
+        final IllegalStateException broken = new IllegalStateException("broken controller");
+        final GameSession failing = manager.createSession(TestBoards.maze(), 1, new GhostControllerFactory() {
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                return () -> {
+                    throw broken;
+                };
+            }
+        });
+        final GameSession other = manager.createSession(TestBoards.maze(), 2, TestBoards.randomPacMan());
+        final GameSession destroyed = manager.createSession(TestBoards.maze(), 3, TestBoards.randomPacMan());
+        manager.destroySession(destroyed.getId());
+
+        // the worker counts the failure after closing the session
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (manager.getShardMetrics(failing.getShard()).getFailedSessions() == 0
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertTrue(failing.isClosed());
+        assertSame(broken, failing.getFailure());
+        assertNull(manager.getSession(failing.getId()));
+        assertNull(destroyed.getFailure());
+        assertFalse(other.isClosed());
+        final ShardMetrics metrics = manager.getShardMetrics(failing.getShard());
+        assertEquals(1, metrics.getFailedSessions());
+        assertEquals(0, metrics.getFailedCommands());
+        assertEquals(1, metrics.getSessions());
+    }
+
+    @Test
+    public void workerRunsCommandsAfterFailure() throws InterruptedException {
+        final GameSession session = manager.createSession(TestBoards.maze(), 1, TestBoards.randomPacMan());
+        final GameSession other = manager.createSession(TestBoards.maze(), 2, TestBoards.randomPacMan());
+        session.execute(game -> {
+            throw new IllegalStateException("broken action");
+        });
+        final CountDownLatch executed = new CountDownLatch(1);
+        other.execute(game -> executed.countDown());
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+    }
+}
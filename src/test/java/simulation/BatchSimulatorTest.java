@@ -0,0 +1,65 @@
+package simulation;
+
+import game.TestBoards;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSimulatorTest {
+
+    private static final int GAMES = 10;
+    private static final long MAX_STEPS = 300;
+    private static final long STEP_DURATION = 100;
+    private static final long SEED = 21;
+
+    @Test
+    public void resultsDependOnlyOnTheSeed() {
+        final List<GameResult> first = run(SEED, 1).getGameResults();
+        final List<GameResult> second = run(SEED, 3).getGameResults();
+
+        assertEquals(GAMES, second.size());
+        for (int i = 0; i < GAMES; i++) {
+            assertEquals(first.get(i).toString(), second.get(i).toString());
+        }
+    }
+
+    @Test
+    public void everyGameHasAResultInTheOrderOfTheBatch() {
+        final BatchResult result = run(SEED, 2);
+        final List<GameResult> games = result.getGameResults();
+
+        assertEquals(GAMES, games.size());
+        long steps = 0;
+        for (int i = 0; i < GAMES; i++) {
+            final GameResult game = games.get(i);
+            assertEquals(i, game.getGameIndex());
+            assertEquals(SEED + i, game.getSeed());
+            assertTrue(game.getSteps() > 0 && game.getSteps() <= MAX_STEPS);
+            // a game stops before the maximum number of steps only when it is over
+            assertTrue(game.getSteps() == MAX_STEPS || game.isGameOver());
+            steps += game.getSteps();
+        }
+        assertEquals(steps, result.getTotalSteps());
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchSimulator(null, TestBoards.randomPacMan(), GAMES, MAX_STEPS, STEP_DURATION, SEED));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchSimulator(TestBoards.maze(), TestBoards.randomPacMan(), 0, MAX_STEPS, STEP_DURATION,
+                        SEED));
+        assertThrows(IllegalArgumentException.class,
+                () -> new BatchSimulator(TestBoards.maze(), TestBoards.randomPacMan(), GAMES, MAX_STEPS, STEP_DURATION,
+                        SEED, 0));
+    }
+
+    private static BatchResult run(final long seed, final int parallelism) {
+        return new BatchSimulator(TestBoards.maze(), TestBoards.randomPacMan(), GAMES, MAX_STEPS, STEP_DURATION, seed,
+                parallelism).run();
+    }
+}
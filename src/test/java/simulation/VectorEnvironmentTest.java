@@ -0,0 +1,172 @@
+package simulation;
+
+import ai.GhostControllerFactory;
+import game.GameInfo;
+import game.PacManGame;
+import game.TestBoards;
+import org.junit.After;
+import org.junit.Test;
+import view.ActorController;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class VectorEnvironmentTest {
+
+    private static final int GAMES = 4;
+    private static final long SEED = 11;
+
+    /**
+     * The test thread and the workers of the pool, the threads that step the games.
+     */
+    private final Set<Thread> steppingThreads = ConcurrentHashMap.newKeySet();
+    private final ForkJoinPool pool = new ForkJoinPool(2, p -> {
+        final ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+        steppingThreads.add(worker);
+        return worker;
+    }, null, false);
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void resetWritesTheObservationOfEveryGame() {
+        final VectorEnvironment environment = create(100);
+        final long[] observations = environment.reset();
+
+        assertEquals(GAMES * environment.getObservationSize(), observations.length);
+        assertEquals(PacManGame.BIT_PLANES * environment.getBitPlaneWords(), environment.getObservationSize());
+        for (int i = 0; i < GAMES; i++) {
+            assertArrayEquals(planesOf(environment.getGame(i)), observationOf(environment, i));
+        }
+    }
+
+    @Test
+    public void episodeEndsAfterTheMaximumNumberOfStepsAndIsReset() {
+        final int maxSteps = 5;
+        final VectorEnvironment environment = create(maxSteps);
+        final long[] start = environment.reset().clone();
+        final int[] actions = new int[GAMES];
+
+        for (int step = 1; step <= maxSteps; step++) {
+            environment.step(actions);
+            for (int i = 0; i < GAMES; i++) {
+                assertEquals(step == maxSteps, environment.getDones()[i]);
+                assertTrue(environment.getRewards()[i] >= 0);
+                assertArrayEquals(planesOf(environment.getGame(i)), observationOf(environment, i));
+            }
+        }
+        // the observation already shows the start of the next episode
+        assertArrayEquals(start, environment.getObservations());
+        assertEquals(0, environment.getGame(0).getScore());
+    }
+
+    @Test
+    public void episodesOfAGameGetNewRandomNumbers() {
+        final int maxSteps = 60;
+        final VectorEnvironment other = create(maxSteps);
+        other.reset();
+        final List<long[]> first = playEpisode(other, 0, maxSteps);
+        final VectorEnvironment environment = create(maxSteps);
+        environment.reset();
+        final List<long[]> again = playEpisode(environment, 0, maxSteps);
+        final List<long[]> second = playEpisode(environment, 0, maxSteps);
+
+        assertTrue(sameEpisode(first, again));
+        assertFalse(sameEpisode(first, second));
+    }
+
+    @Test
+    public void steppingDoesNotAllocate() {
+        final VectorEnvironment environment = create(50);
+        final int[] actions = new int[GAMES];
+        environment.reset();
+        for (int i = 0; i < 20000; i++) {
+            actions[0] = i & 3;
+            environment.step(actions);
+        }
+        steppingThreads.add(Thread.currentThread());
+        final long[] ids = steppingThreads.stream().mapToLong(Thread::getId).toArray();
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        // reading the allocated bytes allocates itself
+        final long overhead = -allocatedBytes(threads, ids) + allocatedBytes(threads, ids);
+        // a recompilation of the JIT can allocate in a single round, so the best round counts
+        final int steps = 1000;
+        long allocated = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            final long before = allocatedBytes(threads, ids);
+            for (int i = 0; i < steps; i++) {
+                actions[0] = i & 3;
+                environment.step(actions);
+            }
+            allocated = Math.min(allocated, allocatedBytes(threads, ids) - before - overhead);
+        }
+        // a thread that waits unusually long for another one blocks and may allocate a few bytes
+        assertTrue("allocated " + allocated + " bytes in " + steps + " steps", allocated < steps);
+    }
+
+    private VectorEnvironment create(final long maxEpisodeSteps) {
+        return new VectorEnvironment(TestBoards.maze(), new GhostControllerFactory() {
+            @Override
+            public ActorController getPacManController(final GameInfo gameInfo) {
+                throw new UnsupportedOperationException();
+            }
+        }, GAMES, maxEpisodeSteps, SEED, pool);
+    }
+
+    /**
+     * Plays the current episode of a game to its end with a fixed sequence of actions and returns its observations.
+     */
+    private static List<long[]> playEpisode(final VectorEnvironment environment, final int game, final int steps) {
+        final List<long[]> episode = new ArrayList<>();
+        final int[] actions = new int[GAMES];
+        for (int step = 0; step < steps; step++) {
+            actions[game] = (step / 3) & 3;
+            episode.add(observationOf(environment, game));
+            environment.step(actions);
+        }
+        return episode;
+    }
+
+    private static boolean sameEpisode(final List<long[]> a, final List<long[]> b) {
+        for (int i = 0; i < a.size(); i++) {
+            if (!Arrays.equals(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] observationOf(final VectorEnvironment environment, final int game) {
+        final int size = environment.getObservationSize();
+        return Arrays.copyOfRange(environment.getObservations(), game * size, (game + 1) * size);
+    }
+
+    private static long[] planesOf(final PacManGame game) {
+        final long[] planes = new long[PacManGame.BIT_PLANES * game.getBitPlaneWords()];
+        game.writeBitPlanes(planes, 0);
+        return planes;
+    }
+
+    private static long allocatedBytes(final com.sun.management.ThreadMXBean threads, final long[] ids) {
+        long sum = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(ids)) {
+            sum += Math.max(0, bytes);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,165 @@
+package spectator;
+
+import game.Board;
+import game.PacManGame;
+import game.Point;
+import game.TestBoards;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SpectatorServerTest {
+
+    private static final int KEYFRAME_INTERVAL = 50;
+    private static final long STEP_DURATION = 50;
+
+    /**
+     * A long corridor in a ring. The ghost is walled in, so the game lasts until extra items appear.
+     */
+    private static final String[] RING = {
+            "########################",
+            "#P---------------------#",
+            "#-####################-#",
+            "#-####################-#",
+            "#-####################-#",
+            "#-####################-#",
+            "#----------------------#",
+            "########################",
+            "#G######################"};
+
+    private SpectatorServer server;
+    private PacManGame game;
+    private long steps;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new SpectatorServer(new InetSocketAddress("127.0.0.1", 0));
+        server.start();
+        game = new PacManGame(TestBoards.maze(), 3, TestBoards.randomPacMan());
+        game.addBatchObserver(server.createFeed(1, game, KEYFRAME_INTERVAL));
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        server.close();
+    }
+
+    @Test(timeout = 10000)
+    public void clientJoiningBetweenKeyframesIsInSync() throws IOException, InterruptedException {
+        step(KEYFRAME_INTERVAL * 2 + 20);
+        // let the server dispatch the frames before the client joins
+        Thread.sleep(200);
+        try (SpectatorClient client = new SpectatorClient(serverAddress(), 1)) {
+            readUntil(client, steps);
+            assertSameState(client);
+            // the last keyframe and the deltas published after it
+            assertEquals(1, client.getKeyframes());
+            assertTrue(client.getDeltas() > 0);
+
+            step(KEYFRAME_INTERVAL + 10);
+            readUntil(client, steps);
+            assertSameState(client);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void clientFollowsKeyframesAndDeltas() throws IOException {
+        try (SpectatorClient client = new SpectatorClient(serverAddress(), 1)) {
+            waitForClient();
+            for (int i = 0; i < 5; i++) {
+                step(KEYFRAME_INTERVAL / 2 + 7);
+                readUntil(client, steps);
+                assertSameState(client);
+            }
+            assertTrue(client.getDeltas() > 0);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void clientReconstructsEveryStepFromDeltas() throws IOException {
+        game = new PacManGame(Board.parse(RING), 8, TestBoards.randomPacMan());
+        // no periodic keyframes, only the first one and those forced by a new stage or a restored game
+        game.addBatchObserver(server.createFeed(2, game, Integer.MAX_VALUE));
+        steps = 0;
+        boolean extraItemSeen = false;
+        try (SpectatorClient client = new SpectatorClient(serverAddress(), 2)) {
+            waitForClient();
+            while (!game.isGameOver() && steps < 2000) {
+                step(1);
+                readUntil(client, steps);
+                assertSameState(client);
+                extraItemSeen |= game.getExtraItem() != null;
+            }
+            assertTrue(client.getDeltas() > client.getKeyframes() * 10);
+        }
+        assertTrue(extraItemSeen);
+    }
+
+    @Test(timeout = 10000)
+    public void keyframeLargerThanTheBacklogKeepsTheClientInSync() throws IOException, InterruptedException {
+        server.close();
+        // far less than a keyframe of the maze
+        server = new SpectatorServer(new InetSocketAddress("127.0.0.1", 0), 64, SpectatorServer.DEFAULT_WRITE_TIMEOUT);
+        server.start();
+        game = new PacManGame(TestBoards.maze(), 3, TestBoards.randomPacMan());
+        game.addBatchObserver(server.createFeed(1, game, KEYFRAME_INTERVAL));
+        steps = 0;
+        step(KEYFRAME_INTERVAL + 20);
+        Thread.sleep(200);
+        try (SpectatorClient client = new SpectatorClient(serverAddress(), 1)) {
+            readUntil(client, steps);
+            assertSameState(client);
+            for (int i = 0; i < 4; i++) {
+                step(KEYFRAME_INTERVAL / 2 + 7);
+                readUntil(client, steps);
+                assertSameState(client);
+            }
+            assertEquals(0, server.getFramesCoalesced());
+        }
+    }
+
+    private InetSocketAddress serverAddress() {
+        return new InetSocketAddress("127.0.0.1", server.getPort());
+    }
+
+    private void waitForClient() {
+        while (server.getClientCount() == 0) {
+            Thread.yield();
+        }
+    }
+
+    private void step(final int count) {
+        for (int i = 0; i < count && !game.isGameOver(); i++) {
+            game.step(STEP_DURATION);
+            steps++;
+        }
+    }
+
+    private static void readUntil(final SpectatorClient client, final long step) throws IOException {
+        while (client.getStep() < step) {
+            assertTrue("connection closed", client.readFrame());
+        }
+        assertEquals(step, client.getStep());
+    }
+
+    private void assertSameState(final SpectatorClient client) {
+        final long[] planes = new long[PacManGame.BIT_PLANES * game.getBitPlaneWords()];
+        game.writeBitPlanes(planes, 0);
+        assertArrayEquals(planes, client.getBitPlanes());
+        assertEquals(game.getScore(), client.getScore());
+        assertEquals(game.getLives(), client.getLives());
+        assertEquals(game.getStageCounter(), client.getStage());
+        assertEquals(game.isPowerPelletMode(), client.isPowerPelletMode());
+        final Point extraItemPosition = game.getExtraItemPosition();
+        assertEquals(extraItemPosition == null ? -1 : game.getBoardInfo().indexOf(extraItemPosition),
+                client.getExtraItemIndex());
+        assertEquals(game.getExtraItem(), client.getExtraItem());
+    }
+}